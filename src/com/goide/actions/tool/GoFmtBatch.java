@@ -0,0 +1,199 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.actions.tool;
+
+import com.goide.GoEnvironmentUtil;
+import com.goide.sdk.GoSdkService;
+import com.goide.util.GoExecutor;
+import com.intellij.execution.process.CapturingProcessAdapter;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.MultiMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Formats files with {@code gofmt -l -w}. Files are passed to as few processes as the command line length allows,
+ * up to a process per CPU runs at once, and only the files reported by gofmt as changed are refreshed.
+ */
+public class GoFmtBatch {
+  private static final Logger LOG = Logger.getInstance(GoFmtBatch.class);
+  /**
+   * Limit of the total length of file arguments of a process, Windows does not accept command lines over 32767 characters.
+   */
+  static final int MAX_ARGUMENTS_LENGTH = 30000;
+  /**
+   * Files are spread among CPUs only when every process gets at least that many of them, starting a process costs more.
+   */
+  private static final int MIN_FILES_PER_PROCESS = 50;
+
+  private GoFmtBatch() {
+  }
+
+  /**
+   * Must be called from a background thread.
+   *
+   * @return false if gofmt failed on some of the files or the indicator was cancelled
+   */
+  public static boolean format(@NotNull final Project project,
+                               @NotNull final Collection<VirtualFile> files,
+                               @NotNull final String title,
+                               @Nullable final ProgressIndicator indicator) {
+    final Queue<Batch> batches = new ConcurrentLinkedQueue<Batch>(ApplicationManager.getApplication().runReadAction(
+      new Computable<List<Batch>>() {
+        @Override
+        public List<Batch> compute() {
+          return splitIntoBatches(groupByModule(project, files), Runtime.getRuntime().availableProcessors());
+        }
+      }));
+    final AtomicBoolean success = new AtomicBoolean(true);
+    final Collection<String> changedPaths = new ConcurrentLinkedQueue<String>();
+    int parallelism = Math.min(batches.size(), Runtime.getRuntime().availableProcessors());
+    List<Future<?>> workers = ContainerUtil.newArrayList();
+    for (int i = 0; i < parallelism; i++) {
+      workers.add(ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+        @Override
+        public void run() {
+          Batch batch;
+          while ((batch = batches.poll()) != null) {
+            if (indicator != null && indicator.isCanceled() || !batch.run(project, title, changedPaths)) {
+              success.set(false);
+            }
+          }
+        }
+      }));
+    }
+    for (Future<?> worker : workers) {
+      try {
+        worker.get();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        success.set(false);
+      }
+      catch (ExecutionException e) {
+        LOG.error(e);
+        success.set(false);
+      }
+    }
+    refresh(changedPaths);
+    return success.get();
+  }
+
+  @NotNull
+  private static MultiMap<Module, String> groupByModule(@NotNull Project project, @NotNull Collection<VirtualFile> files) {
+    MultiMap<Module, String> pathsByModule = MultiMap.createLinked();
+    for (VirtualFile file : files) {
+      if (file.isValid() && file.isInLocalFileSystem()) {
+        pathsByModule.putValue(ModuleUtilCore.findModuleForFile(file, project), file.getPath());
+      }
+    }
+    return pathsByModule;
+  }
+
+  /**
+   * Every module gets its own batches since gofmt is taken from the module SDK.
+   */
+  @NotNull
+  static List<Batch> splitIntoBatches(@NotNull MultiMap<Module, String> pathsByModule, int cpuCount) {
+    List<Batch> batches = ContainerUtil.newArrayList();
+    for (Map.Entry<Module, Collection<String>> entry : pathsByModule.entrySet()) {
+      Collection<String> paths = entry.getValue();
+      int filesPerBatch = Math.max(MIN_FILES_PER_PROCESS, (paths.size() + cpuCount - 1) / cpuCount);
+      Batch batch = null;
+      for (String path : paths) {
+        if (batch == null || batch.myPaths.size() >= filesPerBatch || batch.myLength + path.length() + 1 > MAX_ARGUMENTS_LENGTH) {
+          batch = new Batch(entry.getKey());
+          batches.add(batch);
+        }
+        batch.add(path);
+      }
+    }
+    return batches;
+  }
+
+  private static void refresh(@NotNull Collection<String> paths) {
+    List<VirtualFile> files = ContainerUtil.newArrayList();
+    for (String path : paths) {
+      ContainerUtil.addIfNotNull(files, LocalFileSystem.getInstance().findFileByPath(path));
+    }
+    if (!files.isEmpty()) {
+      VfsUtil.markDirtyAndRefresh(true, false, false, VfsUtilCore.toVirtualFileArray(files));
+    }
+  }
+
+  @Nullable
+  private static String findGofmt(@NotNull Project project, @Nullable Module module) {
+    String goExecutablePath = GoSdkService.getInstance(project).getGoExecutablePath(module);
+    if (goExecutablePath == null) return null;
+    return new File(new File(goExecutablePath).getParentFile(), GoEnvironmentUtil.getBinaryFileNameForPath("gofmt")).getPath();
+  }
+
+  static class Batch {
+    @Nullable private final Module myModule;
+    private final List<String> myPaths = ContainerUtil.newArrayList();
+    private int myLength;
+
+    public Batch(@Nullable Module module) {
+      myModule = module;
+    }
+
+    @NotNull
+    List<String> getPaths() {
+      return myPaths;
+    }
+
+    private void add(@NotNull String path) {
+      myPaths.add(path);
+      myLength += path.length() + 1;
+    }
+
+    private boolean run(@NotNull Project project, @NotNull String title, @NotNull Collection<String> changedPaths) {
+      CapturingProcessAdapter output = new CapturingProcessAdapter();
+      boolean result = GoExecutor.in(project, myModule).withPresentableName(title).withExePath(findGofmt(project, myModule))
+        .withParameters("-l", "-w").withParameters(ArrayUtil.toStringArray(myPaths))
+        .withProcessListener(output).disablePty().showOutputOnError().execute();
+      for (String line : StringUtil.splitByLines(output.getOutput().getStdout())) {
+        changedPaths.add(FileUtil.toSystemIndependentName(line.trim()));
+      }
+      return result;
+    }
+  }
+}
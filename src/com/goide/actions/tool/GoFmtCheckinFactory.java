@@ -20,7 +20,9 @@ import com.goide.psi.GoFile;
 import com.intellij.CommonBundle;
 import com.intellij.ide.util.PropertiesComponent;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
-import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.text.StringUtil;
@@ -31,9 +33,7 @@ import com.intellij.openapi.vcs.checkin.CheckinHandler;
 import com.intellij.openapi.vcs.checkin.CheckinHandlerFactory;
 import com.intellij.openapi.vcs.ui.RefreshableOnComponent;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
-import com.intellij.util.Consumer;
 import com.intellij.util.PairConsumer;
 import com.intellij.util.ui.UIUtil;
 import org.jetbrains.annotations.NotNull;
@@ -85,16 +85,14 @@ public class GoFmtCheckinFactory extends CheckinHandlerFactory {
         if (enabled(panel)) {
           final Ref<Boolean> success = new Ref<Boolean>(true);
           FileDocumentManager.getInstance().saveAllDocuments();
-          for (PsiFile file : getPsiFiles()) {
-            VirtualFile virtualFile = file.getVirtualFile();
-            new GoFmtFileAction().doSomething(virtualFile, ModuleUtilCore.findModuleForPsiElement(file), file.getProject(), "Go fmt", true,
-                                              new Consumer<Boolean>() {
-                                                @Override
-                                                public void consume(Boolean result) {
-                                                  if (!result) success.set(false);
-                                                }
-                                              });
-          }
+          final List<VirtualFile> files = getGoFiles();
+          ProgressManager.getInstance().run(new Task.Modal(panel.getProject(), "Go fmt", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+              indicator.setIndeterminate(true);
+              success.set(GoFmtBatch.format(panel.getProject(), files, "Go fmt", indicator));
+            }
+          });
           if (!success.get()) {
             return showErrorMessage(executor);
           }
@@ -119,17 +117,16 @@ public class GoFmtCheckinFactory extends CheckinHandlerFactory {
       }
 
       @NotNull
-      private List<PsiFile> getPsiFiles() {
+      private List<VirtualFile> getGoFiles() {
         Collection<VirtualFile> files = panel.getVirtualFiles();
-        List<PsiFile> psiFiles = new ArrayList<PsiFile>();
+        List<VirtualFile> goFiles = new ArrayList<VirtualFile>();
         PsiManager manager = PsiManager.getInstance(panel.getProject());
         for (VirtualFile file : files) {
-          PsiFile psiFile = manager.findFile(file);
-          if (psiFile instanceof GoFile) {
-            psiFiles.add(psiFile);
+          if (manager.findFile(file) instanceof GoFile) {
+            goFiles.add(file);
           }
         }
-        return psiFiles;
+        return goFiles;
       }
     };
   }
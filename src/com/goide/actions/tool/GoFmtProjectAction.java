@@ -16,20 +16,28 @@
 
 package com.goide.actions.tool;
 
+import com.goide.GoConstants;
+import com.goide.GoFileType;
 import com.goide.sdk.GoSdkService;
 import com.goide.sdk.GoSdkUtil;
-import com.goide.util.GoExecutor;
 import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.DumbAwareAction;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootManager;
-import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.util.Consumer;
+import com.intellij.openapi.vfs.VirtualFileVisitor;
+import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
 
 public class GoFmtProjectAction extends DumbAwareAction {
   @Override
@@ -40,24 +48,52 @@ public class GoFmtProjectAction extends DumbAwareAction {
 
   @Override
   public void actionPerformed(@NotNull AnActionEvent e) {
-    Project project = e.getProject();
+    final Project project = e.getProject();
     assert project != null;
 
     FileDocumentManager.getInstance().saveAllDocuments();
-    for (Module module : GoSdkUtil.getGoModules(project)) {
-      for (VirtualFile file : ModuleRootManager.getInstance(module).getContentRoots()) {
-        fmt(project, module, "go fmt " + file.getPath(), file);
+    new Task.Backgroundable(project, "Go fmt", true) {
+      @Override
+      public void run(@NotNull ProgressIndicator indicator) {
+        indicator.setIndeterminate(true);
+        List<VirtualFile> files = ApplicationManager.getApplication().runReadAction(new Computable<List<VirtualFile>>() {
+          @Override
+          public List<VirtualFile> compute() {
+            return findGoFiles(project);
+          }
+        });
+        GoFmtBatch.format(project, files, "Go fmt", indicator);
       }
-    }
+    }.queue();
   }
 
-  private static void fmt(@NotNull Project project, @Nullable Module module, @NotNull String presentation, @NotNull final VirtualFile dir) {
-    GoExecutor.in(project, module).withPresentableName(presentation).withWorkDirectory(dir.getPath())
-      .withParameters("fmt", "./...").showOutputOnError().executeWithProgress(false, new Consumer<Boolean>() {
-      @Override
-      public void consume(Boolean result) {
-        VfsUtil.markDirtyAndRefresh(true, true, true, dir);
+  /**
+   * Go files of the content roots of Go modules that {@code go fmt ./...} would format in the roots, vendored packages excepted.
+   */
+  @NotNull
+  private static List<VirtualFile> findGoFiles(@NotNull Project project) {
+    final List<VirtualFile> files = ContainerUtil.newArrayList();
+    for (Module module : GoSdkUtil.getGoModules(project)) {
+      for (final VirtualFile root : ModuleRootManager.getInstance(module).getContentRoots()) {
+        VfsUtilCore.visitChildrenRecursively(root, new VirtualFileVisitor() {
+          @NotNull
+          @Override
+          public Result visitFileEx(@NotNull VirtualFile file) {
+            ProgressManager.checkCanceled();
+            if (file.isDirectory()) {
+              String name = file.getName();
+              boolean ignored = name.startsWith(".") || name.startsWith("_") ||
+                                GoConstants.TESTDATA_NAME.equals(name) || GoConstants.VENDOR.equals(name);
+              return ignored && !file.equals(root) ? SKIP_CHILDREN : CONTINUE;
+            }
+            if (file.getFileType() == GoFileType.INSTANCE) {
+              files.add(file);
+            }
+            return CONTINUE;
+          }
+        });
       }
-    });
+    }
+    return files;
   }
 }
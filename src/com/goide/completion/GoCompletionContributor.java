@@ -53,6 +53,7 @@ public class GoCompletionContributor extends CompletionContributor {
     extend(CompletionType.BASIC, referenceExpression(), new GoReferenceCompletionProvider());
     extend(CompletionType.BASIC, goReference(), new GoReferenceCompletionProvider());
     extend(CompletionType.BASIC, testFunctionSignature(), new GoTestFunctionCompletionProvider());
+    extend(CompletionType.SMART, referenceExpression(), new GoTypeProducersCompletionProvider());
   }
 
   private static PsiElementPattern.Capture<PsiElement> testFunctionSignature() {
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.completion;
+
+import com.goide.project.GoVendoringUtil;
+import com.goide.psi.*;
+import com.goide.psi.impl.GoPsiImplUtil;
+import com.goide.psi.impl.GoTypeUtil;
+import com.goide.stubs.index.GoTypeProducersIndex;
+import com.goide.util.GoUtil;
+import com.intellij.codeInsight.completion.CompletionParameters;
+import com.intellij.codeInsight.completion.CompletionProvider;
+import com.intellij.codeInsight.completion.CompletionResultSet;
+import com.intellij.codeInsight.completion.InsertHandler;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Pair;
+import com.intellij.psi.PsiDirectory;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.ProcessingContext;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.goide.completion.GoCompletionUtil.createPrefixMatcher;
+
+/**
+ * Smart type completion: suggests functions, methods, variables and constants producing a value of the expected type.
+ * Candidates are taken from {@link GoTypeProducersIndex} by the type name, so only candidates producing a type with
+ * the expected name are resolved to check that they produce exactly the expected type, including a pointer.
+ */
+public class GoTypeProducersCompletionProvider extends CompletionProvider<CompletionParameters> {
+  @Override
+  protected void addCompletions(@NotNull CompletionParameters parameters, ProcessingContext context, @NotNull CompletionResultSet set) {
+    PsiElement parent = parameters.getPosition().getParent();
+    PsiFile originalFile = parameters.getOriginalFile();
+    if (!(parent instanceof GoReferenceExpression) || !(originalFile instanceof GoFile)) return;
+
+    GoReferenceExpression expression = (GoReferenceExpression)parent;
+    Set<Pair<GoTypeSpec, Boolean>> expectedTypes = ContainerUtil.newLinkedHashSet();
+    for (GoType type : GoTypeUtil.getExpectedTypes(expression)) {
+      ContainerUtil.addIfNotNull(expectedTypes, resolveProducedType(type));
+    }
+    Set<String> typeKeys = ContainerUtil.newLinkedHashSet();
+    for (Pair<GoTypeSpec, Boolean> type : expectedTypes) {
+      ContainerUtil.addIfNotNull(typeKeys, type.first.getName());
+    }
+    if (typeKeys.isEmpty()) return;
+
+    GoReferenceExpression qualifier = expression.getQualifier();
+    PsiElement resolvedQualifier = qualifier != null ? qualifier.resolve() : null;
+    if (qualifier != null && resolvedQualifier == null) return;
+
+    GoFile file = (GoFile)originalFile;
+    ProducersProcessor processor = new ProducersProcessor(file, expectedTypes, qualifier, resolvedQualifier,
+                                                          set.withPrefixMatcher(createPrefixMatcher(set.getPrefixMatcher())));
+    for (String typeKey : typeKeys) {
+      if (!GoTypeProducersIndex.process(typeKey, file.getProject(), GoUtil.goPathResolveScope(file), null, processor)) {
+        return;
+      }
+    }
+  }
+
+  @Nullable
+  private static GoTypeSpec resolveTypeSpec(@Nullable GoType type) {
+    GoType unwrapped = GoPsiImplUtil.unwrapPointerIfNeeded(type);
+    GoTypeReferenceExpression reference = unwrapped != null ? unwrapped.getTypeReferenceExpression() : null;
+    PsiElement resolve = reference != null ? reference.resolve() : null;
+    return resolve instanceof GoTypeSpec ? (GoTypeSpec)resolve : null;
+  }
+
+  /**
+   * @return spec of a named type and whether the type is a pointer to it, e.g. {@code Request} and true for {@code *http.Request}
+   */
+  @Nullable
+  private static Pair<GoTypeSpec, Boolean> resolveProducedType(@Nullable GoType type) {
+    GoTypeSpec spec = resolveTypeSpec(type);
+    return spec != null ? Pair.create(spec, type instanceof GoPointerType) : null;
+  }
+
+  /**
+   * Returns the type of a variable or constant or the result type of a function or method, as indexed by
+   * {@link GoTypeProducersIndex}, or null if a function or method has several results.
+   */
+  @Nullable
+  private static GoType getProducedType(@NotNull GoNamedElement element) {
+    if (!(element instanceof GoSignatureOwner)) return element.getGoType(null);
+    GoSignature signature = ((GoSignatureOwner)element).getSignature();
+    GoResult result = signature != null ? signature.getResult() : null;
+    if (result == null) return null;
+    GoType type = result.getType();
+    if (type != null) return getSingleType(type);
+    GoParameters parameters = result.getParameters();
+    if (parameters == null) return null;
+    List<GoParameterDeclaration> declarations = parameters.getParameterDeclarationList();
+    if (declarations.isEmpty()) return getSingleType(parameters.getType());
+    GoParameterDeclaration declaration = declarations.get(0);
+    return declarations.size() == 1 && declaration.getParamDefinitionList().size() <= 1 ? declaration.getType() : null;
+  }
+
+  @Nullable
+  private static GoType getSingleType(@Nullable GoType type) {
+    if (!(type instanceof GoTypeList)) return type;
+    List<GoType> types = ((GoTypeList)type).getTypeList();
+    return types.size() == 1 ? types.get(0) : null;
+  }
+
+  private static class ProducersProcessor implements Processor<GoNamedElement> {
+    @NotNull private final GoFile myFile;
+    @NotNull private final Set<Pair<GoTypeSpec, Boolean>> myExpectedTypes;
+    @NotNull private final CompletionResultSet myResult;
+    @Nullable private final PsiDirectory myQualifierPackage;
+    @Nullable private final GoTypeSpec myQualifierType;
+    private final boolean myQualified;
+    @Nullable private final Module myModule;
+    @NotNull private final Map<String, GoImportSpec> myImportedPackages;
+    private final boolean myVendoringEnabled;
+
+    public ProducersProcessor(@NotNull GoFile file,
+                              @NotNull Set<Pair<GoTypeSpec, Boolean>> expectedTypes,
+                              @Nullable GoReferenceExpression qualifier,
+                              @Nullable PsiElement resolvedQualifier,
+                              @NotNull CompletionResultSet result) {
+      myFile = file;
+      myExpectedTypes = expectedTypes;
+      myResult = result;
+      myQualified = qualifier != null;
+      myQualifierPackage = resolvedQualifier instanceof GoImportSpec ? ((GoImportSpec)resolvedQualifier).getImportString().resolve() :
+                           resolvedQualifier instanceof PsiDirectory ? (PsiDirectory)resolvedQualifier : null;
+      myQualifierType = qualifier != null && myQualifierPackage == null ? resolveTypeSpec(qualifier.getGoType(null)) : null;
+      myModule = ModuleUtilCore.findModuleForPsiElement(file);
+      myImportedPackages = file.getImportedPackagesMap();
+      myVendoringEnabled = GoVendoringUtil.isVendoringEnabled(myModule);
+    }
+
+    @Override
+    public boolean process(@NotNull GoNamedElement element) {
+      ProgressManager.checkCanceled();
+      String name = element.getName();
+      if (name == null || element.isBlank()) return true;
+
+      if (element instanceof GoMethodDeclaration) {
+        if (myQualifierType != null && myQualifierType.equals(resolveReceiverType((GoMethodDeclaration)element))) {
+          addElement(element, name, null);
+        }
+        return true;
+      }
+
+      GoFile declarationFile = element.getContainingFile();
+      if (myQualified) {
+        if (myQualifierPackage != null && element.isPublic() && myQualifierPackage.equals(declarationFile.getParent())) {
+          addElement(element, name, null);
+        }
+        return true;
+      }
+
+      if (GoUtil.inSamePackage(myFile, declarationFile)) {
+        addElement(element, name, null);
+      }
+      else if (element.isPublic() && GoPsiImplUtil.canBeAutoImported(declarationFile, false, myModule)) {
+        GoImportSpec existingImport = myImportedPackages.get(declarationFile.getImportPath(myVendoringEnabled));
+        if (existingImport != null && existingImport.isDot()) {
+          addElement(element, name, null);
+        }
+        else {
+          String alias = existingImport != null ? existingImport.getAlias() : null;
+          String packageName = alias != null ? alias : declarationFile.getPackageName();
+          if (packageName != null) {
+            addElement(element, packageName + "." + name, element instanceof GoFunctionDeclaration
+                                                          ? GoAutoImportInsertHandler.FUNCTION_INSERT_HANDLER
+                                                          : GoAutoImportInsertHandler.SIMPLE_INSERT_HANDLER);
+          }
+        }
+      }
+      return true;
+    }
+
+    @Nullable
+    private static GoTypeSpec resolveReceiverType(@NotNull GoMethodDeclaration method) {
+      GoTypeReferenceExpression reference = GoPsiImplUtil.getTypeReference(method.getReceiverType());
+      PsiElement resolve = reference != null ? reference.resolve() : null;
+      return resolve instanceof GoTypeSpec ? (GoTypeSpec)resolve : null;
+    }
+
+    private void addElement(@NotNull GoNamedElement element, @NotNull String lookupString, @Nullable InsertHandler<LookupElement> h) {
+      if (!myExpectedTypes.contains(resolveProducedType(getProducedType(element)))) return;
+      if (element instanceof GoNamedSignatureOwner) {
+        myResult.addElement(GoCompletionUtil.createFunctionOrMethodLookupElement((GoNamedSignatureOwner)element, lookupString, h,
+                                                                                 GoCompletionUtil.FUNCTION_PRIORITY));
+      }
+      else {
+        myResult.addElement(GoCompletionUtil.createVariableLikeLookupElement(element, lookupString, h, GoCompletionUtil.VAR_PRIORITY));
+      }
+    }
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2013-2015 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,28 +16,99 @@
 
 package com.goide.dlv;
 
+import com.goide.dlv.protocol.DlvCodec;
 import com.goide.dlv.protocol.DlvRequest;
 import com.goide.dlv.protocol.DlvResponse;
-import com.google.gson.GsonBuilder;
-import com.google.gson.stream.JsonReader;
+import com.google.gson.TypeAdapter;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.Function;
 import com.intellij.util.containers.ContainerUtil;
+import io.netty.buffer.ByteBuf;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 import org.jetbrains.concurrency.Promise;
+import org.jetbrains.jsonProtocol.Request;
 import org.jetbrains.rpc.CommandProcessor;
 import org.jetbrains.rpc.CommandProcessorKt;
 import org.jetbrains.rpc.RequestCallback;
 
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+
+public abstract class DlvCommandProcessor extends CommandProcessor<ByteBuf, DlvResponse, DlvResponse> {
+  @NotNull private final DlvMetrics myMetrics;
+  private final Map<Integer, TypeAdapter<?>> myResultAdapters = ContainerUtil.newConcurrentMap();
+  private final Function<Integer, TypeAdapter<?>> myResultAdapterById = new Function<Integer, TypeAdapter<?>>() {
+    @Override
+    public TypeAdapter<?> fun(Integer id) {
+      TypeAdapter<?> adapter = myResultAdapters.get(id);
+      if (adapter != null) return adapter;
+      CommandProcessorKt.getLOG().warn("Unexpected response with id " + id);
+      return DlvCodec.ANY;
+    }
+  };
+
+  protected DlvCommandProcessor() {
+    this(DlvMetrics.SYSTEM_CLOCK);
+  }
+
+  DlvCommandProcessor(@NotNull DlvMetrics.Clock clock) {
+    myMetrics = new DlvMetrics(clock);
+  }
+
+  /**
+   * The result adapter is registered before writing, since the response may be read before the write returns,
+   * and is released if the request isn't sent.
+   */
+  @Override
+  public boolean write(@NotNull Request message) throws IOException {
+    DlvRequest<?> request = message instanceof DlvRequest ? (DlvRequest<?>)message : null;
+    if (request != null) {
+      myResultAdapters.put(request.getId(), request.getResultAdapter());
+      myMetrics.requestSent(request.getId(), request.getMethodName(), message.getBuffer().readableBytes());
+    }
+    boolean written = false;
+    try {
+      written = doWrite(message.getBuffer());
+      return written;
+    }
+    finally {
+      if (!written && request != null) {
+        myResultAdapters.remove(request.getId());
+        myMetrics.requestFailed(request.getId());
+      }
+    }
+  }
+
+  protected abstract boolean doWrite(@NotNull ByteBuf content) throws IOException;
+
+  @NotNull
+  public DlvMetrics getMetrics() {
+    return myMetrics;
+  }
 
-public abstract class DlvCommandProcessor extends CommandProcessor<JsonReaderEx, DlvResponse, DlvResponse> {
   @Nullable
   @Override
-  public DlvResponse readIfHasSequence(@NotNull JsonReaderEx message) {
-    return new DlvResponse.CommandResponseImpl(message, null);
+  public DlvResponse readIfHasSequence(@NotNull ByteBuf message) {
+    try {
+      int bytes = message.readableBytes();
+      DlvResponse response = DlvCodec.decode(message, myResultAdapterById);
+      // error responses carry no result, so the adapter is released here rather than on decoding
+      myResultAdapters.remove(response.id());
+      myMetrics.responseReceived(response.id(), bytes);
+      return response;
+    }
+    catch (IOException e) {
+      CommandProcessorKt.getLOG().warn("Cannot decode Delve response, dropped", e);
+      return null;
+    }
+  }
+
+  @TestOnly
+  int getPendingResultCount() {
+    return myResultAdapters.size();
   }
 
   @Override
@@ -46,16 +117,17 @@ public abstract class DlvCommandProcessor extends CommandProcessor<JsonReaderEx,
   }
 
   @Override
-  public void acceptNonSequence(JsonReaderEx message) {
+  public void acceptNonSequence(ByteBuf message) {
   }
 
-  public void processIncomingJson(@NotNull JsonReaderEx reader) {
-    getMessageManager().processIncoming(reader);
+  public void processIncoming(@NotNull ByteBuf message) {
+    getMessageManager().processIncoming(message);
   }
 
   @Override
   public void call(@NotNull DlvResponse response, @NotNull RequestCallback<DlvResponse> callback) {
-    if (response.result() != null) {
+    // some methods, e.g. SetSymbol, succeed with a null result
+    if (response.error() == null) {
       callback.onSuccess(response, this);
     }
     else {
@@ -78,26 +150,7 @@ public abstract class DlvCommandProcessor extends CommandProcessor<JsonReaderEx,
   @NotNull
   @Override
   public <RESULT> RESULT readResult(@NotNull String method, @NotNull DlvResponse successResponse) {
-    JsonReaderEx result = successResponse.result();
-    assert result != null : "success result should be not null";
-    JsonReader reader = result.asGson();
-    Object o = new GsonBuilder().create().fromJson(reader, getResultType(method.replaceFirst("RPCServer\\.", "")));
     //noinspection unchecked
-    return (RESULT)o;
-  }
-
-  @NotNull
-  private static Type getResultType(@NotNull String method) {
-    for (Class<?> c : DlvRequest.class.getDeclaredClasses()) {
-      if (method.equals(c.getSimpleName())) {
-        Type s = c.getGenericSuperclass();
-        assert s instanceof ParameterizedType : c.getCanonicalName() + " should have a generic parameter for correct callback processing";
-        Type[] arguments = ((ParameterizedType)s).getActualTypeArguments();
-        assert arguments.length == 1 : c.getCanonicalName() + " should have only one generic argument for correct callback processing";
-        return arguments[0];
-      }
-    }
-    CommandProcessorKt.getLOG().error("Unknown response " + method + ", please register an appropriate request into com.goide.dlv.protocol.DlvRequest");
-    return Object.class;
+    return (RESULT)successResponse.result();
   }
-}
\ No newline at end of file
+}
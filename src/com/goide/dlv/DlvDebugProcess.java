@@ -20,10 +20,12 @@ import com.goide.GoConstants;
 import com.goide.GoFileType;
 import com.goide.dlv.breakpoint.DlvBreakpointProperties;
 import com.goide.dlv.breakpoint.DlvBreakpointType;
+import com.goide.dlv.breakpoint.DlvHitCondition;
 import com.goide.dlv.protocol.DlvApi;
 import com.goide.dlv.protocol.DlvRequest;
 import com.goide.util.GoUtil;
 import com.intellij.execution.ExecutionResult;
+import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.execution.ui.ExecutionConsole;
 import com.intellij.icons.AllIcons;
 import com.intellij.openapi.Disposable;
@@ -34,16 +36,20 @@ import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.fileTypes.PlainTextLanguage;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiFileFactory;
 import com.intellij.util.Consumer;
+import com.intellij.util.PathUtil;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.io.socketConnection.ConnectionStatus;
 import com.intellij.util.io.socketConnection.SocketConnectionListener;
 import com.intellij.xdebugger.XDebugSession;
+import com.intellij.xdebugger.XExpression;
 import com.intellij.xdebugger.XSourcePosition;
+import com.intellij.xdebugger.breakpoints.SuspendPolicy;
 import com.intellij.xdebugger.breakpoints.XBreakpoint;
 import com.intellij.xdebugger.breakpoints.XBreakpointHandler;
 import com.intellij.xdebugger.breakpoints.XLineBreakpoint;
@@ -74,6 +80,9 @@ public final class DlvDebugProcess extends DebugProcessImpl<VmConnection<?>> imp
   private final static Logger LOG = Logger.getInstance(DlvDebugProcess.class);
   private final AtomicBoolean breakpointsInitiated = new AtomicBoolean();
   private final AtomicBoolean connectedListenerAdded = new AtomicBoolean();
+  private static final int NO_BREAKPOINT = -1;
+  private volatile int myRunToPositionBreakpointId = NO_BREAKPOINT;
+  @NotNull private final DlvTypePositionCache myTypePositionCache;
   private static final Consumer<Throwable> THROWABLE_CONSUMER = new Consumer<Throwable>() {
     @Override
     public void consume(@NotNull Throwable throwable) {
@@ -90,18 +99,75 @@ public final class DlvDebugProcess extends DebugProcessImpl<VmConnection<?>> imp
         return;
       }
 
+      clearRunToPositionBreakpoint();
       final XBreakpoint<DlvBreakpointProperties> find = findBreak(o.breakPoint);
-      send(new DlvRequest.StacktraceGoroutine())
+      if (find != null && !matchesClientHitCondition(find, o.breakPoint)) {
+        command(CONTINUE);
+        return;
+      }
+      if (o.breakPoint != null && o.breakPoint.tracepoint) {
+        // log and continue, neither frames nor the suspend context are needed for tracepoints
+        if (find != null) printTrace(find, o.breakPoint, o.breakPointInfo);
+        command(CONTINUE);
+        return;
+      }
+      String condition = find != null ? find.getUserData(CLIENT_CONDITION) : null;
+      if (condition != null) {
+        evaluateClientCondition(o, find, condition);
+        return;
+      }
+      suspend(o, find);
+    }
+
+    /**
+     * The condition rejected by the server is evaluated in the top frame of the stopped goroutine,
+     * the debuggee is resumed if it doesn't hold or cannot be evaluated.
+     */
+    private void evaluateClientCondition(@NotNull final DebuggerState o,
+                                         @NotNull final XBreakpoint<DlvBreakpointProperties> breakpoint,
+                                         @NotNull String condition) {
+      send(new DlvRequest.EvalSymbol(condition, DlvRequest.CURRENT_GOROUTINE, 0))
+        .done(new Consumer<Variable>() {
+          @Override
+          public void consume(@NotNull Variable variable) {
+            if (Boolean.parseBoolean(variable.value)) {
+              suspend(o, breakpoint);
+            }
+            else {
+              command(CONTINUE);
+            }
+          }
+        })
+        .rejected(new Consumer<Throwable>() {
+          @Override
+          public void consume(@Nullable Throwable t) {
+            String message = "Cannot evaluate condition" + (t != null && t.getMessage() != null ? ": " + t.getMessage() : "");
+            XLineBreakpoint<?> lineBreakpoint = (XLineBreakpoint<?>)breakpoint;
+            getSession().updateBreakpointPresentation(lineBreakpoint, AllIcons.Debugger.Db_invalid_breakpoint, message);
+            command(CONTINUE);
+          }
+        });
+    }
+
+    private void suspend(@NotNull final DebuggerState o, @Nullable final XBreakpoint<DlvBreakpointProperties> find) {
+      // all requests are written before any response is read, so the top frame is ready after a single round trip
+      int current = DlvRequest.CURRENT_GOROUTINE;
+      final Promise<List<DlvApi.Variable>> topLocals = send(new DlvRequest.ListLocalVars(current, 0, LoadConfig.DEFAULT));
+      final Promise<List<DlvApi.Variable>> topArgs = send(new DlvRequest.ListFunctionArgs(current, 0, LoadConfig.DEFAULT));
+      send(new DlvRequest.StacktraceGoroutine(DlvSuspendContext.FRAMES_PAGE_SIZE))
         .done(new Consumer<List<DlvApi.Location>>() {
           @Override
           public void consume(@NotNull List<DlvApi.Location> locations) {
-            DlvSuspendContext context = new DlvSuspendContext(DlvDebugProcess.this, o.currentThread.id, locations, getProcessor());
+            int goroutineId = o.currentGoroutine != null ? o.currentGoroutine.id : -1;
+            DlvSuspendContext context = new DlvSuspendContext(DlvDebugProcess.this, o.currentThread.id, goroutineId, locations,
+                                                              topLocals, topArgs, getProcessor());
             XDebugSession session = getSession();
             if (find == null) {
               session.positionReached(context);
             }
-            else {
-              session.breakpointReached(find, null, context);
+            else if (!session.breakpointReached(find, null, context)) {
+              // the breakpoint doesn't suspend, e.g. it depends on another breakpoint which hasn't been hit yet
+              command(CONTINUE);
             }
           }
         });
@@ -111,6 +177,30 @@ public final class DlvDebugProcess extends DebugProcessImpl<VmConnection<?>> imp
     private XBreakpoint<DlvBreakpointProperties> findBreak(@Nullable Breakpoint point) {
       return point == null ? null : breakpoints.get(point.id);
     }
+
+    private void printTrace(@NotNull XBreakpoint<DlvBreakpointProperties> breakpoint,
+                            @NotNull Breakpoint point,
+                            @Nullable BreakpointInfo info) {
+      StringBuilder message = new StringBuilder();
+      if (breakpoint.isLogMessage()) {
+        message.append(PathUtil.getFileName(StringUtil.notNullize(point.file))).append(':').append(point.line);
+        if (StringUtil.isNotEmpty(point.functionName)) message.append(' ').append(point.functionName);
+      }
+      if (info != null && info.variables != null) {
+        for (Variable variable : info.variables) {
+          if (message.length() > 0) message.append(' ');
+          message.append(variable.name).append(" = ").append(variable.value);
+        }
+      }
+      if (message.length() > 0) {
+        getSession().getConsoleView().print(message.append('\n').toString(), ConsoleViewContentType.SYSTEM_OUTPUT);
+      }
+    }
+
+    private boolean matchesClientHitCondition(@NotNull XBreakpoint<DlvBreakpointProperties> breakpoint, @NotNull Breakpoint point) {
+      DlvHitCondition condition = breakpoint.getUserData(CLIENT_HIT_CONDITION);
+      return condition == null || condition.matches(point.totalHitCount);
+    }
   };
 
   @NotNull
@@ -123,13 +213,25 @@ public final class DlvDebugProcess extends DebugProcessImpl<VmConnection<?>> imp
     return processor.send(request).rejected(THROWABLE_CONSUMER);
   }
 
+  @NotNull
+  DlvTypePositionCache getTypePositionCache() {
+    return myTypePositionCache;
+  }
+
   @NotNull
   private DlvCommandProcessor getProcessor() {
     return assertNotNull(tryCast(getVm(), DlvVm.class)).getCommandProcessor();
   }
 
-  public DlvDebugProcess(@NotNull XDebugSession session, @NotNull VmConnection<?> connection, @Nullable ExecutionResult er) {
+  /**
+   * @param mainPackageDirectory directory of the debugged main package, types of the main package are looked up there
+   */
+  public DlvDebugProcess(@NotNull XDebugSession session,
+                         @NotNull VmConnection<?> connection,
+                         @Nullable ExecutionResult er,
+                         @Nullable VirtualFile mainPackageDirectory) {
     super(session, connection, new MyEditorsProvider(), null, er);
+    myTypePositionCache = new DlvTypePositionCache(mainPackageDirectory);
   }
 
   @NotNull
@@ -147,7 +249,7 @@ public final class DlvDebugProcess extends DebugProcessImpl<VmConnection<?>> imp
 
   @Override
   protected boolean isVmStepOutCorrect() {
-    return false;
+    return true;
   }
 
   @Override
@@ -199,7 +301,7 @@ public final class DlvDebugProcess extends DebugProcessImpl<VmConnection<?>> imp
     }
   }
 
-  private void command(@NotNull @MagicConstant(stringValues = {NEXT, CONTINUE, HALT, SWITCH_THREAD, STEP}) String name) {
+  private void command(@NotNull @MagicConstant(stringValues = {NEXT, CONTINUE, HALT, SWITCH_THREAD, STEP, STEP_OUT}) String name) {
     send(new DlvRequest.Command(name)).done(myStateConsumer);
   }
 
@@ -220,7 +322,7 @@ public final class DlvDebugProcess extends DebugProcessImpl<VmConnection<?>> imp
         command(NEXT);
         break;
       case OUT:
-        // todo
+        command(STEP_OUT);
         break;
     }
     return null;
@@ -232,9 +334,34 @@ public final class DlvDebugProcess extends DebugProcessImpl<VmConnection<?>> imp
     return Collections.emptyList();
   }
 
+  /**
+   * Sets a temporary breakpoint which is removed on the next stop, wherever it happens, and continues.
+   */
   @Override
   public void runToPosition(@NotNull XSourcePosition position, @Nullable XSuspendContext context) {
-    // todo
+    send(new DlvRequest.CreateBreakpoint(position.getFile().getPath(), position.getLine() + 1))
+      .done(new Consumer<Breakpoint>() {
+        @Override
+        public void consume(@NotNull Breakpoint b) {
+          myRunToPositionBreakpointId = b.id;
+          command(CONTINUE);
+        }
+      })
+      .rejected(new Consumer<Throwable>() {
+        @Override
+        public void consume(@NotNull Throwable throwable) {
+          // e.g. there is a breakpoint on the line already
+          command(CONTINUE);
+        }
+      });
+  }
+
+  private void clearRunToPositionBreakpoint() {
+    int id = myRunToPositionBreakpointId;
+    if (id != NO_BREAKPOINT) {
+      myRunToPositionBreakpointId = NO_BREAKPOINT;
+      send(new DlvRequest.ClearBreakpoint(id));
+    }
   }
 
   @Override
@@ -262,6 +389,14 @@ public final class DlvDebugProcess extends DebugProcessImpl<VmConnection<?>> imp
   }
 
   private static final Key<Integer> ID = Key.create("DLV_BP_ID");
+  /**
+   * Hit condition which is checked on the IDE side because the server has ignored it
+   */
+  private static final Key<DlvHitCondition> CLIENT_HIT_CONDITION = Key.create("DLV_BP_CLIENT_HIT_CONDITION");
+  /**
+   * Condition which is evaluated on the IDE side on every stop because the server has rejected it
+   */
+  private static final Key<String> CLIENT_CONDITION = Key.create("DLV_BP_CLIENT_CONDITION");
   private final Map<Integer, XBreakpoint<DlvBreakpointProperties>> breakpoints = ContainerUtil.newConcurrentMap();
 
   private class MyBreakpointHandler extends XBreakpointHandler<XLineBreakpoint<DlvBreakpointProperties>> {
@@ -270,17 +405,72 @@ public final class DlvDebugProcess extends DebugProcessImpl<VmConnection<?>> imp
       super(DlvBreakpointType.class);
     }
 
+    /**
+     * Condition and hit condition are evaluated by Delve, so the debuggee doesn't stop while they don't hold.
+     * If the server rejects the condition, the breakpoint is created without it and the condition is evaluated by the IDE
+     * with {@code EvalSymbol} on every stop, the debuggee is resumed while it doesn't hold.
+     * If the server ignores the hit condition, it is checked by the IDE against the reported hit count.
+     */
     @Override
     public void registerBreakpoint(@NotNull final XLineBreakpoint<DlvBreakpointProperties> breakpoint) {
       XSourcePosition breakpointPosition = breakpoint.getSourcePosition();
       if (breakpointPosition == null) return;
-      VirtualFile file = breakpointPosition.getFile();
-      int line = breakpointPosition.getLine();
-      send(new DlvRequest.CreateBreakpoint(file.getPath(), line + 1))
+      final String path = breakpointPosition.getFile().getPath();
+      final int line = breakpointPosition.getLine() + 1;
+      XExpression conditionExpression = breakpoint.getConditionExpression();
+      final String condition = conditionExpression != null ? StringUtil.nullize(conditionExpression.getExpression(), true) : null;
+      DlvBreakpointProperties properties = breakpoint.getProperties();
+      String hitConditionError = DlvHitCondition.getError(properties != null ? properties.hitCondition : null);
+      if (hitConditionError != null) {
+        getSession().updateBreakpointPresentation(breakpoint, AllIcons.Debugger.Db_invalid_breakpoint, hitConditionError);
+        return;
+      }
+      final DlvHitCondition hitCondition = DlvHitCondition.parse(properties != null ? properties.hitCondition : null);
+      final String hitConditionText = hitCondition != null ? hitCondition.getText() : null;
+      final boolean tracepoint = breakpoint.getSuspendPolicy() == SuspendPolicy.NONE;
+      final List<String> variables = tracepoint ? getTracedExpressions(breakpoint) : null;
+      DlvRequest.CreateBreakpoint request = new DlvRequest.CreateBreakpoint(path, line, condition, hitConditionText, tracepoint, variables);
+      if (condition == null || tracepoint) {
+        // tracepoints never stop, so their conditions cannot be evaluated by the IDE
+        createBreakpoint(breakpoint, request, hitCondition, null, null);
+        return;
+      }
+      createBreakpoint(breakpoint, request, hitCondition, null, new Runnable() {
+        @Override
+        public void run() {
+          LOG.info("Condition of breakpoint at " + path + ":" + line + " is rejected by dlv, evaluating it in the IDE");
+          createBreakpoint(breakpoint, new DlvRequest.CreateBreakpoint(path, line, null, hitConditionText), hitCondition,
+                           condition, null);
+        }
+      });
+    }
+
+    /**
+     * Comma separated expressions of the log expression are evaluated by the server on every hit of the tracepoint.
+     */
+    @NotNull
+    private List<String> getTracedExpressions(@NotNull XLineBreakpoint<DlvBreakpointProperties> breakpoint) {
+      XExpression logExpression = breakpoint.getLogExpressionObject();
+      String text = logExpression != null ? logExpression.getExpression() : null;
+      List<String> result = ContainerUtil.newSmartList();
+      for (String expression : StringUtil.split(StringUtil.notNullize(text), ",")) {
+        ContainerUtil.addIfNotNull(result, StringUtil.nullize(expression.trim()));
+      }
+      return result;
+    }
+
+    private void createBreakpoint(@NotNull final XLineBreakpoint<DlvBreakpointProperties> breakpoint,
+                                  @NotNull DlvRequest.CreateBreakpoint request,
+                                  @Nullable final DlvHitCondition hitCondition,
+                                  @Nullable final String clientCondition,
+                                  @Nullable final Runnable onRejected) {
+      getProcessor().send(request)
         .done(new Consumer<Breakpoint>() {
           @Override
           public void consume(@NotNull Breakpoint b) {
             breakpoint.putUserData(ID, b.id);
+            breakpoint.putUserData(CLIENT_HIT_CONDITION, hitCondition != null && StringUtil.isEmpty(b.hitCond) ? hitCondition : null);
+            breakpoint.putUserData(CLIENT_CONDITION, clientCondition);
             breakpoints.put(b.id, breakpoint);
             getSession().updateBreakpointPresentation(breakpoint, AllIcons.Debugger.Db_verified_breakpoint, null);
           }
@@ -288,6 +478,11 @@ public final class DlvDebugProcess extends DebugProcessImpl<VmConnection<?>> imp
         .rejected(new Consumer<Throwable>() {
           @Override
           public void consume(@Nullable Throwable t) {
+            if (onRejected != null) {
+              onRejected.run();
+              return;
+            }
+            LOG.info(t);
             String message = t == null ? null : t.getMessage();
             getSession().updateBreakpointPresentation(breakpoint, AllIcons.Debugger.Db_invalid_breakpoint, message);
           }
@@ -301,6 +496,8 @@ public final class DlvDebugProcess extends DebugProcessImpl<VmConnection<?>> imp
       Integer id = breakpoint.getUserData(ID);
       if (id == null) return; // obsolete
       breakpoint.putUserData(ID, null);
+      breakpoint.putUserData(CLIENT_HIT_CONDITION, null);
+      breakpoint.putUserData(CLIENT_CONDITION, null);
       breakpoints.remove(id);
       send(new DlvRequest.ClearBreakpoint(id));
     }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv;
+
+import com.goide.dlv.protocol.DlvApi;
+import com.goide.psi.*;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.SyntaxTraverser;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.MultiMap;
+import com.intellij.xdebugger.XDebuggerUtil;
+import com.intellij.xdebugger.XSourcePosition;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Variables of a stack frame and declarations of names in the frame function with their scopes, collected once per suspend.
+ * Inline values and hover evaluation are served from the snapshot, so neither PSI nor Delve is queried for every name.
+ * The snapshot belongs to a {@link DlvStackFrame} and is dropped together with it on resume.
+ */
+class DlvFrameSnapshot {
+  private static final Class[] SCOPES = {GoBlock.class, GoIfStatement.class, GoForStatement.class, GoSwitchStatement.class,
+    GoExprCaseClause.class, GoTypeCaseClause.class, GoCommClause.class, GoFunctionLit.class, GoFunctionOrMethodDeclaration.class};
+
+  @Nullable private final XSourcePosition myPosition;
+  @NotNull private volatile Map<String, DlvApi.Variable> myVariables = Collections.emptyMap();
+  @Nullable private volatile MultiMap<String, Declaration> myDeclarations;
+
+  DlvFrameSnapshot(@Nullable XSourcePosition position) {
+    myPosition = position;
+  }
+
+  void setVariables(@NotNull List<DlvApi.Variable> variables) {
+    Map<String, DlvApi.Variable> map = ContainerUtil.newHashMap();
+    for (DlvApi.Variable variable : variables) {
+      // locals are listed before arguments and shadow them
+      if (!map.containsKey(variable.name)) map.put(variable.name, variable);
+    }
+    myVariables = map;
+  }
+
+  /**
+   * Called when a value is modified in the frame. Any variable may change through pointers, so names are evaluated
+   * by Delve until the variables are listed again.
+   */
+  void invalidateVariables() {
+    myVariables = Collections.emptyMap();
+  }
+
+  @Nullable
+  DlvApi.Variable getVariable(@NotNull String name) {
+    return myVariables.get(name);
+  }
+
+  /**
+   * Should be called under read action.
+   */
+  @Nullable
+  XSourcePosition getDeclarationPosition(@NotNull Project project, @NotNull String name) {
+    if (myPosition == null) return null;
+    int position = myPosition.getOffset();
+    Declaration found = null;
+    for (Declaration declaration : getDeclarations(project).get(name)) {
+      if (declaration.myOffset >= position || !declaration.myScope.containsOffset(position)) continue;
+      // scopes enclosing the position are nested, so the innermost one starts last
+      if (found == null || declaration.myScope.getStartOffset() > found.myScope.getStartOffset() ||
+          declaration.myScope.getStartOffset() == found.myScope.getStartOffset() && declaration.myOffset > found.myOffset) {
+        found = declaration;
+      }
+    }
+    return found != null ? XDebuggerUtil.getInstance().createPositionByOffset(myPosition.getFile(), found.myOffset) : null;
+  }
+
+  @NotNull
+  private MultiMap<String, Declaration> getDeclarations(@NotNull Project project) {
+    MultiMap<String, Declaration> declarations = myDeclarations;
+    if (declarations == null) {
+      declarations = collectDeclarations(project);
+      myDeclarations = declarations;
+    }
+    return declarations;
+  }
+
+  @NotNull
+  private MultiMap<String, Declaration> collectDeclarations(@NotNull Project project) {
+    assert myPosition != null;
+    PsiFile file = PsiManager.getInstance(project).findFile(myPosition.getFile());
+    PsiElement leaf = file != null ? file.findElementAt(myPosition.getOffset()) : null;
+    GoTopLevelDeclaration topLevel = PsiTreeUtil.getTopmostParentOfType(leaf, GoTopLevelDeclaration.class);
+    if (topLevel == null) return MultiMap.emptyInstance();
+    MultiMap<String, Declaration> result = MultiMap.create();
+    for (GoNamedElement element : SyntaxTraverser.psiTraverser(topLevel).filter(GoNamedElement.class)) {
+      String name = element.getName();
+      if (name == null || !isVariable(element)) continue;
+      //noinspection unchecked
+      PsiElement scope = PsiTreeUtil.getParentOfType(element, SCOPES);
+      if (scope != null) result.putValue(name, new Declaration(element.getTextOffset(), scope.getTextRange()));
+    }
+    return result;
+  }
+
+  private static boolean isVariable(@NotNull GoNamedElement element) {
+    return element instanceof GoVarDefinition || element instanceof GoConstDefinition || element instanceof GoParamDefinition ||
+           element instanceof GoReceiver;
+  }
+
+  private static class Declaration {
+    private final int myOffset;
+    @NotNull private final TextRange myScope;
+
+    public Declaration(int offset, @NotNull TextRange scope) {
+      myOffset = offset;
+      myScope = scope;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv;
+
+import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-method latency and payload size of Delve requests, measured from writing a request till decoding its response.
+ */
+public class DlvMetrics {
+  static final Clock SYSTEM_CLOCK = new Clock() {
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+  };
+
+  private final Map<Integer, Pending> myPending = ContainerUtil.newConcurrentMap();
+  private final ConcurrentMap<String, MethodStats> myStats = ContainerUtil.newConcurrentMap();
+  @NotNull private final Clock myClock;
+
+  DlvMetrics(@NotNull Clock clock) {
+    myClock = clock;
+  }
+
+  void requestSent(int id, @NotNull String method, int bytes) {
+    myPending.put(id, new Pending(method, bytes, myClock.nanoTime()));
+  }
+
+  void requestFailed(int id) {
+    myPending.remove(id);
+  }
+
+  void responseReceived(int id, int bytes) {
+    Pending pending = myPending.remove(id);
+    if (pending == null) return;
+    MethodStats stats = ConcurrencyUtil.cacheOrGet(myStats, pending.method, new MethodStats(pending.method));
+    stats.add(myClock.nanoTime() - pending.startNanos, pending.bytes, bytes);
+  }
+
+  /**
+   * @return statistics of all methods, the slowest in total first
+   */
+  @NotNull
+  public List<MethodStats> getStats() {
+    List<MethodStats> result = ContainerUtil.newArrayList();
+    for (MethodStats stats : myStats.values()) {
+      result.add(stats.copy());
+    }
+    Collections.sort(result, new Comparator<MethodStats>() {
+      @Override
+      public int compare(@NotNull MethodStats o1, @NotNull MethodStats o2) {
+        return Long.compare(o2.getTotalNanos(), o1.getTotalNanos());
+      }
+    });
+    return result;
+  }
+
+  public void reset() {
+    myPending.clear();
+    myStats.clear();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    for (MethodStats stats : getStats()) {
+      result.append(stats).append('\n');
+    }
+    return result.toString();
+  }
+
+  /**
+   * Source of time for latencies, replaced in tests to measure replayed delays exactly
+   */
+  interface Clock {
+    long nanoTime();
+  }
+
+  private static class Pending {
+    @NotNull private final String method;
+    private final int bytes;
+    private final long startNanos;
+
+    public Pending(@NotNull String method, int bytes, long startNanos) {
+      this.method = method;
+      this.bytes = bytes;
+      this.startNanos = startNanos;
+    }
+  }
+
+  public static class MethodStats {
+    @NotNull private final String myMethod;
+    private int myCount;
+    private long myTotalNanos;
+    private long myMaxNanos;
+    private long myBytesOut;
+    private long myBytesIn;
+
+    private MethodStats(@NotNull String method) {
+      myMethod = method;
+    }
+
+    private synchronized void add(long nanos, int bytesOut, int bytesIn) {
+      myCount++;
+      myTotalNanos += nanos;
+      myMaxNanos = Math.max(myMaxNanos, nanos);
+      myBytesOut += bytesOut;
+      myBytesIn += bytesIn;
+    }
+
+    @NotNull
+    private synchronized MethodStats copy() {
+      MethodStats copy = new MethodStats(myMethod);
+      copy.myCount = myCount;
+      copy.myTotalNanos = myTotalNanos;
+      copy.myMaxNanos = myMaxNanos;
+      copy.myBytesOut = myBytesOut;
+      copy.myBytesIn = myBytesIn;
+      return copy;
+    }
+
+    @NotNull
+    public String getMethod() {
+      return myMethod;
+    }
+
+    public int getCount() {
+      return myCount;
+    }
+
+    public long getTotalNanos() {
+      return myTotalNanos;
+    }
+
+    public long getMaxNanos() {
+      return myMaxNanos;
+    }
+
+    public long getBytesOut() {
+      return myBytesOut;
+    }
+
+    public long getBytesIn() {
+      return myBytesIn;
+    }
+
+    @Override
+    public String toString() {
+      long averageMicros = myCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(myTotalNanos / myCount);
+      return myMethod + ": " + myCount + " calls, avg " + averageMicros + "us, max " + TimeUnit.NANOSECONDS.toMicros(myMaxNanos) +
+             "us, out " + myBytesOut + "b, in " + myBytesIn + "b";
+    }
+  }
+}
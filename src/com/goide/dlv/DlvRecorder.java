@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records frames exchanged with Delve into a file, one JSON object per frame:
+ * <pre>{"t":&lt;microseconds since the recording start&gt;,"dir":"out"|"in","msg":&lt;frame&gt;}</pre>
+ * Recording is enabled by the {@code dlv.record} system property pointing to the file to write.
+ */
+public class DlvRecorder implements Closeable {
+  private static final Logger LOG = Logger.getInstance(DlvRecorder.class);
+  public static final String RECORD_PROPERTY = "dlv.record";
+  public static final String OUT = "out";
+  public static final String IN = "in";
+
+  @NotNull private final Writer myWriter;
+  private final long myStartNanos = System.nanoTime();
+
+  public DlvRecorder(@NotNull File file) throws IOException {
+    myWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), CharsetToolkit.UTF8_CHARSET));
+  }
+
+  @Nullable
+  static DlvRecorder createIfEnabled() {
+    String path = System.getProperty(RECORD_PROPERTY);
+    if (StringUtil.isEmpty(path)) return null;
+    try {
+      return new DlvRecorder(new File(path));
+    }
+    catch (IOException e) {
+      LOG.warn("Cannot record dlv session to " + path, e);
+      return null;
+    }
+  }
+
+  public void record(@NotNull String direction, @NotNull ByteBuf frame) {
+    String message = frame.toString(frame.readerIndex(), frame.readableBytes(), CharsetToolkit.UTF8_CHARSET).trim();
+    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - myStartNanos);
+    synchronized (myWriter) {
+      try {
+        myWriter.write("{\"t\":" + micros + ",\"dir\":\"" + direction + "\",\"msg\":" + message + "}\n");
+      }
+      catch (IOException e) {
+        LOG.warn(e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (myWriter) {
+      try {
+        myWriter.close();
+      }
+      catch (IOException e) {
+        LOG.warn(e);
+      }
+    }
+  }
+}
@@ -41,6 +41,7 @@ import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.ui.ColoredTextContainer;
 import com.intellij.ui.SimpleTextAttributes;
 import com.intellij.util.Consumer;
+import com.intellij.util.containers.ContainerUtil;
 import com.intellij.xdebugger.XDebuggerUtil;
 import com.intellij.xdebugger.XSourcePosition;
 import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
@@ -59,16 +60,49 @@ class DlvStackFrame extends XStackFrame {
   private final DlvDebugProcess myProcess;
   private final DlvApi.Location myLocation;
   private final DlvCommandProcessor myProcessor;
+  private final int myGoroutineId;
   private final int myId;
+  @Nullable private DlvFrameSnapshot mySnapshot;
+  @Nullable private Promise<List<DlvApi.Variable>> myPrefetchedLocals;
+  @Nullable private Promise<List<DlvApi.Variable>> myPrefetchedArgs;
 
   public DlvStackFrame(@NotNull DlvDebugProcess process, 
                        @NotNull DlvApi.Location location, 
-                       @NotNull DlvCommandProcessor processor, 
+                       @NotNull DlvCommandProcessor processor,
+                       int goroutineId,
                        int id) {
+    this(process, location, processor, goroutineId, id, null, null);
+  }
+
+  /**
+   * @param locals locals requested together with the stacktrace, used once for the first children computation
+   * @param args   function arguments requested together with the stacktrace, used once for the first children computation
+   */
+  public DlvStackFrame(@NotNull DlvDebugProcess process,
+                       @NotNull DlvApi.Location location,
+                       @NotNull DlvCommandProcessor processor,
+                       int goroutineId,
+                       int id,
+                       @Nullable Promise<List<DlvApi.Variable>> locals,
+                       @Nullable Promise<List<DlvApi.Variable>> args) {
     myProcess = process;
     myLocation = location;
     myProcessor = processor;
+    myGoroutineId = goroutineId;
     myId = id;
+    myPrefetchedLocals = locals;
+    myPrefetchedArgs = args;
+  }
+
+  /**
+   * Created on first use, so frames which are never selected don't look up their source position.
+   */
+  @NotNull
+  private synchronized DlvFrameSnapshot getSnapshot() {
+    if (mySnapshot == null) {
+      mySnapshot = new DlvFrameSnapshot(getSourcePosition());
+    }
+    return mySnapshot;
   }
 
   @Nullable
@@ -76,14 +110,19 @@ class DlvStackFrame extends XStackFrame {
   public XDebuggerEvaluator getEvaluator() {
     return new XDebuggerEvaluator() {
       @Override
-      public void evaluate(@NotNull String expression,
+      public void evaluate(@NotNull final String expression,
                            @NotNull final XEvaluationCallback callback,
                            @Nullable XSourcePosition expressionPosition) {
-        myProcessor.send(new DlvRequest.EvalSymbol(expression, myId))
+        DlvApi.Variable known = getSnapshot().getVariable(expression);
+        if (known != null) {
+          callback.evaluated(createXValue(known, expression, AllIcons.Debugger.Watch));
+          return;
+        }
+        myProcessor.send(new DlvRequest.EvalSymbol(expression, myGoroutineId, myId))
           .done(new Consumer<DlvApi.Variable>() {
             @Override
             public void consume(@NotNull DlvApi.Variable variable) {
-              callback.evaluated(createXValue(variable, AllIcons.Debugger.Watch));
+              callback.evaluated(createXValue(variable, expression, AllIcons.Debugger.Watch));
             }
           })
           .rejected(new Consumer<Throwable>() {
@@ -126,8 +165,8 @@ class DlvStackFrame extends XStackFrame {
   }
 
   @NotNull
-  private XValue createXValue(@NotNull DlvApi.Variable variable, @Nullable Icon icon) {
-    return new DlvXValue(myProcess, variable, myProcessor, myId, icon);
+  private XValue createXValue(@NotNull DlvApi.Variable variable, @Nullable String expression, @Nullable Icon icon) {
+    return new DlvXValue(myProcess, variable, expression, myProcessor, myGoroutineId, myId, getSnapshot(), icon);
   }
 
   @Nullable
@@ -167,19 +206,35 @@ class DlvStackFrame extends XStackFrame {
 
   @Override
   public void computeChildren(@NotNull final XCompositeNode node) {
-    send(new DlvRequest.ListLocalVars(myId)).done(new Consumer<List<DlvApi.Variable>>() {
+    // values may be changed by the user after the first computation, so prefetched ones are used only once
+    Promise<List<DlvApi.Variable>> locals = myPrefetchedLocals != null
+                                            ? myPrefetchedLocals
+                                            : send(new DlvRequest.ListLocalVars(myGoroutineId, myId, DlvApi.LoadConfig.DEFAULT));
+    final Promise<List<DlvApi.Variable>> args = myPrefetchedArgs != null
+                                                ? myPrefetchedArgs
+                                                : send(new DlvRequest.ListFunctionArgs(myGoroutineId, myId, DlvApi.LoadConfig.DEFAULT));
+    myPrefetchedLocals = null;
+    myPrefetchedArgs = null;
+    final Consumer<Throwable> onError = new Consumer<Throwable>() {
       @Override
-      public void consume(@NotNull List<DlvApi.Variable> variables) {
+      public void consume(@NotNull Throwable throwable) {
+        node.setErrorMessage(StringUtil.notNullize(throwable.getMessage(), "Cannot load variables"));
+      }
+    };
+    locals.done(new Consumer<List<DlvApi.Variable>>() {
+      @Override
+      public void consume(@NotNull final List<DlvApi.Variable> variables) {
         final XValueChildrenList xVars = new XValueChildrenList(variables.size());
-        for (DlvApi.Variable v : variables) xVars.add(v.name, createXValue(v, GoIcons.VARIABLE));
-        send(new DlvRequest.ListFunctionArgs(myId)).done(new Consumer<List<DlvApi.Variable>>() {
+        for (DlvApi.Variable v : variables) xVars.add(v.name, createXValue(v, v.name, GoIcons.VARIABLE));
+        args.done(new Consumer<List<DlvApi.Variable>>() {
           @Override
           public void consume(@NotNull List<DlvApi.Variable> args) {
-            for (DlvApi.Variable v : args) xVars.add(v.name, createXValue(v, GoIcons.PARAMETER));
+            for (DlvApi.Variable v : args) xVars.add(v.name, createXValue(v, v.name, GoIcons.PARAMETER));
+            getSnapshot().setVariables(ContainerUtil.concat(variables, args));
             node.addChildren(xVars, true);
           }
-        });
+        }).rejected(onError);
       }
-    });
+    }).rejected(onError);
   }
 }
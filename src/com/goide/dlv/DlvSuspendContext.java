@@ -17,23 +17,53 @@
 package com.goide.dlv;
 
 import com.goide.dlv.protocol.DlvApi;
+import com.goide.dlv.protocol.DlvRequest;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.Consumer;
+import com.intellij.util.PathUtil;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.xdebugger.frame.XExecutionStack;
 import com.intellij.xdebugger.frame.XStackFrame;
 import com.intellij.xdebugger.frame.XSuspendContext;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.concurrency.Promise;
 
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 class DlvSuspendContext extends XSuspendContext {
+  /**
+   * Number of frames requested on suspend and on every further request of deeper frames
+   */
+  static final int FRAMES_PAGE_SIZE = 20;
+  /**
+   * Number of goroutine groups passed to the frames view at once
+   */
+  private static final int GROUPS_PAGE_SIZE = 100;
+
+  @NotNull private final DlvDebugProcess myProcess;
+  @NotNull private final DlvCommandProcessor myProcessor;
   @NotNull private final DlvExecutionStack myStack;
+  private final int myCurrentGoroutineId;
 
+  /**
+   * @param currentGoroutineId id of the goroutine shown as the active stack, it's excluded from the goroutine groups
+   */
   public DlvSuspendContext(@NotNull DlvDebugProcess process,
                            int threadId,
+                           int currentGoroutineId,
                            @NotNull List<DlvApi.Location> locations,
+                           @Nullable Promise<List<DlvApi.Variable>> topLocals,
+                           @Nullable Promise<List<DlvApi.Variable>> topArgs,
                            @NotNull DlvCommandProcessor processor) {
-    myStack = new DlvExecutionStack(process, threadId, locations, processor);
+    myProcess = process;
+    myProcessor = processor;
+    myCurrentGoroutineId = currentGoroutineId;
+    myStack = new DlvExecutionStack(process, "Thread #" + threadId, DlvRequest.CURRENT_GOROUTINE, locations, topLocals, topArgs,
+                                    processor);
   }
 
   @Nullable
@@ -48,35 +78,174 @@ class DlvSuspendContext extends XSuspendContext {
     return new XExecutionStack[]{myStack};
   }
 
+  /**
+   * Goroutines are grouped by their current function and location together with the location of the go statement
+   * that started them, so a server with thousands of goroutines parked at the same place shows a single entry.
+   * Stacks of a group are loaded only when the group is selected.
+   */
+  @Override
+  public void computeExecutionStacks(@NotNull final XExecutionStackContainer container) {
+    container.addExecutionStack(Collections.singletonList(myStack), false);
+    DlvDebugProcess.send(new DlvRequest.ListGoroutines(), myProcessor)
+      .done(new Consumer<List<DlvApi.Goroutine>>() {
+        @Override
+        public void consume(@NotNull List<DlvApi.Goroutine> goroutines) {
+          List<DlvExecutionStack> groups = createGroups(goroutines);
+          for (int i = 0; i < groups.size() && !container.isObsolete(); i += GROUPS_PAGE_SIZE) {
+            int to = Math.min(groups.size(), i + GROUPS_PAGE_SIZE);
+            container.addExecutionStack(groups.subList(i, to), to == groups.size());
+          }
+          if (groups.isEmpty()) {
+            container.addExecutionStack(Collections.<XExecutionStack>emptyList(), true);
+          }
+        }
+      })
+      .rejected(new Consumer<Throwable>() {
+        @Override
+        public void consume(@NotNull Throwable throwable) {
+          container.errorOccurred(StringUtil.notNullize(throwable.getMessage(), "Cannot load goroutines"));
+        }
+      });
+  }
+
+  @NotNull
+  private List<DlvExecutionStack> createGroups(@NotNull List<DlvApi.Goroutine> goroutines) {
+    Map<String, List<DlvApi.Goroutine>> groups = ContainerUtil.newLinkedHashMap();
+    for (DlvApi.Goroutine goroutine : goroutines) {
+      if (goroutine.id == myCurrentGoroutineId) continue;
+      String key = getKey(getLocation(goroutine)) + " " + getKey(goroutine.goStatementLoc);
+      List<DlvApi.Goroutine> group = groups.get(key);
+      if (group == null) {
+        group = ContainerUtil.newSmartList();
+        groups.put(key, group);
+      }
+      group.add(goroutine);
+    }
+
+    List<List<DlvApi.Goroutine>> sorted = ContainerUtil.newArrayList(groups.values());
+    Collections.sort(sorted, new Comparator<List<DlvApi.Goroutine>>() {
+      @Override
+      public int compare(@NotNull List<DlvApi.Goroutine> o1, @NotNull List<DlvApi.Goroutine> o2) {
+        return o2.size() - o1.size();
+      }
+    });
+    List<DlvExecutionStack> result = ContainerUtil.newArrayListWithCapacity(sorted.size());
+    for (List<DlvApi.Goroutine> group : sorted) {
+      DlvApi.Goroutine first = group.get(0);
+      result.add(new DlvExecutionStack(myProcess, getGroupName(group), first.id, null, null, null, myProcessor));
+    }
+    return result;
+  }
+
+  @NotNull
+  private static String getGroupName(@NotNull List<DlvApi.Goroutine> group) {
+    DlvApi.Goroutine first = group.get(0);
+    DlvApi.Location location = getLocation(first);
+    String place = location == null ? "" :
+                   (location.function != null ? location.function.name + " " : "") +
+                   PathUtil.getFileName(StringUtil.notNullize(location.file)) + ":" + location.line;
+    return group.size() == 1
+           ? "Goroutine #" + first.id + " " + place
+           : group.size() + " goroutines " + place;
+  }
+
+  @NotNull
+  private static String getKey(@Nullable DlvApi.Location location) {
+    if (location == null) return "";
+    return (location.function != null ? location.function.name : "") + "@" + location.file + ":" + location.line;
+  }
+
+  @Nullable
+  private static DlvApi.Location getLocation(@NotNull DlvApi.Goroutine goroutine) {
+    return goroutine.userCurrentLoc != null ? goroutine.userCurrentLoc : goroutine.currentLoc;
+  }
+
   private static class DlvExecutionStack extends XExecutionStack {
     @NotNull private final DlvDebugProcess myProcess;
-    @NotNull private final List<DlvApi.Location> myLocations;
     @NotNull private final DlvCommandProcessor myProcessor;
     @NotNull private final List<DlvStackFrame> myStack;
+    private final int myGoroutineId;
+    private boolean myAllFramesLoaded;
 
+    /**
+     * @param locations already known frames of the goroutine or null if frames are to be loaded on demand
+     */
     public DlvExecutionStack(@NotNull DlvDebugProcess process,
-                             int threadId,
-                             @NotNull List<DlvApi.Location> locations,
+                             @NotNull String name,
+                             int goroutineId,
+                             @Nullable List<DlvApi.Location> locations,
+                             @Nullable Promise<List<DlvApi.Variable>> topLocals,
+                             @Nullable Promise<List<DlvApi.Variable>> topArgs,
                              @NotNull DlvCommandProcessor processor) {
-      super("Thread #" + threadId);
+      super(name);
       myProcess = process;
-      myLocations = locations;
       myProcessor = processor;
-      myStack = ContainerUtil.newArrayListWithCapacity(locations.size());
-      for (int i = 0; i < myLocations.size(); i++) {
-        myStack.add(new DlvStackFrame(myProcess, myLocations.get(i), myProcessor, i));
+      myGoroutineId = goroutineId;
+      myStack = ContainerUtil.newArrayListWithCapacity(locations != null ? locations.size() : FRAMES_PAGE_SIZE);
+      if (locations != null) {
+        for (int i = 0; i < locations.size(); i++) {
+          myStack.add(i == 0
+                      ? new DlvStackFrame(myProcess, locations.get(i), myProcessor, goroutineId, i, topLocals, topArgs)
+                      : new DlvStackFrame(myProcess, locations.get(i), myProcessor, goroutineId, i));
+        }
       }
+      myAllFramesLoaded = locations != null && locations.size() < FRAMES_PAGE_SIZE;
     }
 
     @Nullable
     @Override
     public XStackFrame getTopFrame() {
-      return ContainerUtil.getFirstItem(myStack);
+      synchronized (myStack) {
+        return ContainerUtil.getFirstItem(myStack);
+      }
     }
 
+    /**
+     * Known frames are shown right away, the next page is loaded only when the frames view asks for frames past the known ones.
+     * Delve has no offset for stacktraces, so a page is requested with a bigger depth and already known frames are skipped.
+     */
     @Override
-    public void computeStackFrames(int firstFrameIndex, @NotNull XStackFrameContainer container) {
-      container.addStackFrames(myStack, true);
+    public void computeStackFrames(final int firstFrameIndex, @NotNull final XStackFrameContainer container) {
+      synchronized (myStack) {
+        if (myAllFramesLoaded || firstFrameIndex < myStack.size()) {
+          container.addStackFrames(getFrames(firstFrameIndex), myAllFramesLoaded);
+          return;
+        }
+      }
+      if (container.isObsolete()) return;
+
+      final int depth = firstFrameIndex + FRAMES_PAGE_SIZE;
+      DlvDebugProcess.send(new DlvRequest.StacktraceGoroutine(myGoroutineId, depth), myProcessor)
+        .done(new Consumer<List<DlvApi.Location>>() {
+          @Override
+          public void consume(@NotNull List<DlvApi.Location> locations) {
+            List<DlvStackFrame> frames;
+            boolean last;
+            synchronized (myStack) {
+              for (int i = myStack.size(); i < locations.size(); i++) {
+                myStack.add(new DlvStackFrame(myProcess, locations.get(i), myProcessor, myGoroutineId, i));
+              }
+              myAllFramesLoaded = locations.size() < depth;
+              frames = getFrames(firstFrameIndex);
+              last = myAllFramesLoaded;
+            }
+            container.addStackFrames(frames, last);
+          }
+        })
+        .rejected(new Consumer<Throwable>() {
+          @Override
+          public void consume(@NotNull Throwable throwable) {
+            container.errorOccurred(throwable.getMessage());
+          }
+        });
+    }
+
+    /**
+     * Called under the lock on {@code myStack}, the copy is passed out since the stack grows when deeper frames are loaded
+     */
+    @NotNull
+    private List<DlvStackFrame> getFrames(int from) {
+      return Collections.unmodifiableList(ContainerUtil.newArrayList(myStack.subList(Math.min(from, myStack.size()), myStack.size())));
     }
   }
 }
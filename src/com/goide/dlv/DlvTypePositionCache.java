@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv;
+
+import com.goide.GoConstants;
+import com.goide.psi.GoFile;
+import com.goide.psi.GoTypeSpec;
+import com.goide.stubs.index.GoPackagesIndex;
+import com.goide.stubs.index.GoTypesIndex;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StubIndex;
+import com.intellij.util.ObjectUtils;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.xdebugger.XDebuggerUtil;
+import com.intellij.xdebugger.XSourcePosition;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declarations of types reported by Delve, cached for the debug session and keyed by the qualified type name,
+ * e.g. {@code github.com/user/project/pkg.Type}. Types are looked up only among files of the reported package,
+ * types of the {@code main} package only in the directory of the debugged package, if it's known.
+ * Types aren't looked up while indices are being updated, so a miss is not cached then.
+ */
+class DlvTypePositionCache {
+  private static final Object NOT_FOUND = ObjectUtils.sentinel("DlvTypePositionCache.NOT_FOUND");
+
+  private final Map<String, Object> myCache = ContainerUtil.newConcurrentMap();
+  @Nullable private final VirtualFile myMainPackageDirectory;
+
+  DlvTypePositionCache(@Nullable VirtualFile mainPackageDirectory) {
+    myMainPackageDirectory = mainPackageDirectory;
+  }
+
+  /**
+   * Should be called under read action.
+   *
+   * @param dlvType type as reported by Delve, e.g. {@code *struct main.Foo} or {@code *main.Foo}
+   */
+  @Nullable
+  public XSourcePosition find(@NotNull Project project, @NotNull String dlvType) {
+    String qualifiedName = getQualifiedName(dlvType);
+    if (qualifiedName == null) return null;
+    Object cached = myCache.get(qualifiedName);
+    GoTypeSpec type = cached instanceof SmartPsiElementPointer ? (GoTypeSpec)((SmartPsiElementPointer)cached).getElement() : null;
+    if (type == null && cached != NOT_FOUND) {
+      if (DumbService.isDumb(project)) return null;
+      type = resolve(project, qualifiedName);
+      myCache.put(qualifiedName, type != null ? SmartPointerManager.getInstance(project).createSmartPsiElementPointer(type) : NOT_FOUND);
+    }
+    if (type == null) return null;
+    return XDebuggerUtil.getInstance().createPositionByOffset(type.getContainingFile().getVirtualFile(), type.getTextOffset());
+  }
+
+  @Nullable
+  private static String getQualifiedName(@NotNull String dlvType) {
+    String result = StringUtil.trimStart(dlvType.trim(), "*");
+    result = StringUtil.trimStart(result, "struct ");
+    return result.isEmpty() || StringUtil.containsAnyChar(result, " []*(){}") ? null : result;
+  }
+
+  @Nullable
+  private GoTypeSpec resolve(@NotNull Project project, @NotNull String qualifiedName) {
+    int nameStart = qualifiedName.lastIndexOf('.');
+    String name = qualifiedName.substring(nameStart + 1);
+    if (nameStart < 0) {
+      return ContainerUtil.getFirstItem(GoTypesIndex.find(name, project, GlobalSearchScope.allScope(project), null));
+    }
+    String packagePath = qualifiedName.substring(0, nameStart);
+    String packageName = StringUtil.substringAfterLast("/" + packagePath, "/");
+    Collection<GoFile> files = StubIndex.getElements(GoPackagesIndex.KEY, packageName, project, GlobalSearchScope.allScope(project),
+                                                     GoFile.class);
+    // Delve names types of the main package main.Type, whatever the import path of the debugged package is
+    boolean main = GoConstants.MAIN.equals(packagePath);
+    List<VirtualFile> packageFiles = ContainerUtil.newArrayList();
+    for (GoFile file : files) {
+      VirtualFile virtualFile = file.getVirtualFile();
+      if (virtualFile == null) continue;
+      if (main ? myMainPackageDirectory == null || myMainPackageDirectory.equals(virtualFile.getParent())
+               : packagePath.equals(file.getImportPath(true))) {
+        packageFiles.add(virtualFile);
+      }
+    }
+    if (packageFiles.isEmpty()) return null;
+    GlobalSearchScope packageScope = GlobalSearchScope.filesScope(project, packageFiles);
+    return ContainerUtil.getFirstItem(GoTypesIndex.find(name, project, packageScope, null));
+  }
+}
@@ -20,14 +20,15 @@ import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.vfs.CharsetToolkit;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.json.JsonObjectDecoder;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.concurrency.Promise;
 import org.jetbrains.debugger.*;
-import org.jetbrains.io.ChannelBufferToString;
 import org.jetbrains.io.SimpleChannelInboundHandlerAdapter;
-import org.jetbrains.jsonProtocol.Request;
 
 import java.io.IOException;
 
@@ -41,24 +42,52 @@ public class DlvVm extends VmBase {
   public DlvVm(@NotNull DebugEventListener tabListener, @NotNull Channel channel) {
     super(tabListener);
 
+    final DlvRecorder recorder = DlvRecorder.createIfEnabled();
     commandProcessor = new DlvCommandProcessor() {
       @Override
-      public boolean write(@NotNull Request message) throws IOException {
-        ByteBuf content = message.getBuffer();
-        LOG.info("OUT: " + content.toString(CharsetToolkit.UTF8_CHARSET));
+      protected boolean doWrite(@NotNull ByteBuf content) throws IOException {
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("OUT: " + content.toString(CharsetToolkit.UTF8_CHARSET));
+        }
+        if (recorder != null) {
+          recorder.record(DlvRecorder.OUT, content);
+        }
         return vmHelper.write(content);
       }
     };
     vmHelper = new StandaloneVmHelper(this, commandProcessor, channel);
+    installInboundHandler(channel, commandProcessor, recorder);
+  }
 
+  /**
+   * Splits incoming bytes into JSON frames and passes them to the processor, shared with the replay harness in tests.
+   */
+  static void installInboundHandler(@NotNull Channel channel,
+                                    @NotNull final DlvCommandProcessor processor,
+                                    @Nullable final DlvRecorder recorder) {
     channel.pipeline().addLast(new JsonObjectDecoder(), new SimpleChannelInboundHandlerAdapter() {
       @Override
       protected void messageReceived(ChannelHandlerContext context, Object message) throws Exception {
         if (message instanceof ByteBuf) {
-          LOG.info("IN: " + ((ByteBuf)message).toString(CharsetToolkit.UTF8_CHARSET));
-          CharSequence string = ChannelBufferToString.readChars((ByteBuf)message);
-          JsonReaderEx ex = new JsonReaderEx(string);
-          getCommandProcessor().processIncomingJson(ex);
+          ByteBuf buffer = (ByteBuf)message;
+          if (LOG.isDebugEnabled()) {
+            LOG.debug("IN: " + buffer.toString(CharsetToolkit.UTF8_CHARSET));
+          }
+          if (recorder != null) {
+            recorder.record(DlvRecorder.IN, buffer);
+          }
+          processor.processIncoming(buffer);
+        }
+      }
+    });
+    channel.closeFuture().addListener(new ChannelFutureListener() {
+      @Override
+      public void operationComplete(ChannelFuture future) throws Exception {
+        if (recorder != null) {
+          recorder.close();
+        }
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("dlv requests:\n" + processor.getMetrics());
         }
       }
     });
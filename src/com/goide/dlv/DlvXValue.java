@@ -18,32 +18,13 @@ package com.goide.dlv;
 
 import com.goide.dlv.protocol.DlvApi;
 import com.goide.dlv.protocol.DlvRequest;
-import com.goide.psi.GoNamedElement;
-import com.goide.psi.GoTopLevelDeclaration;
-import com.goide.psi.GoTypeSpec;
-import com.goide.stubs.index.GoTypesIndex;
 import com.intellij.icons.AllIcons;
-import com.intellij.lang.ASTNode;
 import com.intellij.openapi.application.ApplicationManager;
-import com.intellij.openapi.editor.Editor;
-import com.intellij.openapi.fileEditor.FileEditorManager;
-import com.intellij.openapi.fileEditor.impl.FileEditorManagerImpl;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Comparing;
-import com.intellij.openapi.util.Condition;
 import com.intellij.openapi.util.text.StringUtil;
-import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.PsiDocumentManager;
-import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.SyntaxTraverser;
-import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.Consumer;
 import com.intellij.util.ThreeState;
-import com.intellij.util.containers.ContainerUtil;
 import com.intellij.xdebugger.XDebugSession;
-import com.intellij.xdebugger.XDebuggerUtil;
 import com.intellij.xdebugger.XSourcePosition;
 import com.intellij.xdebugger.frame.*;
 import com.intellij.xdebugger.frame.presentation.XNumericValuePresentation;
@@ -54,30 +35,55 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.List;
 import java.util.regex.Pattern;
 
 class DlvXValue extends XNamedValue {
+  private static final int MAX_FULL_STRING_LENGTH = 64 * 1024;
+  private static final int PAGE_SIZE = DlvApi.LoadConfig.DEFAULT.MaxArrayValues;
+
   @NotNull
   private final DlvApi.Variable myVariable;
   private final Icon myIcon;
   private final DlvDebugProcess myProcess;
   private final DlvCommandProcessor myProcessor;
+  private final int myGoroutineId;
   private final int myFrameId;
+  @NotNull private final DlvFrameSnapshot mySnapshot;
+  /**
+   * Expression evaluating to the value, null if there is no way to address the value, e.g. for map entries
+   */
+  @Nullable private final String myExpression;
+  private int myLoadedChildren;
 
   public DlvXValue(@NotNull DlvDebugProcess process,
                    @NotNull DlvApi.Variable variable,
-                   @NotNull DlvCommandProcessor processor, 
-                   int frameId, 
+                   @Nullable String expression,
+                   @NotNull DlvCommandProcessor processor,
+                   int goroutineId,
+                   int frameId,
+                   @NotNull DlvFrameSnapshot snapshot,
                    @Nullable Icon icon) {
-    super(variable.name);
+    this(process, variable.name, variable, expression, processor, goroutineId, frameId, snapshot, icon);
+  }
+
+  private DlvXValue(@NotNull DlvDebugProcess process,
+                    @NotNull String name,
+                    @NotNull DlvApi.Variable variable,
+                    @Nullable String expression,
+                    @NotNull DlvCommandProcessor processor,
+                    int goroutineId,
+                    int frameId,
+                    @NotNull DlvFrameSnapshot snapshot,
+                    @Nullable Icon icon) {
+    super(name);
     myProcess = process;
     myVariable = variable;
+    myExpression = expression;
     myIcon = icon;
     myProcessor = processor;
+    myGoroutineId = goroutineId;
     myFrameId = frameId;
+    mySnapshot = snapshot;
   }
 
   @Override
@@ -85,21 +91,148 @@ class DlvXValue extends XNamedValue {
     XValuePresentation presentation = getPresentation();
     boolean hasChildren = myVariable.children.length > 0;
     node.setPresentation(myIcon, presentation, hasChildren);
+    if (myVariable.isString() && myExpression != null && myVariable.value != null && myVariable.len > myVariable.value.length()) {
+      node.setFullValueEvaluator(new XFullValueEvaluator() {
+        @Override
+        public void startEvaluation(@NotNull XFullValueEvaluationCallback callback) {
+          evaluateFullString(callback);
+        }
+      });
+    }
+  }
+
+  /**
+   * The server cuts every string to {@link DlvApi.LoadConfig#MaxStringLen} bytes, so the full value is requested
+   * as a series of slices of that length, one at a time. A value longer than {@link #MAX_FULL_STRING_LENGTH} is truncated.
+   */
+  private void evaluateFullString(@NotNull XFullValueEvaluator.XFullValueEvaluationCallback callback) {
+    evaluateStringSlice(0, (int)Math.min(myVariable.len, MAX_FULL_STRING_LENGTH), new StringBuilder(), callback);
+  }
+
+  /**
+   * A slice may end in the middle of a multi-byte rune, its bytes come as replacement characters,
+   * so they are dropped and the next slice starts with them again.
+   */
+  private void evaluateStringSlice(final int from,
+                                   final int length,
+                                   @NotNull final StringBuilder result,
+                                   @NotNull final XFullValueEvaluator.XFullValueEvaluationCallback callback) {
+    if (callback.isObsolete()) return;
+    final int to = Math.min(length, from + DlvApi.LoadConfig.DEFAULT.MaxStringLen);
+    myProcessor.send(new DlvRequest.EvalSymbol(slice(from, String.valueOf(to)), myGoroutineId, myFrameId))
+      .done(new Consumer<DlvApi.Variable>() {
+        @Override
+        public void consume(@NotNull DlvApi.Variable variable) {
+          String value = StringUtil.notNullize(variable.value);
+          if (to < length) {
+            int cut = getCutRuneLength(value);
+            result.append(value, 0, value.length() - cut);
+            evaluateStringSlice(to - cut, length, result, callback);
+            return;
+          }
+          result.append(value);
+          if (myVariable.len > length) {
+            result.append("\u2026 (truncated, ").append(myVariable.len).append(" bytes)");
+          }
+          callback.evaluated(result.toString());
+        }
+      })
+      .rejected(new Consumer<Throwable>() {
+        @Override
+        public void consume(@NotNull Throwable throwable) {
+          callback.errorOccurred(throwable.getMessage());
+        }
+      });
   }
 
+  /**
+   * @return number of replacement characters ending the value which may be the bytes of a rune cut by slicing
+   */
+  static int getCutRuneLength(@NotNull String value) {
+    int count = 0;
+    while (count < 3 && count < value.length() && value.charAt(value.length() - 1 - count) == '\uFFFD') {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Children loaded with the variable itself are shown first, the rest of an array, a slice or a map is loaded
+   * by pages on demand, so huge collections never get transferred at once.
+   */
   @Override
-  public void computeChildren(@NotNull XCompositeNode node) {
+  public void computeChildren(@NotNull final XCompositeNode node) {
     DlvApi.Variable[] children = myVariable.children;
     if (children.length == 0) {
       super.computeChildren(node);
+      return;
     }
-    else {
-      XValueChildrenList list = new XValueChildrenList();
-      for (DlvApi.Variable child : children) {
-        list.add(child.name, new DlvXValue(myProcess, child, myProcessor, myFrameId, AllIcons.Nodes.Field));
-      }
-      node.addChildren(list, true);
+    if (myLoadedChildren == 0) {
+      addChildren(node, children);
+      return;
     }
+    if (myExpression == null) return;
+    // maps can be sliced from an offset only
+    String page = myVariable.isMap()
+                  ? slice(myLoadedChildren, "")
+                  : slice(myLoadedChildren, String.valueOf(Math.min(myVariable.len, myLoadedChildren + PAGE_SIZE)));
+    myProcessor.send(new DlvRequest.EvalSymbol(page, myGoroutineId, myFrameId))
+      .done(new Consumer<DlvApi.Variable>() {
+        @Override
+        public void consume(@NotNull DlvApi.Variable page) {
+          addChildren(node, page.children);
+        }
+      })
+      .rejected(new Consumer<Throwable>() {
+        @Override
+        public void consume(@NotNull Throwable throwable) {
+          node.setErrorMessage(throwable.getMessage());
+        }
+      });
+  }
+
+  @NotNull
+  private String slice(long from, @NotNull String to) {
+    assert myExpression != null;
+    String operand = myExpression.startsWith("*") ? "(" + myExpression + ")" : myExpression;
+    return operand + "[" + from + ":" + to + "]";
+  }
+
+  /**
+   * Map children come in key/value pairs, a map entry is shown as its value named after the key.
+   */
+  private void addChildren(@NotNull XCompositeNode node, @NotNull DlvApi.Variable[] children) {
+    boolean indexed = myVariable.isSlice() || myVariable.isArray();
+    boolean map = myVariable.isMap();
+    int added = map ? children.length / 2 : children.length;
+    XValueChildrenList list = new XValueChildrenList(added);
+    for (int i = 0; i < added; i++) {
+      DlvApi.Variable child = map ? children[2 * i + 1] : children[i];
+      String name = indexed ? "[" + myLoadedChildren + "]" : map ? getKeyName(children[2 * i]) : child.name;
+      list.add(name, new DlvXValue(myProcess, name, child, childExpression(child), myProcessor, myGoroutineId, myFrameId,
+                                   mySnapshot, AllIcons.Nodes.Field));
+      myLoadedChildren++;
+    }
+    long remaining = (indexed || map) && myExpression != null ? myVariable.len - myLoadedChildren : 0;
+    node.addChildren(list, remaining <= 0 || added == 0);
+    if (remaining > 0 && added > 0) {
+      node.tooManyChildren((int)Math.min(remaining, Integer.MAX_VALUE));
+    }
+  }
+
+  @NotNull
+  private String getKeyName(@NotNull DlvApi.Variable key) {
+    if (key.isString()) return "\"" + StringUtil.notNullize(key.value) + "\"";
+    return StringUtil.isNotEmpty(key.value) ? key.value : "[" + myLoadedChildren + "]";
+  }
+
+  @Nullable
+  private String childExpression(@NotNull DlvApi.Variable child) {
+    if (myExpression == null) return null;
+    if (myVariable.isSlice() || myVariable.isArray()) return myExpression + "[" + myLoadedChildren + "]";
+    if (myVariable.isPtr()) return "*(" + myExpression + ")";
+    if (myVariable.isStructure() && StringUtil.isNotEmpty(child.name)) return myExpression + "." + child.name;
+    return null;
   }
 
   @Nullable
@@ -108,11 +241,15 @@ class DlvXValue extends XNamedValue {
     return new XValueModifier() {
       @Override
       public void setValue(@NotNull String newValue, @NotNull final XModificationCallback callback) {
-        myProcessor.send(new DlvRequest.SetSymbol(myVariable.name, newValue, myFrameId))
+        String symbol = StringUtil.notNullize(myExpression, myVariable.name);
+        myProcessor.send(new DlvRequest.SetSymbol(symbol, newValue, myGoroutineId, myFrameId))
           .processed(new Consumer<Object>() {
             @Override
             public void consume(@Nullable Object o) {
               if (o != null) {
+                // the tree is rebuilt with the new value, paging has to start over
+                myLoadedChildren = 0;
+                mySnapshot.invalidateVariables();
                 callback.valueModified();
               }
             }
@@ -152,50 +289,14 @@ class DlvXValue extends XNamedValue {
                                          type);
   }
 
-  @Nullable
-  private static PsiElement findTargetElement(@NotNull Project project,
-                                              @NotNull XSourcePosition position,
-                                              @NotNull Editor editor,
-                                              @NotNull final String name) {
-    PsiFile file = PsiDocumentManager.getInstance(project).getPsiFile(editor.getDocument());
-    if (file == null || !file.getVirtualFile().equals(position.getFile())) return null;
-    ASTNode leafElement = file.getNode().findLeafElementAt(position.getOffset());
-    if (leafElement == null) return null;
-    GoTopLevelDeclaration topLevel = PsiTreeUtil.getTopmostParentOfType(leafElement.getPsi(), GoTopLevelDeclaration.class);
-    SyntaxTraverser<PsiElement> traverser = SyntaxTraverser.psiTraverser(topLevel)
-      .filter(new Condition<PsiElement>() {
-        @Override
-        public boolean value(PsiElement e) {
-          return e instanceof GoNamedElement && Comparing.equal(name, ((GoNamedElement)e).getName());
-        }
-      });
-    Iterator<PsiElement> iterator = traverser.iterator();
-    return iterator.hasNext() ? iterator.next() : null;
-  }
-
   @Override
   public void computeSourcePosition(@NotNull final XNavigatable navigatable) {
     readActionInPooledThread(new Runnable() {
       @Override
       public void run() {
-        navigatable.setSourcePosition(findPosition());
-      }
-
-      @Nullable
-      private XSourcePosition findPosition() {
-        XDebugSession debugSession = getSession();
-        if (debugSession == null) return null;
-        XStackFrame stackFrame = debugSession.getCurrentStackFrame();
-        if (stackFrame == null) return null;
-        Project project = debugSession.getProject();
-        XSourcePosition position = debugSession.getCurrentPosition();
-        Editor editor = ((FileEditorManagerImpl)FileEditorManager.getInstance(project)).getSelectedTextEditor(true);
-        if (editor == null || position == null) return null;
-        String name = myName.startsWith("&") ? myName.replaceFirst("\\&", "") : myName;
-        PsiElement resolved = findTargetElement(project, position, editor, name);
-        if (resolved == null) return null;
-        VirtualFile virtualFile = resolved.getContainingFile().getVirtualFile();
-        return XDebuggerUtil.getInstance().createPositionByOffset(virtualFile, resolved.getTextOffset());
+        Project project = getProject();
+        String name = StringUtil.trimStart(myName, "&");
+        navigatable.setSourcePosition(project != null ? mySnapshot.getDeclarationPosition(project, name) : null);
       }
     });
   }
@@ -244,29 +345,15 @@ class DlvXValue extends XNamedValue {
 
   @Override
   public void computeTypeSourcePosition(@NotNull final XNavigatable navigatable) {
+    if (!myVariable.isStructure() && !myVariable.isPtr()) return;
     readActionInPooledThread(new Runnable() {
       @Override
       public void run() {
-        boolean isStructure = myVariable.isStructure();
-        boolean isPtr = myVariable.isPtr();
-        if (!isStructure && !isPtr) return;
         Project project = getProject();
         if (project == null) return;
-        String dlvType = myVariable.type;
-        String fqn = dlvType.replaceFirst(isPtr ? "\\*struct " : "struct ", "");
-        List<String> split = StringUtil.split(fqn, ".");
-        boolean noFqn = split.size() == 1;
-        if (split.size() == 2 || noFqn) {
-          String name = ContainerUtil.getLastItem(split);
-          assert name != null;
-          Collection<GoTypeSpec> types = GoTypesIndex.find(name, project, GlobalSearchScope.allScope(project), null);
-          for (GoTypeSpec type : types) {
-            if (noFqn || Comparing.equal(fqn, type.getQualifiedName())) {
-              navigatable.setSourcePosition(XDebuggerUtil.getInstance().createPositionByOffset(
-                type.getContainingFile().getVirtualFile(), type.getTextOffset()));
-              return;
-            }
-          }
+        XSourcePosition position = myProcess.getTypePositionCache().find(project, myVariable.type);
+        if (position != null) {
+          navigatable.setSourcePosition(position);
         }
       }
     });
@@ -16,10 +16,16 @@
 
 package com.goide.dlv.breakpoint;
 
+import com.intellij.util.xmlb.XmlSerializerUtil;
 import com.intellij.xdebugger.breakpoints.XBreakpointProperties;
 import org.jetbrains.annotations.Nullable;
 
 public class DlvBreakpointProperties extends XBreakpointProperties<DlvBreakpointProperties> {
+  /**
+   * Condition on the number of hits as entered by the user, see {@link DlvHitCondition}
+   */
+  @Nullable public String hitCondition;
+
   @Nullable
   @Override
   public DlvBreakpointProperties getState() {
@@ -28,5 +34,6 @@ public class DlvBreakpointProperties extends XBreakpointProperties<DlvBreakpoint
 
   @Override
   public void loadState(DlvBreakpointProperties state) {
+    XmlSerializerUtil.copyBean(state, this);
   }
 }
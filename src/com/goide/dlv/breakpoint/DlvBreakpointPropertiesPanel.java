@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv.breakpoint;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.ui.DocumentAdapter;
+import com.intellij.ui.JBColor;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBTextField;
+import com.intellij.xdebugger.breakpoints.XLineBreakpoint;
+import com.intellij.xdebugger.breakpoints.ui.XBreakpointCustomPropertiesPanel;
+import com.intellij.xdebugger.impl.breakpoints.XBreakpointBase;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import java.awt.*;
+
+class DlvBreakpointPropertiesPanel extends XBreakpointCustomPropertiesPanel<XLineBreakpoint<DlvBreakpointProperties>> {
+  private final JBTextField myHitConditionField = new JBTextField();
+  private final JBLabel myErrorLabel = new JBLabel();
+  private final JPanel myPanel = new JPanel(new BorderLayout(5, 0));
+
+  public DlvBreakpointPropertiesPanel() {
+    myHitConditionField.getEmptyText().setText("e.g. > 10, == 3 or % 2");
+    myHitConditionField.getDocument().addDocumentListener(new DocumentAdapter() {
+      @Override
+      protected void textChanged(DocumentEvent e) {
+        updateError();
+      }
+    });
+    myErrorLabel.setForeground(JBColor.RED);
+    myPanel.add(new JBLabel("Hit count:"), BorderLayout.WEST);
+    myPanel.add(myHitConditionField, BorderLayout.CENTER);
+    myPanel.add(myErrorLabel, BorderLayout.SOUTH);
+    updateError();
+  }
+
+  private void updateError() {
+    String error = DlvHitCondition.getError(myHitConditionField.getText());
+    myErrorLabel.setText(StringUtil.notNullize(error));
+    myErrorLabel.setVisible(error != null);
+  }
+
+  @NotNull
+  @Override
+  public JComponent getComponent() {
+    return myPanel;
+  }
+
+  @Override
+  public void saveTo(@NotNull XLineBreakpoint<DlvBreakpointProperties> breakpoint) {
+    DlvBreakpointProperties properties = breakpoint.getProperties();
+    // invalid text is kept as is, so it can be fixed later; such breakpoints are reported as invalid by the debugger
+    DlvHitCondition condition = DlvHitCondition.parse(myHitConditionField.getText());
+    String newValue = condition != null ? condition.getText() : StringUtil.nullize(myHitConditionField.getText(), true);
+    if (properties != null && !StringUtil.equals(properties.hitCondition, newValue)) {
+      properties.hitCondition = newValue;
+      ((XBreakpointBase)breakpoint).fireBreakpointChanged();
+    }
+  }
+
+  @Override
+  public void loadFrom(@NotNull XLineBreakpoint<DlvBreakpointProperties> breakpoint) {
+    DlvBreakpointProperties properties = breakpoint.getProperties();
+    myHitConditionField.setText(properties != null ? StringUtil.notNullize(properties.hitCondition) : "");
+  }
+}
@@ -27,7 +27,9 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.util.Processor;
 import com.intellij.xdebugger.XDebuggerUtil;
+import com.intellij.xdebugger.breakpoints.XLineBreakpoint;
 import com.intellij.xdebugger.breakpoints.XLineBreakpointType;
+import com.intellij.xdebugger.breakpoints.ui.XBreakpointCustomPropertiesPanel;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -45,6 +47,12 @@ public class DlvBreakpointType extends XLineBreakpointType<DlvBreakpointProperti
     return new DlvBreakpointProperties();
   }
 
+  @Nullable
+  @Override
+  public XBreakpointCustomPropertiesPanel<XLineBreakpoint<DlvBreakpointProperties>> createCustomPropertiesPanel() {
+    return new DlvBreakpointPropertiesPanel();
+  }
+
   @Override
   public boolean canPutAt(@NotNull VirtualFile file, int line, @NotNull Project project) {
     if (line < 0 || DlvDebugProcess.IS_DLV_DISABLED || file.getFileType() != GoFileType.INSTANCE) return false;
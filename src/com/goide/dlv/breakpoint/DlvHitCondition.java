@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv.breakpoint;
+
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Hit count condition in the Delve syntax: an operator followed by a number, e.g. {@code > 10}, {@code == 3} or {@code % 2}.
+ * A plain number means {@code ==}. Used to check hit counts on the IDE side when the server doesn't support them.
+ */
+public class DlvHitCondition {
+  private static final String[] OPERATORS = {"==", "!=", ">=", "<=", ">", "<", "%"};
+
+  @NotNull private final String myOperator;
+  private final long myValue;
+
+  private DlvHitCondition(@NotNull String operator, long value) {
+    myOperator = operator;
+    myValue = value;
+  }
+
+  @Nullable
+  public static DlvHitCondition parse(@Nullable String text) {
+    String trimmed = StringUtil.trim(text);
+    if (StringUtil.isEmpty(trimmed)) return null;
+    String operator = "==";
+    for (String o : OPERATORS) {
+      if (trimmed.startsWith(o)) {
+        operator = o;
+        trimmed = trimmed.substring(o.length()).trim();
+        break;
+      }
+    }
+    try {
+      long value = Long.parseLong(trimmed);
+      return "%".equals(operator) && value == 0 ? null : new DlvHitCondition(operator, value);
+    }
+    catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return error message for a non-empty text that cannot be parsed, or null if the text is a valid condition or empty
+   */
+  @Nullable
+  public static String getError(@Nullable String text) {
+    return StringUtil.isEmptyOrSpaces(text) || parse(text) != null
+           ? null
+           : "Invalid hit count condition '" + text.trim() + "', expected e.g. > 10, == 3 or % 2";
+  }
+
+  /**
+   * @return normalized text to be sent to the server
+   */
+  @NotNull
+  public String getText() {
+    return myOperator + " " + myValue;
+  }
+
+  public boolean matches(long hits) {
+    if ("==".equals(myOperator)) return hits == myValue;
+    if ("!=".equals(myOperator)) return hits != myValue;
+    if (">=".equals(myOperator)) return hits >= myValue;
+    if ("<=".equals(myOperator)) return hits <= myValue;
+    if (">".equals(myOperator)) return hits > myValue;
+    if ("<".equals(myOperator)) return hits < myValue;
+    return hits % myValue == 0;
+  }
+}
@@ -58,6 +58,10 @@ public class DlvApi {
     // FunctionName is the name of the function at the current breakpoint, and
     // may not always be available.
     public String functionName;
+    // Cond is an expression, the breakpoint stops the debuggee only when it evaluates to true.
+    public String cond;
+    // HitCond is a condition on the hit count, e.g. "> 5", the breakpoint stops the debuggee only when it holds.
+    public String hitCond;
     // tracepoint flag
     @SerializedName("continue")
     public boolean tracepoint;
@@ -185,6 +189,10 @@ public class DlvApi {
     public boolean isPtr() {
       return getKind() == Kind.Ptr;
     }
+
+    public boolean isMap() {
+      return getKind() == Kind.Map;
+    }
   }
 
   // Goroutine represents the information relevant to Delve from the runtime's
@@ -231,9 +239,38 @@ public class DlvApi {
     public int Frame;
   }
 
+  // LoadConfig describes how to load values of variables: how deep to follow pointers and how much of strings,
+  // arrays, slices, maps and structs to read from the debuggee.
+  // The v1 RPCServer ignores the config sent with a request and always applies the limits of DEFAULT,
+  // so longer strings and collections are read by slicing the expression, e.g. x[64:128].
+  public static class LoadConfig {
+    // default configuration for locals and function arguments, the same as the one applied by the v1 RPCServer
+    public static final LoadConfig DEFAULT = new LoadConfig(true, 1, 64, 64, -1);
+
+    // FollowPointers requests pointers to be automatically dereferenced.
+    public final boolean FollowPointers;
+    // MaxVariableRecurse is how far to recurse when evaluating nested types.
+    public final int MaxVariableRecurse;
+    // MaxStringLen is the maximum number of bytes read from a string
+    public final int MaxStringLen;
+    // MaxArrayValues is the maximum number of elements read from an array, a slice or a map.
+    public final int MaxArrayValues;
+    // MaxStructFields is the maximum number of fields read from a struct, -1 will read all fields.
+    public final int MaxStructFields;
+
+    public LoadConfig(boolean followPointers, int maxVariableRecurse, int maxStringLen, int maxArrayValues, int maxStructFields) {
+      FollowPointers = followPointers;
+      MaxVariableRecurse = maxVariableRecurse;
+      MaxStringLen = maxStringLen;
+      MaxArrayValues = maxArrayValues;
+      MaxStructFields = maxStructFields;
+    }
+  }
+
   public static final String CONTINUE = "continue";
   public static final String STEP = "step";
   public static final String NEXT = "next";
+  public static final String STEP_OUT = "stepOut";
   public static final String SWITCH_THREAD = "switchThread";
   public static final String HALT = "halt";
   public static final String SWITCH_GOROUTINE = "switchGoroutine";
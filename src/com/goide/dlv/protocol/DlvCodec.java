@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv.protocol;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.util.Function;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+
+/**
+ * Decodes Delve JSON-RPC responses straight from the incoming Netty buffer into {@link DlvApi} objects.
+ * The frame is never materialized as a string: bytes are decoded on the fly and the result is bound
+ * to the type expected by the request with the same id.
+ * <p/>
+ * Result adapters are built once when the class is loaded, every {@link DlvRequest} refers to one of them.
+ */
+public class DlvCodec {
+  public static final Gson GSON = new GsonBuilder().create();
+
+  public static final TypeAdapter<Object> ANY = GSON.getAdapter(Object.class);
+  public static final TypeAdapter<Integer> INTEGER = GSON.getAdapter(Integer.class);
+  public static final TypeAdapter<DlvApi.Breakpoint> BREAKPOINT = GSON.getAdapter(DlvApi.Breakpoint.class);
+  public static final TypeAdapter<DlvApi.DebuggerState> DEBUGGER_STATE = GSON.getAdapter(DlvApi.DebuggerState.class);
+  public static final TypeAdapter<DlvApi.Variable> VARIABLE = GSON.getAdapter(DlvApi.Variable.class);
+  public static final TypeAdapter<List<DlvApi.Location>> LOCATIONS = GSON.getAdapter(new TypeToken<List<DlvApi.Location>>() {});
+  public static final TypeAdapter<List<DlvApi.Variable>> VARIABLES = GSON.getAdapter(new TypeToken<List<DlvApi.Variable>>() {});
+  public static final TypeAdapter<List<DlvApi.Goroutine>> GOROUTINES = GSON.getAdapter(new TypeToken<List<DlvApi.Goroutine>>() {});
+
+  private static final TypeAdapter<JsonElement> JSON_ELEMENT = GSON.getAdapter(JsonElement.class);
+
+  private static final String ID = "id";
+  private static final String RESULT = "result";
+  private static final String ERROR = "error";
+
+  private DlvCodec() {
+  }
+
+  /**
+   * @param resultAdapters maps a request id to the adapter of the expected result, called at most once per response
+   */
+  @NotNull
+  public static DlvResponse decode(@NotNull ByteBuf buffer, @NotNull Function<Integer, TypeAdapter<?>> resultAdapters)
+    throws IOException {
+    JsonReader reader = new JsonReader(new InputStreamReader(new ByteBufInputStream(buffer), CharsetToolkit.UTF8_CHARSET));
+    try {
+      int id = -1;
+      Object result = null;
+      JsonElement resultBeforeId = null;
+      String error = null;
+
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        JsonToken token = reader.peek();
+        if (ID.equals(name) && token == JsonToken.NUMBER) {
+          id = reader.nextInt();
+        }
+        else if (RESULT.equals(name) && token != JsonToken.NULL) {
+          if (id != -1) {
+            result = resultAdapters.fun(id).read(reader);
+          }
+          else {
+            // Delve writes id first, but the protocol doesn't guarantee the order
+            resultBeforeId = JSON_ELEMENT.read(reader);
+          }
+        }
+        else if (ERROR.equals(name) && token == JsonToken.STRING) {
+          error = reader.nextString();
+        }
+        else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+
+      if (resultBeforeId != null) {
+        result = resultAdapters.fun(id).fromJsonTree(resultBeforeId);
+      }
+      return new DlvResponse.CommandResponseImpl(id, result, error);
+    }
+    finally {
+      reader.close();
+    }
+  }
+}
@@ -16,7 +16,9 @@
 
 package com.goide.dlv.protocol;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.util.text.StringUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jsonProtocol.OutMessage;
@@ -26,19 +28,28 @@ import java.io.IOException;
 import java.util.List;
 
 /**
- * Please add your requests as a subclasses, otherwise reflection won't work.
+ * Every request refers to a prebuilt adapter of its result, see {@link DlvCodec}.
  *
  * @param <T> type of callback
- * @see com.goide.dlv.DlvCommandProcessor#getResultType(String)
  */
 public abstract class DlvRequest<T> extends OutMessage implements Request<T> {
+  private static final String RPC_SERVER = "RPCServer.";
   private static final String PARAMS = "params";
   private static final String ID = "id";
+  /**
+   * Goroutine id referring to the currently selected goroutine
+   */
+  public static final int CURRENT_GOROUTINE = -1;
+  @NotNull private final String myMethodName;
+  @NotNull private final TypeAdapter<T> myResultAdapter;
   private boolean argumentsObjectStarted;
+  private int myId = -1;
 
-  private DlvRequest() {
+  private DlvRequest(@NotNull String methodName, @NotNull TypeAdapter<T> resultAdapter) {
+    myMethodName = methodName;
+    myResultAdapter = resultAdapter;
     try {
-      getWriter().name("method").value(getMethodName());
+      getWriter().name("method").value(methodName);
     }
     catch (IOException e) {
       throw new RuntimeException(e);
@@ -48,7 +59,12 @@ public abstract class DlvRequest<T> extends OutMessage implements Request<T> {
   @NotNull
   @Override
   public String getMethodName() {
-    return "RPCServer." + getClass().getSimpleName();
+    return myMethodName;
+  }
+
+  @NotNull
+  public TypeAdapter<T> getResultAdapter() {
+    return myResultAdapter;
   }
 
   @Override
@@ -72,8 +88,16 @@ public abstract class DlvRequest<T> extends OutMessage implements Request<T> {
     return true;
   }
 
+  /**
+   * @return id assigned on {@link #finalize(int)} or -1 if the request isn't sent yet
+   */
+  public int getId() {
+    return myId;
+  }
+
   @Override
   public final void finalize(int id) {
+    myId = id;
     try {
       if (argumentsObjectStarted) {
         if (needObject()) {
@@ -92,6 +116,7 @@ public abstract class DlvRequest<T> extends OutMessage implements Request<T> {
 
   public final static class ClearBreakpoint extends DlvRequest<DlvApi.Breakpoint> {
     public ClearBreakpoint(int id) {
+      super(RPC_SERVER + "ClearBreakpoint", DlvCodec.BREAKPOINT);
       writeSingletonIntArray(PARAMS, id);
     }
 
@@ -103,45 +128,102 @@ public abstract class DlvRequest<T> extends OutMessage implements Request<T> {
 
   public final static class CreateBreakpoint extends DlvRequest<DlvApi.Breakpoint> {
     public CreateBreakpoint(String path, int line) {
+      this(path, line, null, null);
+    }
+
+    public CreateBreakpoint(String path, int line, @Nullable String condition, @Nullable String hitCondition) {
+      this(path, line, condition, hitCondition, false, null);
+    }
+
+    /**
+     * @param tracepoint whether the debuggee is resumed right after the hit, see {@link DlvApi.Breakpoint#tracepoint}
+     * @param variables  expressions evaluated by the server on every hit and reported in {@link DlvApi.BreakpointInfo#variables}
+     */
+    public CreateBreakpoint(String path,
+                            int line,
+                            @Nullable String condition,
+                            @Nullable String hitCondition,
+                            boolean tracepoint,
+                            @Nullable List<String> variables) {
+      super(RPC_SERVER + "CreateBreakpoint", DlvCodec.BREAKPOINT);
       writeString("file", path);
       writeLong("line", line);
+      if (StringUtil.isNotEmpty(condition)) writeString("cond", condition);
+      if (StringUtil.isNotEmpty(hitCondition)) writeString("hitCond", hitCondition);
+      if (tracepoint) writeBoolean("continue", true);
+      if (variables != null && !variables.isEmpty()) {
+        try {
+          beginArguments();
+          getWriter().name("variables").beginArray();
+          for (String variable : variables) {
+            getWriter().value(variable);
+          }
+          getWriter().endArray();
+        }
+        catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
     }
   }
 
   public final static class StacktraceGoroutine extends DlvRequest<List<DlvApi.Location>> {
-    public StacktraceGoroutine() {
-      writeLong("Id", -1);
-      writeLong("Depth", 100);
+    public StacktraceGoroutine(int depth) {
+      this(CURRENT_GOROUTINE, depth);
+    }
+
+    public StacktraceGoroutine(int goroutineId, int depth) {
+      super(RPC_SERVER + "StacktraceGoroutine", DlvCodec.LOCATIONS);
+      writeLong("Id", goroutineId);
+      writeLong("Depth", depth);
     }
   }
 
-  private abstract static class Locals<T> extends DlvRequest<T> {
-    Locals(int frameId) {
-      writeLong("GoroutineID", -1);
+  private abstract static class Locals extends DlvRequest<List<DlvApi.Variable>> {
+    Locals(@NotNull String methodName, int goroutineId, int frameId, @NotNull DlvApi.LoadConfig config) {
+      super(methodName, DlvCodec.VARIABLES);
+      writeLong("GoroutineID", goroutineId);
       writeLong("Frame", frameId);
+      try {
+        writeLoadConfig(config, getWriter());
+      }
+      catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  public final static class ListLocalVars extends Locals {
+    public ListLocalVars(int goroutineId, int frameId, @NotNull DlvApi.LoadConfig config) {
+      super(RPC_SERVER + "ListLocalVars", goroutineId, frameId, config);
     }
   }
 
-  public final static class ListLocalVars extends Locals<List<DlvApi.Variable>> {
-    public ListLocalVars(int frameId) {
-      super(frameId);
+  public final static class ListFunctionArgs extends Locals {
+    public ListFunctionArgs(int goroutineId, int frameId, @NotNull DlvApi.LoadConfig config) {
+      super(RPC_SERVER + "ListFunctionArgs", goroutineId, frameId, config);
     }
   }
 
-  public final static class ListFunctionArgs extends Locals<List<DlvApi.Variable>> {
-    public ListFunctionArgs(int frameId) {
-      super(frameId);
+  /**
+   * Lists all goroutines with their current locations only, stacks are requested separately with {@link StacktraceGoroutine}.
+   */
+  public final static class ListGoroutines extends DlvRequest<List<DlvApi.Goroutine>> {
+    public ListGoroutines() {
+      super(RPC_SERVER + "ListGoroutines", DlvCodec.GOROUTINES);
     }
   }
 
   public final static class Command extends DlvRequest<DlvApi.DebuggerState> {
     public Command(@Nullable String command) {
+      super(RPC_SERVER + "Command", DlvCodec.DEBUGGER_STATE);
       writeString("Name", command);
     }
   }
 
   public final static class Detach extends DlvRequest<Integer> {
     public Detach(boolean kill) {
+      super(RPC_SERVER + "Detach", DlvCodec.INTEGER);
       try {
         beginArguments();
         getWriter().name(PARAMS).beginArray().value(kill).endArray();
@@ -158,11 +240,15 @@ public abstract class DlvRequest<T> extends OutMessage implements Request<T> {
   }
 
   public final static class EvalSymbol extends DlvRequest<DlvApi.Variable> {
-    public EvalSymbol(@NotNull String symbol, int frameId) {
+    public EvalSymbol(@NotNull String symbol, int goroutineId, int frameId) {
+      this(symbol, goroutineId, frameId, DlvApi.LoadConfig.DEFAULT);
+    }
+
+    public EvalSymbol(@NotNull String symbol, int goroutineId, int frameId, @NotNull DlvApi.LoadConfig config) {
+      super(RPC_SERVER + "EvalSymbol", DlvCodec.VARIABLE);
       try {
         getWriter().name(PARAMS).beginArray();
-        writeScope(frameId, getWriter())
-          .name("Symbol").value(symbol)
+        writeLoadConfig(config, writeScope(goroutineId, frameId, getWriter()).name("Symbol").value(symbol))
           .endObject().endArray();
       }
       catch (IOException e) {
@@ -177,19 +263,31 @@ public abstract class DlvRequest<T> extends OutMessage implements Request<T> {
   }
 
   @NotNull
-  private static JsonWriter writeScope(int frameId, @NotNull JsonWriter writer) throws IOException {
+  private static JsonWriter writeScope(int goroutineId, int frameId, @NotNull JsonWriter writer) throws IOException {
     // todo: ask vladimir how to simplify this
     return writer.beginObject()
       .name("Scope").beginObject()
-      .name("GoroutineID").value(-1)
+      .name("GoroutineID").value(goroutineId)
       .name("Frame").value(frameId).endObject();
   }
 
+  @NotNull
+  private static JsonWriter writeLoadConfig(@NotNull DlvApi.LoadConfig config, @NotNull JsonWriter writer) throws IOException {
+    return writer.name("Cfg").beginObject()
+      .name("FollowPointers").value(config.FollowPointers)
+      .name("MaxVariableRecurse").value(config.MaxVariableRecurse)
+      .name("MaxStringLen").value(config.MaxStringLen)
+      .name("MaxArrayValues").value(config.MaxArrayValues)
+      .name("MaxStructFields").value(config.MaxStructFields)
+      .endObject();
+  }
+
   public final static class SetSymbol extends DlvRequest<Object> {
-    public SetSymbol(@NotNull String symbol, @NotNull String value, int frameId) {
+    public SetSymbol(@NotNull String symbol, @NotNull String value, int goroutineId, int frameId) {
+      super(RPC_SERVER + "SetSymbol", DlvCodec.ANY);
       try {
         getWriter().name(PARAMS).beginArray();
-        writeScope(frameId, getWriter())
+        writeScope(goroutineId, frameId, getWriter())
           .name("Symbol").value(symbol)
           .name("Value").value(value)
           .endObject().endArray();
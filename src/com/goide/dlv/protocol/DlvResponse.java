@@ -16,127 +16,85 @@
 
 package com.goide.dlv.protocol;
 
-import com.goide.dlv.JsonReaderEx;
-import com.google.gson.stream.JsonToken;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.jetbrains.jsonProtocol.JsonType;
-import org.jetbrains.jsonProtocol.Optional;
 
 import java.util.Collections;
 import java.util.List;
 
-@JsonType
 public interface DlvResponse {
   int id();
 
+  /**
+   * Already decoded result of the request, null if the request failed or succeeded with a null result
+   */
   @Nullable
-  @Optional
-  JsonReaderEx result();
+  Object result();
 
   @Nullable
-  @Optional
   ErrorInfo error();
 
-  @JsonType
   interface ErrorInfo {
     @Nullable
     String message();
 
     @NotNull
-    @Optional
     List<String> data();
 
     int code();
   }
 
   final class CommandResponseImpl implements DlvResponse {
-    @Nullable private DlvResponse.ErrorInfo _error;
-    private int _id = -1;
-    @Nullable private JsonReaderEx _result;
-
-    public CommandResponseImpl(@NotNull JsonReaderEx reader, @Nullable String name) {
-      if (name == null) {
-        if (reader.hasNext() && reader.beginObject().hasNext()) {
-          name = reader.nextName();
-        }
-        else {
-          return;
-        }
-      }
-
-      do {
-        if ("error".equals(name)) {
-          _error = new M5m(reader);
-        }
-        else if ("id".equals(name)) {
-          _id = reader.nextInt();
-        }
-        else if ("result".equals(name)) {
-          _result = reader.subReader();
-          reader.skipValue();
-        }
-        else {
-          reader.skipValue();
-        }
-      }
-      while ((name = reader.nextNameOrNull()) != null);
-
-      reader.endObject();
+    private final int myId;
+    @Nullable private final Object myResult;
+    @Nullable private final ErrorInfo myError;
+
+    public CommandResponseImpl(int id, @Nullable Object result, @Nullable String errorMessage) {
+      myId = id;
+      myResult = result;
+      myError = errorMessage != null ? new ErrorInfoImpl(errorMessage) : null;
     }
 
     @Nullable
     @Override
-    public DlvResponse.ErrorInfo error() {
-      return _error;
+    public ErrorInfo error() {
+      return myError;
     }
 
     @Override
     public int id() {
-      return _id;
+      return myId;
     }
 
     @Nullable
     @Override
-    public JsonReaderEx result() {
-      return _result;
+    public Object result() {
+      return myResult;
     }
   }
 
-  final class M5m implements DlvResponse.ErrorInfo {
-    private static final int _code = -1;
-    @NotNull private final List<String> _data = Collections.emptyList();
-    @Nullable private final String _message;
+  final class ErrorInfoImpl implements ErrorInfo {
+    @Nullable private final String myMessage;
 
-    M5m(@NotNull JsonReaderEx reader) {
-      _message = nextNullableString(reader);
+    ErrorInfoImpl(@Nullable String message) {
+      myMessage = message;
     }
 
     @Override
     public int code() {
-      return _code;
+      return -1;
     }
 
     @NotNull
     @Override
     public List<String> data() {
-      return _data;
+      return Collections.emptyList();
     }
 
     @Nullable
     @Override
     public String message() {
-      return _message;
-    }
-
-    private static String nextNullableString(@NotNull JsonReaderEx reader) {
-      if (reader.peek() == JsonToken.NULL) {
-        reader.nextNull();
-        return null;
-      }
-      else {
-        return reader.nextString();
-      }
+      return myMessage;
     }
   }
-}
\ No newline at end of file
+}
@@ -21,13 +21,12 @@ import com.goide.psi.*;
 import com.intellij.formatting.*;
 import com.intellij.formatting.alignment.AlignmentStrategy;
 import com.intellij.lang.ASTNode;
-import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.TextRange;
-import com.intellij.openapi.util.UserDataHolderBase;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.TokenType;
 import com.intellij.psi.codeStyle.CodeStyleSettings;
+import com.intellij.psi.codeStyle.CommonCodeStyleSettings;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.psi.tree.TokenSet;
 import com.intellij.util.containers.ContainerUtil;
@@ -36,11 +35,28 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static com.goide.GoParserDefinition.*;
 import static com.goide.GoTypes.*;
 
 public class GoFormattingModelBuilder implements FormattingModelBuilder {
+  private static final Map<CodeStyleSettings, CachedSpacingBuilder> SPACING_BUILDERS = ContainerUtil.createConcurrentWeakMap();
+
+  /**
+   * Rules are compiled once per settings instance and rebuilt only if the settings they read have been changed since.
+   */
+  @NotNull
+  private static SpacingBuilder getSpacingBuilder(@NotNull CodeStyleSettings settings) {
+    CommonCodeStyleSettings commonSettings = settings.getCommonSettings(GoLanguage.INSTANCE);
+    CachedSpacingBuilder cached = SPACING_BUILDERS.get(settings);
+    if (cached == null || !cached.isUpToDate(commonSettings)) {
+      cached = new CachedSpacingBuilder(commonSettings, createSpacingBuilder(settings));
+      SPACING_BUILDERS.put(settings, cached);
+    }
+    return cached.myBuilder;
+  }
+
   @NotNull
   private static SpacingBuilder createSpacingBuilder(@NotNull CodeStyleSettings settings) {
     return new SpacingBuilder(settings, GoLanguage.INSTANCE)
@@ -141,7 +157,7 @@ public class GoFormattingModelBuilder implements FormattingModelBuilder {
   @NotNull
   @Override
   public FormattingModel createModel(@NotNull PsiElement element, @NotNull CodeStyleSettings settings) {
-    Block block = new GoFormattingBlock(element.getNode(), null, Indent.getNoneIndent(), null, settings, createSpacingBuilder(settings));
+    Block block = new GoFormattingBlock(element.getNode(), null, null, Indent.getNoneIndent(), null, settings, getSpacingBuilder(settings));
     return FormattingModelProvider.createFormattingModelForPsiFile(element.getContainingFile(), block, settings);
   }
 
@@ -151,7 +167,27 @@ public class GoFormattingModelBuilder implements FormattingModelBuilder {
     return null;
   }
 
-  private static class GoFormattingBlock extends UserDataHolderBase implements ASTBlock {
+  private static class CachedSpacingBuilder {
+    private final boolean myKeepLineBreaks;
+    private final int myKeepBlankLinesInCode;
+    @NotNull private final SpacingBuilder myBuilder;
+
+    public CachedSpacingBuilder(@NotNull CommonCodeStyleSettings settings, @NotNull SpacingBuilder builder) {
+      myKeepLineBreaks = settings.KEEP_LINE_BREAKS;
+      myKeepBlankLinesInCode = settings.KEEP_BLANK_LINES_IN_CODE;
+      myBuilder = builder;
+    }
+
+    private boolean isUpToDate(@NotNull CommonCodeStyleSettings settings) {
+      return myKeepLineBreaks == settings.KEEP_LINE_BREAKS && myKeepBlankLinesInCode == settings.KEEP_BLANK_LINES_IN_CODE;
+    }
+  }
+
+  /**
+   * Sub-blocks are built on the first request and shared afterwards. The formatter does not ask for sub-blocks of the blocks
+   * outside of the formatted range, so only the blocks intersecting the range are expanded.
+   */
+  private static class GoFormattingBlock implements ASTBlock {
     private static final TokenSet BLOCKS_TOKEN_SET = TokenSet.create(
       BLOCK,
       STRUCT_TYPE,
@@ -170,10 +206,10 @@ public class GoFormattingModelBuilder implements FormattingModelBuilder {
       LPAREN,
       RPAREN
     );
-    private static final Key<Alignment> TYPE_ALIGNMENT_INSIDE_STRUCT = Key.create("TYPE_ALIGNMENT_INSIDE_STRUCT");
 
     @NotNull private final ASTNode myNode;
     @Nullable private final Alignment myAlignment;
+    @Nullable private final Alignment myTypeAlignmentInsideStruct;
     @Nullable private final Indent myIndent;
     @Nullable private final Wrap myWrap;
     @NotNull private final CodeStyleSettings mySettings;
@@ -182,12 +218,14 @@ public class GoFormattingModelBuilder implements FormattingModelBuilder {
 
     private GoFormattingBlock(@NotNull ASTNode node,
                               @Nullable Alignment alignment,
+                              @Nullable Alignment typeAlignmentInsideStruct,
                               @Nullable Indent indent,
                               @Nullable Wrap wrap,
                               @NotNull CodeStyleSettings settings,
                               @NotNull SpacingBuilder spacingBuilder) {
       myNode = node;
       myAlignment = alignment;
+      myTypeAlignmentInsideStruct = typeAlignmentInsideStruct;
       myIndent = indent;
       myWrap = wrap;
       mySettings = settings;
@@ -260,7 +298,7 @@ public class GoFormattingModelBuilder implements FormattingModelBuilder {
       if (mySubBlocks == null) {
         mySubBlocks = buildSubBlocks();
       }
-      return ContainerUtil.newArrayList(mySubBlocks);
+      return mySubBlocks;
     }
 
     @NotNull
@@ -280,22 +318,18 @@ public class GoFormattingModelBuilder implements FormattingModelBuilder {
         if (childType == TokenType.WHITE_SPACE) continue;
         IElementType substitutor = childType == MULTILINE_COMMENT ? LINE_COMMENT : childType;
         Alignment alignment = strategy != null ? strategy.getAlignment(substitutor) : null;
-        GoFormattingBlock e = buildSubBlock(child, alignment);
-        if (isStruct) {
-          e.putUserDataIfAbsent(TYPE_ALIGNMENT_INSIDE_STRUCT, forType);
-        }
-        blocks.add(e);
+        blocks.add(buildSubBlock(child, alignment, forType));
       }
       return Collections.unmodifiableList(blocks);
     }
     
     @NotNull
-    private GoFormattingBlock buildSubBlock(@NotNull ASTNode child, @Nullable Alignment alignment) {
+    private GoFormattingBlock buildSubBlock(@NotNull ASTNode child, @Nullable Alignment alignment, @Nullable Alignment typeAlignment) {
       if (child.getPsi() instanceof GoType && child.getTreeParent().getElementType() == FIELD_DECLARATION) {
-        alignment = getUserData(TYPE_ALIGNMENT_INSIDE_STRUCT);
+        alignment = myTypeAlignmentInsideStruct;
       }
       Indent indent = calcIndent(child);
-      return new GoFormattingBlock(child, alignment, indent, null, mySettings, mySpacingBuilder);
+      return new GoFormattingBlock(child, alignment, typeAlignment, indent, null, mySettings, mySpacingBuilder);
     }
     
     @NotNull
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.highlighting;
+
+import com.goide.GoFileType;
+import com.goide.psi.GoFile;
+import com.goide.sdk.GoSdkService;
+import com.goide.util.GoExecutor;
+import com.intellij.execution.process.CapturingProcessAdapter;
+import com.intellij.lang.annotation.AnnotationHolder;
+import com.intellij.lang.annotation.ExternalAnnotator;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.ObjectUtils;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.MultiMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Highlights {@code go vet} findings. Vet runs on the Go files of the package directory in the background once the file is saved,
+ * and its findings are kept until the package files are modified, so other files of the package and reopened
+ * files are annotated without starting vet again.
+ */
+public class GoVetExternalAnnotator extends ExternalAnnotator<GoVetExternalAnnotator.Request, Collection<GoVetExternalAnnotator.Problem>> {
+  private static final Pattern PROBLEM_PATTERN = Pattern.compile("^(?:vet: )?(\\S+\\.go):(\\d+)(?::(\\d+))?: (.+)$");
+
+  private final ConcurrentMap<String, PackageResult> myResults = ContainerUtil.createConcurrentSoftValueMap();
+
+  @Nullable
+  @Override
+  public Request collectInformation(@NotNull PsiFile file, @NotNull Editor editor, boolean hasErrors) {
+    if (hasErrors || !(file instanceof GoFile) || ApplicationManager.getApplication().isUnitTestMode()) return null;
+    VirtualFile virtualFile = file.getVirtualFile();
+    VirtualFile directory = virtualFile != null ? virtualFile.getParent() : null;
+    if (directory == null || !virtualFile.isInLocalFileSystem() || FileDocumentManager.getInstance().isFileModified(virtualFile)) {
+      return null;
+    }
+    Module module = ModuleUtilCore.findModuleForPsiElement(file);
+    if (!GoSdkService.getInstance(file.getProject()).isGoModule(module)) return null;
+    return new Request(file.getProject(), module, directory, virtualFile.getName());
+  }
+
+  @Nullable
+  @Override
+  public Collection<Problem> doAnnotate(@NotNull Request request) {
+    String directoryPath = request.myDirectory.getPath();
+    PackageResult result = myResults.get(directoryPath);
+    if (result == null) {
+      PackageResult newResult = new PackageResult();
+      result = ObjectUtils.chooseNotNull(myResults.putIfAbsent(directoryPath, newResult), newResult);
+    }
+    synchronized (result) {
+      Map<String, Long> fingerprint = calcFingerprint(request.myDirectory);
+      if (result.myProblems == null || !fingerprint.equals(result.myFingerprint)) {
+        result.myProblems = runVet(request, fingerprint.keySet());
+        result.myFingerprint = fingerprint;
+      }
+      return result.myProblems.get(request.myFileName);
+    }
+  }
+
+  @Override
+  public void apply(@NotNull PsiFile file, @Nullable Collection<Problem> problems, @NotNull AnnotationHolder holder) {
+    if (problems == null || problems.isEmpty()) return;
+    Document document = PsiDocumentManager.getInstance(file.getProject()).getDocument(file);
+    if (document == null || FileDocumentManager.getInstance().isDocumentUnsaved(document)) return;
+    for (Problem problem : problems) {
+      if (problem.myLine < 0 || problem.myLine >= document.getLineCount()) continue;
+      int lineStart = document.getLineStartOffset(problem.myLine);
+      int lineEnd = document.getLineEndOffset(problem.myLine);
+      int start = problem.myColumn >= 0
+                  ? Math.min(lineStart + problem.myColumn, lineEnd)
+                  : StringUtil.skipWhitespaceForward(document.getCharsSequence(), lineStart);
+      holder.createWarningAnnotation(new TextRange(Math.min(start, lineEnd), lineEnd), problem.myMessage);
+    }
+  }
+
+  /**
+   * The files are passed explicitly, since {@code go tool vet} walks subdirectories of a directory argument.
+   */
+  @NotNull
+  private static MultiMap<String, Problem> runVet(@NotNull Request request, @NotNull Collection<String> fileNames) {
+    if (fileNames.isEmpty()) return MultiMap.emptyInstance();
+    CapturingProcessAdapter output = new CapturingProcessAdapter();
+    String directoryPath = request.myDirectory.getPath();
+    GoExecutor.in(request.myProject, request.myModule).withPresentableName("go vet").withWorkDirectory(directoryPath)
+      .withParameters("tool", "vet").withParameters(ArrayUtil.toStringArray(ContainerUtil.sorted(fileNames)))
+      .withProcessListener(output).disablePty().execute();
+    return parseOutput(output.getOutput().getStderr() + "\n" + output.getOutput().getStdout(), directoryPath);
+  }
+
+  /**
+   * @return problems by names of the files they are found in, problems of files outside of the directory are dropped
+   */
+  @NotNull
+  static MultiMap<String, Problem> parseOutput(@NotNull String output, @NotNull String directoryPath) {
+    MultiMap<String, Problem> problems = MultiMap.create();
+    for (String line : StringUtil.splitByLines(output)) {
+      Matcher matcher = PROBLEM_PATTERN.matcher(line.trim());
+      if (matcher.matches()) {
+        String path = FileUtil.toSystemIndependentName(matcher.group(1));
+        String relativePath = FileUtil.isAbsolute(path)
+                              ? FileUtil.getRelativePath(directoryPath, path, '/')
+                              : StringUtil.trimStart(path, "./");
+        if (relativePath == null || relativePath.contains("/")) continue;
+        int lineNumber = StringUtil.parseInt(matcher.group(2), 0) - 1;
+        int column = StringUtil.parseInt(matcher.group(3), 0) - 1;
+        problems.putValue(relativePath, new Problem(lineNumber, column, matcher.group(4)));
+      }
+    }
+    return problems;
+  }
+
+  /**
+   * Modification stamps of the Go files of the directory by their names, so saving, adding or removing a file changes it.
+   */
+  @NotNull
+  static Map<String, Long> calcFingerprint(@NotNull final VirtualFile directory) {
+    VirtualFile[] children = ApplicationManager.getApplication().runReadAction(new Computable<VirtualFile[]>() {
+      @Override
+      public VirtualFile[] compute() {
+        return directory.isValid() ? directory.getChildren() : VirtualFile.EMPTY_ARRAY;
+      }
+    });
+    Map<String, Long> fingerprint = ContainerUtil.newHashMap();
+    for (VirtualFile child : children) {
+      if (!child.isDirectory() && child.getFileType() == GoFileType.INSTANCE) {
+        fingerprint.put(child.getName(), child.getModificationStamp());
+      }
+    }
+    return fingerprint;
+  }
+
+  public static class Request {
+    @NotNull private final Project myProject;
+    @Nullable private final Module myModule;
+    @NotNull private final VirtualFile myDirectory;
+    @NotNull private final String myFileName;
+
+    public Request(@NotNull Project project, @Nullable Module module, @NotNull VirtualFile directory, @NotNull String fileName) {
+      myProject = project;
+      myModule = module;
+      myDirectory = directory;
+      myFileName = fileName;
+    }
+  }
+
+  public static class Problem {
+    private final int myLine;
+    private final int myColumn;
+    @NotNull private final String myMessage;
+
+    public Problem(int line, int column, @NotNull String message) {
+      myLine = line;
+      myColumn = column;
+      myMessage = message;
+    }
+
+    @Override
+    public String toString() {
+      return (myLine + 1) + ":" + (myColumn + 1) + ": " + myMessage;
+    }
+  }
+
+  private static class PackageResult {
+    @Nullable private Map<String, Long> myFingerprint;
+    @Nullable private MultiMap<String, Problem> myProblems;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.highlighting;
+
+import com.goide.GoFileType;
+import com.goide.psi.GoFile;
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.FileDocumentManagerAdapter;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Saving a file changes no PSI, so the daemon isn't restarted by itself and {@link GoVetExternalAnnotator} would keep
+ * showing findings of the previous contents. Open files of the package are rehighlighted once a Go file is saved or reloaded.
+ */
+public class GoVetSaveListener extends FileDocumentManagerAdapter {
+  @Override
+  public void beforeDocumentSaving(@NotNull Document document) {
+    restartPackage(FileDocumentManager.getInstance().getFile(document));
+  }
+
+  @Override
+  public void fileContentReloaded(@NotNull VirtualFile file, @NotNull Document document) {
+    restartPackage(file);
+  }
+
+  private static void restartPackage(@Nullable VirtualFile file) {
+    if (file == null || file.getFileType() != GoFileType.INSTANCE) return;
+    final VirtualFile directory = file.getParent();
+    if (directory == null) return;
+    // the document is saved by the time the queued runnable is executed
+    ApplicationManager.getApplication().invokeLater(new Runnable() {
+      @Override
+      public void run() {
+        for (Project project : ProjectManager.getInstance().getOpenProjects()) {
+          if (project.isDisposed()) continue;
+          PsiManager psiManager = PsiManager.getInstance(project);
+          for (VirtualFile openFile : FileEditorManager.getInstance(project).getOpenFiles()) {
+            if (!openFile.isValid() || !directory.equals(openFile.getParent())) continue;
+            PsiFile psiFile = psiManager.findFile(openFile);
+            if (psiFile instanceof GoFile) {
+              DaemonCodeAnalyzer.getInstance(project).restart(psiFile);
+            }
+          }
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig;
+
+import com.goide.GoConstants;
+import com.goide.psi.GoFile;
+import com.goide.psi.GoImportSpec;
+import com.goide.runconfig.application.GoApplicationConfiguration;
+import com.goide.sdk.GoPackageUtil;
+import com.goide.sdk.GoSdkService;
+import com.goide.sdk.GoSdkUtil;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.Trinity;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDirectory;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Fingerprint of the inputs of {@code go build} for an application configuration: contents of the files of the built package
+ * and of all packages it imports transitively (except SDK ones), the build command line, relevant environment and Go version.
+ * A binary built with the same fingerprint is reused instead of building it again.
+ * <p/>
+ * The fingerprint of the last successful build is stored next to the binary in a file with {@code .fingerprint} extension.
+ */
+public class GoBuildFingerprint {
+  private static final Logger LOG = Logger.getInstance(GoBuildFingerprint.class);
+  private static final String EXTENSION = ".fingerprint";
+  private static final Key<Trinity<Long, Long, byte[]>> CONTENT_HASH = Key.create("GO_BUILD_CONTENT_HASH");
+  private static final Key<CachedValue<Map<VirtualFile, List<VirtualFile>>>> BUILD_ROOTS = Key.create("GO_BUILD_ROOTS");
+
+  private GoBuildFingerprint() {}
+
+  /**
+   * Should be called under read action.
+   *
+   * @return fingerprint or null if some of the inputs cannot be found, so the binary should be built anyway
+   */
+  @Nullable
+  public static String compute(@NotNull GoApplicationConfiguration configuration,
+                               @NotNull Module module,
+                               @NotNull GeneralCommandLine buildCommandLine) {
+    Project project = module.getProject();
+    MessageDigest digest = createDigest();
+    update(digest, buildCommandLine.getCommandLineString());
+    update(digest, GoSdkService.getInstance(project).getSdkVersion(module));
+    Map<String, String> environment = new TreeMap<String, String>(buildCommandLine.getEffectiveEnvironment());
+    for (Map.Entry<String, String> entry : environment.entrySet()) {
+      String name = entry.getKey();
+      if (name.startsWith("GO") || name.startsWith("CGO_") || name.equals("CC") || name.equals("CXX") || name.equals("PATH")) {
+        update(digest, name + "=" + entry.getValue());
+      }
+    }
+
+    List<VirtualFile> roots = getBuildRoots(configuration, module);
+    if (roots == null) return null;
+    for (VirtualFile root : roots) {
+      if (!root.isValid()) return null;
+      update(digest, root.getPath());
+      for (VirtualFile file : root.isDirectory() ? root.getChildren() : new VirtualFile[]{root}) {
+        if (!isBuildInput(file)) continue;
+        byte[] hash = contentHash(file);
+        if (hash == null) return null;
+        update(digest, file.getName());
+        digest.update(hash);
+      }
+    }
+    return StringUtil.toHexString(digest.digest());
+  }
+
+  /**
+   * Synchronously refreshes the directories of the build, so the files changed outside of the IDE are hashed with their
+   * current contents. Should be called before {@link #compute} and not under read action.
+   */
+  public static void refreshInputs(@NotNull final GoApplicationConfiguration configuration, @NotNull final Module module) {
+    List<VirtualFile> roots = ApplicationManager.getApplication().runReadAction(new Computable<List<VirtualFile>>() {
+      @Override
+      public List<VirtualFile> compute() {
+        return !module.isDisposed() ? getBuildRoots(configuration, module) : null;
+      }
+    });
+    if (roots != null) {
+      VfsUtil.markDirtyAndRefresh(false, false, true, VfsUtilCore.toVirtualFileArray(roots));
+    }
+  }
+
+  /**
+   * Directories of the built package and of the packages it imports transitively, or the built file itself.
+   * Resolving the imports is the expensive part of the fingerprint, so the result is cached until PSI or project roots change.
+   */
+  @Nullable
+  private static List<VirtualFile> getBuildRoots(@NotNull GoApplicationConfiguration configuration, @NotNull final Module module) {
+    final Project project = module.getProject();
+    VirtualFile target;
+    if (configuration.getKind() == GoApplicationConfiguration.Kind.PACKAGE) {
+      target = GoPackageUtil.findByImportPath(configuration.getPackage(), project, module);
+      if (target == null || !target.isDirectory()) return null;
+    }
+    else {
+      target = LocalFileSystem.getInstance().findFileByPath(configuration.getFilePath());
+      if (target == null) return null;
+    }
+
+    Map<VirtualFile, List<VirtualFile>> cache = CachedValuesManager.getManager(project).getCachedValue(module, BUILD_ROOTS,
+      new CachedValueProvider<Map<VirtualFile, List<VirtualFile>>>() {
+        @Nullable
+        @Override
+        public Result<Map<VirtualFile, List<VirtualFile>>> compute() {
+          Map<VirtualFile, List<VirtualFile>> map = ContainerUtil.newConcurrentMap();
+          return Result.create(map, PsiModificationTracker.MODIFICATION_COUNT, ProjectRootManager.getInstance(project));
+        }
+      }, false);
+    List<VirtualFile> roots = cache.get(target);
+    if (roots == null) {
+      roots = collectBuildRoots(target, module);
+      if (roots != null) cache.put(target, roots);
+    }
+    return roots;
+  }
+
+  @Nullable
+  private static List<VirtualFile> collectBuildRoots(@NotNull VirtualFile target, @NotNull Module module) {
+    Project project = module.getProject();
+    VirtualFile sdkSources = GoSdkUtil.getSdkSrcDir(project, module);
+    PsiManager psiManager = PsiManager.getInstance(project);
+    List<VirtualFile> roots = ContainerUtil.newArrayList(target);
+    Set<VirtualFile> visited = ContainerUtil.newHashSet(target);
+    for (int i = 0; i < roots.size(); i++) {
+      VirtualFile next = roots.get(i);
+      for (VirtualFile file : next.isDirectory() ? next.getChildren() : new VirtualFile[]{next}) {
+        if (!isBuildInput(file)) continue;
+        PsiFile psiFile = psiManager.findFile(file);
+        if (!(psiFile instanceof GoFile)) continue;
+        for (GoImportSpec importSpec : ((GoFile)psiFile).getImports()) {
+          if (GoConstants.C_PATH.equals(importSpec.getPath())) continue;
+          PsiDirectory resolved = importSpec.getImportString().resolve();
+          VirtualFile directory = resolved != null ? resolved.getVirtualFile() : null;
+          if (directory == null) return null;
+          if (sdkSources != null && VfsUtilCore.isAncestor(sdkSources, directory, false)) continue;
+          if (visited.add(directory)) roots.add(directory);
+        }
+      }
+    }
+    return Collections.unmodifiableList(roots);
+  }
+
+  public static boolean isUpToDate(@NotNull File binary, @NotNull String fingerprint) {
+    File fingerprintFile = getFingerprintFile(binary);
+    if (!binary.isFile() || !fingerprintFile.isFile()) return false;
+    try {
+      return fingerprint.equals(FileUtil.loadFile(fingerprintFile).trim());
+    }
+    catch (IOException e) {
+      return false;
+    }
+  }
+
+  public static void save(@NotNull File binary, @NotNull String fingerprint) {
+    try {
+      FileUtil.writeToFile(getFingerprintFile(binary), fingerprint);
+    }
+    catch (IOException e) {
+      LOG.info("Cannot save build fingerprint for " + binary, e);
+    }
+  }
+
+  public static void invalidate(@NotNull File binary) {
+    FileUtil.delete(getFingerprintFile(binary));
+  }
+
+  @NotNull
+  private static File getFingerprintFile(@NotNull File binary) {
+    return new File(binary.getPath() + EXTENSION);
+  }
+
+  private static boolean isBuildInput(@NotNull VirtualFile file) {
+    String name = file.getName();
+    return !file.isDirectory() && !name.startsWith(".") && !name.startsWith("_") && !name.endsWith(GoConstants.TEST_SUFFIX_WITH_EXTENSION);
+  }
+
+  /**
+   * Content hashes are kept in the file user data until the file is modified
+   */
+  @Nullable
+  private static byte[] contentHash(@NotNull VirtualFile file) {
+    long modificationStamp = file.getModificationStamp();
+    long timeStamp = file.getTimeStamp();
+    Trinity<Long, Long, byte[]> cached = file.getUserData(CONTENT_HASH);
+    if (cached != null && cached.first == modificationStamp && cached.second == timeStamp) return cached.third;
+    try {
+      MessageDigest digest = createDigest();
+      digest.update(file.contentsToByteArray());
+      byte[] hash = digest.digest();
+      file.putUserData(CONTENT_HASH, Trinity.create(modificationStamp, timeStamp, hash));
+      return hash;
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static void update(@NotNull MessageDigest digest, @Nullable String value) {
+    digest.update(StringUtil.notNullize(value).getBytes(CharsetToolkit.UTF8_CHARSET));
+    digest.update((byte)0);
+  }
+
+  @NotNull
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
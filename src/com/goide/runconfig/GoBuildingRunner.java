@@ -21,11 +21,14 @@ import com.goide.dlv.DlvDebugProcess;
 import com.goide.dlv.DlvRemoteVmConnection;
 import com.goide.runconfig.application.GoApplicationConfiguration;
 import com.goide.runconfig.application.GoApplicationRunningState;
+import com.goide.sdk.GoPackageUtil;
+import com.goide.util.GoExecutor;
 import com.goide.util.GoHistoryProcessListener;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.ExecutionResult;
 import com.intellij.execution.RunProfileStarter;
 import com.intellij.execution.RunnerAndConfigurationSettings;
+import com.intellij.execution.configurations.GeneralCommandLine;
 import com.intellij.execution.configurations.RunProfile;
 import com.intellij.execution.configurations.RunProfileState;
 import com.intellij.execution.executors.DefaultDebugExecutor;
@@ -37,9 +40,17 @@ import com.intellij.execution.runners.ExecutionEnvironment;
 import com.intellij.execution.runners.RunContentBuilder;
 import com.intellij.execution.ui.RunContentDescriptor;
 import com.intellij.internal.statistic.UsageTrigger;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.io.FileUtilRt;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.net.NetUtils;
 import com.intellij.xdebugger.XDebugProcess;
@@ -58,6 +69,7 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 
 public class GoBuildingRunner extends AsyncGenericProgramRunner {
+  private static final Logger LOG = Logger.getInstance(GoBuildingRunner.class);
   private static final String ID = "GoBuildingRunner";
 
   @NotNull
@@ -77,21 +89,48 @@ public class GoBuildingRunner extends AsyncGenericProgramRunner {
 
   @NotNull
   @Override
-  protected Promise<RunProfileStarter> prepare(@NotNull ExecutionEnvironment environment, @NotNull final RunProfileState state)
+  protected Promise<RunProfileStarter> prepare(@NotNull ExecutionEnvironment environment, @NotNull RunProfileState state)
     throws ExecutionException {
-    final File outputFile = getOutputFile(environment, (GoApplicationRunningState)state);
+    final GoApplicationRunningState goState = (GoApplicationRunningState)state;
+    final File outputFile = getOutputFile(environment, goState);
     FileDocumentManager.getInstance().saveAllDocuments();
 
     final AsyncPromise<RunProfileStarter> buildingPromise = new AsyncPromise<RunProfileStarter>();
+    final GoExecutor executor = createBuildExecutor(goState, outputFile);
+    ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+      @Override
+      public void run() {
+        final String fingerprint = computeFingerprint(goState, executor);
+        if (fingerprint != null && GoBuildFingerprint.isUpToDate(outputFile, fingerprint)) {
+          buildingPromise.setResult(createStarter(goState, outputFile, new GoHistoryProcessListener(), false));
+          return;
+        }
+        ApplicationManager.getApplication().invokeLater(new Runnable() {
+          @Override
+          public void run() {
+            build(goState, outputFile, fingerprint, buildingPromise);
+          }
+        });
+      }
+    });
+    return buildingPromise;
+  }
+
+  /**
+   * The binary is built into a separate file and then renamed to the output file, so a launch that is still running
+   * the previous binary is not affected. If the output file cannot be replaced, the new binary is run from where it was built.
+   */
+  private void build(@NotNull final GoApplicationRunningState state,
+                     @NotNull final File outputFile,
+                     @Nullable final String fingerprint,
+                     @NotNull final AsyncPromise<RunProfileStarter> buildingPromise) {
+    final File buildFile = createBuildFile(outputFile);
+    if (buildFile == null || !prepareFile(buildFile)) {
+      buildingPromise.setError(Promise.createError("Cannot make output file executable " + outputFile.getAbsolutePath()));
+      return;
+    }
     final GoHistoryProcessListener historyProcessListener = new GoHistoryProcessListener();
-    ((GoApplicationRunningState)state).createCommonExecutor()
-      .withParameters("build")
-      .withParameterString(((GoApplicationRunningState)state).getGoBuildParams())
-      .withParameters("-o", outputFile.getAbsolutePath())
-      .withParameters(((GoApplicationRunningState)state).isDebug() ? new String[]{"-gcflags", "-N -l"} : ArrayUtil.EMPTY_STRING_ARRAY)
-      .withParameters(((GoApplicationRunningState)state).getTarget())
-      .disablePty()
-      .withPresentableName("go build")
+    createBuildExecutor(state, buildFile)
       .withProcessListener(historyProcessListener)
       .withProcessListener(new ProcessAdapter() {
 
@@ -99,17 +138,81 @@ public class GoBuildingRunner extends AsyncGenericProgramRunner {
         public void processTerminated(ProcessEvent event) {
           super.processTerminated(event);
           boolean compilationFailed = event.getExitCode() != 0;
-          if (((GoApplicationRunningState)state).isDebug()) {
-              buildingPromise.setResult(new MyDebugStarter(outputFile.getAbsolutePath(), historyProcessListener, compilationFailed));
+          File binary = outputFile;
+          if (compilationFailed) {
+            FileUtil.delete(buildFile);
+          }
+          else {
+            GoBuildFingerprint.invalidate(outputFile);
+            try {
+              FileUtil.rename(buildFile, outputFile);
+              if (fingerprint != null) {
+                GoBuildFingerprint.save(outputFile, fingerprint);
+              }
             }
-            else {
-              buildingPromise.setResult(new MyRunStarter(outputFile.getAbsolutePath(), historyProcessListener, compilationFailed));
+            catch (IOException e) {
+              LOG.info("Cannot replace " + outputFile + ", running " + buildFile, e);
+              buildFile.deleteOnExit();
+              binary = buildFile;
             }
+          }
+          buildingPromise.setResult(createStarter(state, binary, historyProcessListener, compilationFailed));
         }
       }).executeWithProgress(false);
-    return buildingPromise;
   }
 
+  @NotNull
+  private static GoExecutor createBuildExecutor(@NotNull GoApplicationRunningState state, @NotNull File outputFile) {
+    return state.createCommonExecutor()
+      .withParameters("build")
+      .withParameterString(state.getGoBuildParams())
+      .withParameters("-o", outputFile.getAbsolutePath())
+      .withParameters(state.isDebug() ? new String[]{"-gcflags", "-N -l"} : ArrayUtil.EMPTY_STRING_ARRAY)
+      .withParameters(state.getTarget())
+      .disablePty()
+      .withPresentableName("go build");
+  }
+
+  @NotNull
+  private RunProfileStarter createStarter(@NotNull GoApplicationRunningState state,
+                                          @NotNull File outputFile,
+                                          @NotNull GoHistoryProcessListener historyProcessListener,
+                                          boolean compilationFailed) {
+    return state.isDebug()
+           ? new MyDebugStarter(outputFile.getAbsolutePath(), historyProcessListener, compilationFailed)
+           : new MyRunStarter(outputFile.getAbsolutePath(), historyProcessListener, compilationFailed);
+  }
+
+  /**
+   * Any failure, e.g. indices which are not ready yet, means there is no fingerprint and the binary is built as usual.
+   */
+  @Nullable
+  private static String computeFingerprint(@NotNull final GoApplicationRunningState state, @NotNull GoExecutor executor) {
+    final Module module = state.getConfiguration().getConfigurationModule().getModule();
+    if (module == null) return null;
+    try {
+      final GeneralCommandLine commandLine = executor.createCommandLine();
+      GoBuildFingerprint.refreshInputs(state.getConfiguration(), module);
+      return ApplicationManager.getApplication().runReadAction(new Computable<String>() {
+        @Override
+        public String compute() {
+          return !module.isDisposed() ? GoBuildFingerprint.compute(state.getConfiguration(), module, commandLine) : null;
+        }
+      });
+    }
+    catch (ExecutionException e) {
+      return null;
+    }
+    catch (RuntimeException e) {
+      LOG.info("Cannot compute build fingerprint of " + state.getConfiguration().getName(), e);
+      return null;
+    }
+  }
+
+  /**
+   * Binaries are kept between runs to be reused while their sources don't change, see {@link GoBuildFingerprint}.
+   * If the configuration has no output directory, the binary is stored in the IDE system directory.
+   */
   @NotNull
   private static File getOutputFile(@NotNull ExecutionEnvironment environment, @NotNull GoApplicationRunningState state)
     throws ExecutionException {
@@ -118,36 +221,39 @@ public class GoBuildingRunner extends AsyncGenericProgramRunner {
     RunnerAndConfigurationSettings settings = environment.getRunnerAndConfigurationSettings();
     String configurationName = settings != null ? settings.getName() : "application";
     if (StringUtil.isEmpty(outputDirectoryPath)) {
-      try {
-        outputFile = FileUtil.createTempFile(configurationName, "go", true);
-      }
-      catch (IOException e) {
-        throw new ExecutionException("Cannot create temporary output file", e);
+      File outputDirectory = new File(PathManager.getSystemPath(), "go-build");
+      String name = FileUtil.sanitizeFileName(environment.getProject().getName() + "-" + configurationName, false) +
+                    (state.isDebug() ? "-debug" : "");
+      outputFile = new File(outputDirectory, GoEnvironmentUtil.getBinaryFileNameForPath(name));
+      if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+        throw new ExecutionException("Cannot create output file in " + outputDirectory.getAbsolutePath());
       }
     }
     else {
       File outputDirectory = new File(outputDirectoryPath);
       if (outputDirectory.isDirectory() || !outputDirectory.exists() && outputDirectory.mkdirs()) {
         outputFile = new File(outputDirectoryPath, GoEnvironmentUtil.getBinaryFileNameForPath(configurationName));
-        try {
-          if (!outputFile.exists() && !outputFile.createNewFile()) {
-            throw new ExecutionException("Cannot create output file " + outputFile.getAbsolutePath());
-          }
-        }
-        catch (IOException e) {
-          throw new ExecutionException("Cannot create output file " + outputFile.getAbsolutePath());
-        }
       }
       else {
         throw new ExecutionException("Cannot create output file in " + outputDirectory.getAbsolutePath());
       }
     }
-    if (!prepareFile(outputFile)) {
-      throw new ExecutionException("Cannot make temporary file executable " + outputFile.getAbsolutePath());
-    }
     return outputFile;
   }
 
+  @Nullable
+  private static File createBuildFile(@NotNull File outputFile) {
+    String extension = FileUtilRt.getExtension(outputFile.getName());
+    try {
+      return FileUtil.createTempFile(outputFile.getParentFile(), FileUtil.getNameWithoutExtension(outputFile) + "-build-",
+                                     extension.isEmpty() ? "" : "." + extension, true, false);
+    }
+    catch (IOException e) {
+      LOG.info("Cannot create build file next to " + outputFile, e);
+      return null;
+    }
+  }
+
   private static boolean prepareFile(@NotNull File file) {
     try {
       FileUtil.writeToFile(file, new byte[]{0x7F, 'E', 'L', 'F'});
@@ -191,13 +297,14 @@ public class GoBuildingRunner extends AsyncGenericProgramRunner {
         }
 
         UsageTrigger.trigger("go.dlv.debugger");
-      
+        final VirtualFile mainPackageDirectory = findMainPackageDirectory(((GoApplicationRunningState)state).getConfiguration());
+
         return XDebuggerManager.getInstance(env.getProject()).startSession(env, new XDebugProcessStarter() {
           @NotNull
           @Override
           public XDebugProcess start(@NotNull XDebugSession session) throws ExecutionException {
             RemoteVmConnection connection = new DlvRemoteVmConnection();
-            DlvDebugProcess process = new DlvDebugProcess(session, connection, executionResult);
+            DlvDebugProcess process = new DlvDebugProcess(session, connection, executionResult, mainPackageDirectory);
             connection.open(new InetSocketAddress(NetUtils.getLoopbackAddress(), port));
             return process;
           }
@@ -207,6 +314,16 @@ public class GoBuildingRunner extends AsyncGenericProgramRunner {
     }
   }
 
+  @Nullable
+  private static VirtualFile findMainPackageDirectory(@NotNull GoApplicationConfiguration configuration) {
+    if (configuration.getKind() == GoApplicationConfiguration.Kind.PACKAGE) {
+      Module module = configuration.getConfigurationModule().getModule();
+      return GoPackageUtil.findByImportPath(configuration.getPackage(), configuration.getProject(), module);
+    }
+    VirtualFile file = LocalFileSystem.getInstance().findFileByPath(configuration.getFilePath());
+    return file != null ? file.getParent() : null;
+  }
+
   private class MyRunStarter extends RunProfileStarter {
     private final String myOutputFilePath;
     private final GoHistoryProcessListener myHistoryProcessListener;
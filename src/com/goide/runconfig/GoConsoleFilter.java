@@ -27,6 +27,7 @@ import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VfsUtilCore;
@@ -38,6 +39,7 @@ import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.ObjectUtils;
 import com.intellij.util.PathUtil;
 import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.SLRUMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -51,10 +53,12 @@ public class GoConsoleFilter implements Filter {
   private static final Pattern GO_GET_MESSAGE_PATTERN = Pattern.compile("^[ \t]*(go get (.*))\n?$");
   private static final Pattern APP_ENGINE_PATH_PATTERN = Pattern.compile("/tmp[A-z0-9]+appengine-go-bin/");
   private static final Pattern GO_FILE_PATTERN = Pattern.compile("\\((\\w+\\.go)\\)");
+  private static final int CACHE_SIZE = 256;
 
   @NotNull private final Project myProject;
   @Nullable private final Module myModule;
   @Nullable private final String myWorkingDirectoryUrl;
+  private final SLRUMap<String, Ref<VirtualFile>> myResolvedFiles = new SLRUMap<String, Ref<VirtualFile>>(CACHE_SIZE, CACHE_SIZE);
 
   @SuppressWarnings("unused") //used by pico container
   public GoConsoleFilter(@NotNull Project project) {
@@ -69,6 +73,7 @@ public class GoConsoleFilter implements Filter {
 
   @Override
   public Result applyFilter(@NotNull String line, int entireLength) {
+    if (!mayContainHyperlink(line)) return null;
     Matcher goGetMatcher = GO_GET_MESSAGE_PATTERN.matcher(line);
     if (goGetMatcher.find() && myModule != null) {
       String packageName = goGetMatcher.group(2).trim();
@@ -81,10 +86,8 @@ public class GoConsoleFilter implements Filter {
       Matcher fileMatcher = GO_FILE_PATTERN.matcher(line);
       List<ResultItem> resultItems = ContainerUtil.newArrayList();
       while (fileMatcher.find()) {
-        VirtualFile file = findSingleFile(fileMatcher.group(1));
-        if (file != null) {
-          resultItems.add(createResult(line, entireLength, fileMatcher.start(1), fileMatcher.end(1), 0, 0, file));
-        }
+        ContainerUtil.addIfNotNull(resultItems, createResult(line, entireLength, fileMatcher.start(1), fileMatcher.end(1),
+                                                             fileMatcher.group(1), 0, 0));
       }
       return !resultItems.isEmpty() ? new Result(resultItems) : null;
     }
@@ -109,15 +112,78 @@ public class GoConsoleFilter implements Filter {
       fileName = fileName.substring(appEnginePathMatcher.end());
     }
 
+    return createResult(line, entireLength, startOffset, endOffset, fileName, lineNumber, columnNumber);
+  }
+
+  /**
+   * Cheap check that the line may match one of the patterns: it mentions {@code go get}, a {@code (file.go)}
+   * or has a {@code name.ext:123} reference.
+   */
+  private static boolean mayContainHyperlink(@NotNull String line) {
+    if (line.contains("go get") || line.contains(".go)")) return true;
+    int length = line.length();
+    for (int i = line.indexOf(':'); i >= 0 && i + 1 < length; i = line.indexOf(':', i + 1)) {
+      if (!Character.isDigit(line.charAt(i + 1))) continue;
+      int extensionStart = i;
+      while (extensionStart > 0 && isWordChar(line.charAt(extensionStart - 1))) {
+        extensionStart--;
+      }
+      if (extensionStart < i && extensionStart > 0 && line.charAt(extensionStart - 1) == '.') return true;
+    }
+    return false;
+  }
+
+  private static boolean isWordChar(char c) {
+    return c < 128 && (Character.isLetterOrDigit(c) || c == '_');
+  }
+
+  /**
+   * Every distinct file name is resolved once, misses are cached as well, so a line that only looks like a file reference,
+   * e.g. {@code db.example.com:5432}, costs a cache lookup and doesn't become a dead link.
+   */
+  @Nullable
+  private Result createResult(@NotNull String line,
+                              int entireLength,
+                              int startOffset,
+                              int endOffset,
+                              @NotNull String fileName,
+                              int lineNumber,
+                              int columnNumber) {
+    VirtualFile virtualFile = findFile(fileName);
+    if (virtualFile == null) {
+      return null;
+    }
+    HyperlinkInfo hyperlinkInfo = new OpenFileHyperlinkInfo(myProject, virtualFile, lineNumber, columnNumber);
+    int lineStart = entireLength - line.length();
+    return new Result(lineStart + startOffset, lineStart + endOffset, hyperlinkInfo);
+  }
+
+  @Nullable
+  private VirtualFile findFile(@NotNull String fileName) {
+    synchronized (myResolvedFiles) {
+      Ref<VirtualFile> cachedFile = myResolvedFiles.get(fileName);
+      if (cachedFile != null && (cachedFile.isNull() || cachedFile.get().isValid())) {
+        return cachedFile.get();
+      }
+    }
+    VirtualFile file = resolveFile(fileName);
+    synchronized (myResolvedFiles) {
+      myResolvedFiles.put(fileName, Ref.create(file));
+    }
+    return file;
+  }
+
+  @Nullable
+  private VirtualFile resolveFile(@NotNull String fileName) {
     VirtualFile virtualFile = null;
     if (FileUtil.isAbsolutePlatformIndependent(fileName)) {
       virtualFile = ApplicationManager.getApplication().isUnitTestMode()
-                    ? TempFileSystem.getInstance().refreshAndFindFileByPath(fileName)
-                    : VirtualFileManager.getInstance().refreshAndFindFileByUrl(VfsUtilCore.pathToUrl(fileName));
+                    ? TempFileSystem.getInstance().findFileByPath(fileName)
+                    : VirtualFileManager.getInstance().findFileByUrl(VfsUtilCore.pathToUrl(fileName));
     }
     else {
       if (myWorkingDirectoryUrl != null) {
-        virtualFile = VirtualFileManager.getInstance().refreshAndFindFileByUrl(myWorkingDirectoryUrl + "/" + fileName);
+        virtualFile = VirtualFileManager.getInstance().findFileByUrl(myWorkingDirectoryUrl + "/" + fileName);
       }
       if (virtualFile == null && myModule != null) {
         virtualFile = findInGoPath(fileName);
@@ -139,23 +205,7 @@ public class GoConsoleFilter implements Filter {
     if (virtualFile == null) {
       virtualFile = findSingleFile(fileName);
     }
-    if (virtualFile == null) {
-      return null;
-    }
-    return createResult(line, entireLength, startOffset, endOffset, lineNumber, columnNumber, virtualFile);
-  }
-
-  @NotNull
-  private Result createResult(@NotNull String line,
-                              int entireLength,
-                              int startOffset,
-                              int endOffset,
-                              int lineNumber,
-                              int columnNumber,
-                              @NotNull VirtualFile virtualFile) {
-    HyperlinkInfo hyperlinkInfo = new OpenFileHyperlinkInfo(myProject, virtualFile, lineNumber, columnNumber);
-    int lineStart = entireLength - line.length();
-    return new Result(lineStart + startOffset, lineStart + endOffset, hyperlinkInfo);
+    return virtualFile;
   }
 
   @Nullable
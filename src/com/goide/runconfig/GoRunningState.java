@@ -47,13 +47,17 @@ public abstract class GoRunningState<T extends GoRunConfigurationBase<?>> extend
   @NotNull
   @Override
   protected ProcessHandler startProcess() throws ExecutionException {
-    GoExecutor executor = patchExecutor(createCommonExecutor());
-    final GeneralCommandLine commandLine = executor.withParameterString(myConfiguration.getParams()).createCommandLine();
+    GeneralCommandLine commandLine = createCommandLine(patchExecutor(createCommonExecutor()));
     KillableColoredProcessHandler handler = new KillableColoredProcessHandler(commandLine);
     ProcessTerminatedListener.attach(handler);
     return handler;
   }
 
+  @NotNull
+  protected GeneralCommandLine createCommandLine(@NotNull GoExecutor executor) throws ExecutionException {
+    return executor.withParameterString(myConfiguration.getParams()).createCommandLine();
+  }
+
   @NotNull
   public GoExecutor createCommonExecutor() {
     return GoExecutor.in(myModule).withWorkDirectory(myConfiguration.getWorkingDirectory())
@@ -73,18 +73,6 @@ public class GoApplicationRunningState extends GoRunningState<GoApplicationConfi
           myHistoryProcessHandler.apply(processHandler);
         }
       }
-
-      @Override
-      public void processTerminated(ProcessEvent event) {
-        super.processTerminated(event);
-        if (StringUtil.isEmpty(myConfiguration.getOutputFilePath())) {
-          File file = new File(myOutputFilePath);
-          if (file.exists()) {
-            //noinspection ResultOfMethodCallIgnored
-            file.delete();
-          }
-        }
-      }
     });
     return processHandler;
   }
@@ -73,6 +73,13 @@ public abstract class GoTestFramework {
   protected abstract GoTestRunningState newRunningState(@NotNull ExecutionEnvironment env,
                                                         @NotNull Module module, @NotNull GoTestRunConfiguration runConfiguration);
 
+  /**
+   * Whether tests of the module are run with {@code -json} and their output is parsed as a stream of events.
+   */
+  public boolean isJsonOutputSupported(@Nullable Module module) {
+    return false;
+  }
+
   @NotNull
   public abstract OutputToGeneralTestEventsConverter createTestEventsConverter(@NotNull TestConsoleProperties consoleProperties);
 }
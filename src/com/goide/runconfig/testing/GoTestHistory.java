@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.goide.runconfig.GoRunUtil;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durations and outcomes of packages from the previous runs of a configuration, stored in the IDE system directory.
+ * Shards are balanced by packages, so durations of single tests are not kept.
+ * A run only overrides entries of the packages it executed.
+ * <p/>
+ * The file is read on the first {@link #load()} or {@link #save()}, neither of them should be called on the EDT.
+ */
+public class GoTestHistory {
+  private static final Logger LOG = Logger.getInstance(GoTestHistory.class);
+  private static final String PACKAGE_RECORD = "package";
+  private static final String FAILED = "FAIL";
+  private static final String PASSED = "PASS";
+
+  @Nullable private final File myFile;
+  @NotNull private final Map<String, Entry> myPackages = ContainerUtil.newLinkedHashMap();
+  private boolean myLoaded;
+
+  public GoTestHistory(@Nullable File file) {
+    myFile = file;
+  }
+
+  /**
+   * Doesn't read the file, see {@link #load()}.
+   */
+  @NotNull
+  public static GoTestHistory forConfiguration(@NotNull Project project, @NotNull String configurationName) {
+    return new GoTestHistory(GoRunUtil.getConfigurationDataFile(project, "go-test-history", configurationName));
+  }
+
+  /**
+   * Reads the file once, entries recorded before that are kept.
+   */
+  @NotNull
+  public synchronized GoTestHistory load() {
+    if (myLoaded) return this;
+    myLoaded = true;
+    if (myFile == null || !myFile.isFile()) return this;
+    try {
+      for (String line : StringUtil.splitByLines(FileUtil.loadFile(myFile))) {
+        List<String> parts = StringUtil.split(line, "\t");
+        if (parts.size() == 4 && PACKAGE_RECORD.equals(parts.get(0)) && !myPackages.containsKey(parts.get(1))) {
+          Entry entry = Entry.parse(parts.get(2), parts.get(3));
+          if (entry != null) myPackages.put(parts.get(1), entry);
+        }
+      }
+    }
+    catch (IOException e) {
+      LOG.info("Cannot load test history from " + myFile, e);
+    }
+    return this;
+  }
+
+  public synchronized void save() {
+    if (myFile == null) return;
+    load();
+    StringBuilder result = new StringBuilder();
+    for (Map.Entry<String, Entry> entry : myPackages.entrySet()) {
+      result.append(PACKAGE_RECORD).append('\t').append(entry.getKey()).append('\t').append(entry.getValue()).append('\n');
+    }
+    try {
+      FileUtil.writeToFile(myFile, result.toString());
+    }
+    catch (IOException e) {
+      LOG.info("Cannot save test history to " + myFile, e);
+    }
+  }
+
+  public synchronized void recordPackage(@NotNull String importPath, long durationMillis, boolean failed) {
+    myPackages.put(importPath, new Entry(durationMillis, failed));
+  }
+
+  /**
+   * @return duration of the package in milliseconds or {@code -1} if the package has never been run
+   */
+  public synchronized long getPackageDuration(@NotNull String importPath) {
+    Entry entry = myPackages.get(importPath);
+    return entry != null ? entry.myDuration : -1;
+  }
+
+  public synchronized boolean isPackageFailed(@NotNull String importPath) {
+    Entry entry = myPackages.get(importPath);
+    return entry != null && entry.myFailed;
+  }
+
+  private static class Entry {
+    private final long myDuration;
+    private final boolean myFailed;
+
+    private Entry(long duration, boolean failed) {
+      myDuration = duration;
+      myFailed = failed;
+    }
+
+    @Nullable
+    private static Entry parse(@NotNull String duration, @NotNull String status) {
+      long millis = StringUtil.parseLong(duration, -1);
+      return millis >= 0 ? new Entry(millis, FAILED.equals(status)) : null;
+    }
+
+    @Override
+    public String toString() {
+      return myDuration + "\t" + (myFailed ? FAILED : PASSED);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.goide.runconfig.testing.frameworks.gotest.GotestJsonEventsConverter;
+import com.intellij.execution.process.ProcessAdapter;
+import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Records durations of packages from {@code go test -v} output, plain or {@code -json}, into {@link GoTestHistory}.
+ */
+public class GoTestHistoryRecorder extends ProcessAdapter {
+  private static final Pattern PACKAGE_RESULT = Pattern.compile("^(ok|FAIL)\\s+(\\S+)\\s+(?:(\\d+(?:\\.\\d+)?)s|\\[[^\\]]*failed\\])");
+
+  @NotNull private final GoTestHistory myHistory;
+  @NotNull private final StringBuilder myLine = new StringBuilder();
+
+  public GoTestHistoryRecorder(@NotNull GoTestHistory history) {
+    myHistory = history;
+  }
+
+  @Override
+  public synchronized void onTextAvailable(@NotNull ProcessEvent event, Key outputType) {
+    if (outputType == ProcessOutputTypes.STDERR || outputType == ProcessOutputTypes.SYSTEM) return;
+    String text = event.getText();
+    int lineStart = 0;
+    int lineEnd;
+    while ((lineEnd = text.indexOf('\n', lineStart)) >= 0) {
+      myLine.append(text, lineStart, lineEnd);
+      processLine(myLine.toString());
+      myLine.setLength(0);
+      lineStart = lineEnd + 1;
+    }
+    myLine.append(text, lineStart, text.length());
+  }
+
+  @Override
+  public synchronized void processTerminated(@NotNull ProcessEvent event) {
+    processLine(myLine.toString());
+    myLine.setLength(0);
+    myHistory.save();
+  }
+
+  void processLine(@NotNull String line) {
+    if (StringUtil.startsWithChar(line, '{')) {
+      GotestJsonEventsConverter.TestEvent event = GotestJsonEventsConverter.TestEvent.parse(line);
+      String action = event != null ? event.getAction() : null;
+      String pkg = event != null ? event.getPackage() : null;
+      if (pkg == null || event.getTest() != null || event.getElapsed() < 0 || !"pass".equals(action) && !"fail".equals(action)) {
+        return;
+      }
+      myHistory.recordPackage(pkg, Math.round(event.getElapsed() * 1000), "fail".equals(action));
+      return;
+    }
+
+    Matcher matcher = PACKAGE_RESULT.matcher(line);
+    if (matcher.find()) {
+      String pkg = matcher.group(2);
+      boolean failed = "FAIL".equals(matcher.group(1));
+      String seconds = matcher.group(3);
+      long duration = seconds != null ? parseMillis(seconds) : Math.max(0, myHistory.getPackageDuration(pkg));
+      myHistory.recordPackage(pkg, duration, failed);
+    }
+  }
+
+  private static long parseMillis(@NotNull String seconds) {
+    try {
+      return Math.round(Double.parseDouble(seconds) * 1000);
+    }
+    catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
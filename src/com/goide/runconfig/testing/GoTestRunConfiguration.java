@@ -47,6 +47,12 @@ public class GoTestRunConfiguration extends GoRunConfigurationBase<GoTestRunning
   private static final String PACKAGE_ATTRIBUTE_NAME = "package";
   private static final String KIND_ATTRIBUTE_NAME = "kind";
   private static final String FRAMEWORK_ATTRIBUTE_NAME = "framework";
+  private static final String COMPARE_WITH_BASELINE_ATTRIBUTE_NAME = "compareWithBaseline";
+  private static final String BENCHMARK_COUNT_ATTRIBUTE_NAME = "benchmarkCount";
+  private static final String SHARD_COUNT_ATTRIBUTE_NAME = "shardCount";
+  private static final String RUN_FAILED_FIRST_ATTRIBUTE_NAME = "runFailedFirst";
+  private static final String COVER_PACKAGES_ATTRIBUTE_NAME = "coverPackages";
+  public static final int DEFAULT_BENCHMARK_COUNT = 5;
 
   @NotNull private String myPackage = "";
   @NotNull private String myFilePath = "";
@@ -55,6 +61,11 @@ public class GoTestRunConfiguration extends GoRunConfigurationBase<GoTestRunning
   @NotNull private String myPattern = "";
   @NotNull private Kind myKind = Kind.DIRECTORY;
   private GoTestFramework myTestFramework = GotestFramework.INSTANCE;
+  private boolean myCompareWithBaseline;
+  private int myBenchmarkCount = DEFAULT_BENCHMARK_COUNT;
+  private int myShardCount = 1;
+  private boolean myRunFailedFirst;
+  @NotNull private String myCoverPackages = "";
 
   public GoTestRunConfiguration(@NotNull Project project, String name, @NotNull ConfigurationType configurationType) {
     super(name, new GoModuleBasedConfiguration(project), configurationType.getConfigurationFactories()[0]);
@@ -149,6 +160,21 @@ public class GoTestRunConfiguration extends GoRunConfigurationBase<GoTestRunning
     if (!myPattern.isEmpty()) {
       JDOMExternalizerUtil.addElementWithValueAttribute(element, PATTERN_ATTRIBUTE_NAME, myPattern);
     }
+    if (myCompareWithBaseline) {
+      JDOMExternalizerUtil.addElementWithValueAttribute(element, COMPARE_WITH_BASELINE_ATTRIBUTE_NAME, "true");
+    }
+    if (myBenchmarkCount != DEFAULT_BENCHMARK_COUNT) {
+      JDOMExternalizerUtil.addElementWithValueAttribute(element, BENCHMARK_COUNT_ATTRIBUTE_NAME, String.valueOf(myBenchmarkCount));
+    }
+    if (myShardCount > 1) {
+      JDOMExternalizerUtil.addElementWithValueAttribute(element, SHARD_COUNT_ATTRIBUTE_NAME, String.valueOf(myShardCount));
+    }
+    if (myRunFailedFirst) {
+      JDOMExternalizerUtil.addElementWithValueAttribute(element, RUN_FAILED_FIRST_ATTRIBUTE_NAME, "true");
+    }
+    if (!myCoverPackages.isEmpty()) {
+      JDOMExternalizerUtil.addElementWithValueAttribute(element, COVER_PACKAGES_ATTRIBUTE_NAME, myCoverPackages);
+    }
   }
 
   @Override
@@ -166,6 +192,14 @@ public class GoTestRunConfiguration extends GoRunConfigurationBase<GoTestRunning
     myFilePath = StringUtil.notNullize(JDOMExternalizerUtil.getFirstChildValueAttribute(element, FILE_PATH_ATTRIBUTE_NAME));
     myPattern = StringUtil.notNullize(JDOMExternalizerUtil.getFirstChildValueAttribute(element, PATTERN_ATTRIBUTE_NAME));
     myTestFramework = GoTestFramework.fromName(JDOMExternalizerUtil.getFirstChildValueAttribute(element, FRAMEWORK_ATTRIBUTE_NAME));
+    myCompareWithBaseline = Boolean.parseBoolean(JDOMExternalizerUtil.getFirstChildValueAttribute(element,
+                                                                                                  COMPARE_WITH_BASELINE_ATTRIBUTE_NAME));
+    String benchmarkCount = JDOMExternalizerUtil.getFirstChildValueAttribute(element, BENCHMARK_COUNT_ATTRIBUTE_NAME);
+    myBenchmarkCount = Math.max(2, StringUtil.parseInt(benchmarkCount, DEFAULT_BENCHMARK_COUNT));
+    String shardCount = JDOMExternalizerUtil.getFirstChildValueAttribute(element, SHARD_COUNT_ATTRIBUTE_NAME);
+    myShardCount = Math.max(1, StringUtil.parseInt(shardCount, 1));
+    myRunFailedFirst = Boolean.parseBoolean(JDOMExternalizerUtil.getFirstChildValueAttribute(element, RUN_FAILED_FIRST_ATTRIBUTE_NAME));
+    myCoverPackages = StringUtil.notNullize(JDOMExternalizerUtil.getFirstChildValueAttribute(element, COVER_PACKAGES_ATTRIBUTE_NAME));
   }
 
   @NotNull
@@ -222,6 +256,59 @@ public class GoTestRunConfiguration extends GoRunConfigurationBase<GoTestRunning
     return myTestFramework;
   }
 
+  /**
+   * Whether benchmarks are run {@link #getBenchmarkCount()} times and compared with the samples of the previous run.
+   */
+  public boolean isCompareWithBaseline() {
+    return myCompareWithBaseline;
+  }
+
+  public void setCompareWithBaseline(boolean compareWithBaseline) {
+    myCompareWithBaseline = compareWithBaseline;
+  }
+
+  public int getBenchmarkCount() {
+    return myBenchmarkCount;
+  }
+
+  public void setBenchmarkCount(int benchmarkCount) {
+    myBenchmarkCount = benchmarkCount;
+  }
+
+  /**
+   * Number of {@code go test} processes packages of a directory are split into, balanced by durations of the previous runs.
+   */
+  public int getShardCount() {
+    return myShardCount;
+  }
+
+  public void setShardCount(int shardCount) {
+    myShardCount = shardCount;
+  }
+
+  /**
+   * Whether packages of a directory that failed in the previous run are started before the others.
+   */
+  public boolean isRunFailedFirst() {
+    return myRunFailedFirst;
+  }
+
+  public void setRunFailedFirst(boolean runFailedFirst) {
+    myRunFailedFirst = runFailedFirst;
+  }
+
+  /**
+   * Value of {@code -coverpkg} for coverage runs, a comma-separated list of import path patterns. Empty means the tested packages.
+   */
+  @NotNull
+  public String getCoverPackages() {
+    return myCoverPackages;
+  }
+
+  public void setCoverPackages(@NotNull String coverPackages) {
+    myCoverPackages = coverPackages;
+  }
+
   public enum Kind {
     DIRECTORY, PACKAGE, FILE
   }
@@ -16,15 +16,19 @@
 
 package com.goide.runconfig.testing;
 
+import com.goide.GoConstants;
 import com.goide.psi.GoFile;
 import com.goide.psi.GoFunctionDeclaration;
 import com.goide.runconfig.GoConsoleFilter;
 import com.goide.runconfig.GoRunningState;
+import com.goide.runconfig.testing.coverage.GoCoverageRunner;
+import com.goide.sdk.GoSdkUtil;
 import com.goide.util.GoExecutor;
 import com.intellij.execution.DefaultExecutionResult;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.ExecutionResult;
 import com.intellij.execution.Executor;
+import com.intellij.execution.configurations.GeneralCommandLine;
 import com.intellij.execution.filters.TextConsoleBuilder;
 import com.intellij.execution.filters.TextConsoleBuilderFactory;
 import com.intellij.execution.process.ProcessHandler;
@@ -38,14 +42,22 @@ import com.intellij.execution.testframework.autotest.ToggleAutoTestAction;
 import com.intellij.execution.testframework.sm.SMTestRunnerConnectionUtil;
 import com.intellij.execution.testframework.sm.runner.ui.SMTRunnerConsoleView;
 import com.intellij.execution.ui.ConsoleView;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Getter;
+import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileVisitor;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
+import com.intellij.util.ArrayUtil;
 import com.intellij.util.Function;
 import com.intellij.util.ObjectUtils;
 import com.intellij.util.containers.ContainerUtil;
@@ -53,12 +65,17 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 
 public class GoTestRunningState extends GoRunningState<GoTestRunConfiguration> {
+  private static final Logger LOG = Logger.getInstance(GoTestRunningState.class);
+
   private String myCoverageFilePath;
   private String myFailedTestsPattern;
+  @Nullable private List<String> myShardPackages;
+  @Nullable private String myShardCoverageFilePath;
 
   public GoTestRunningState(@NotNull ExecutionEnvironment env, @NotNull Module module, @NotNull GoTestRunConfiguration configuration) {
     super(env, module, configuration);
@@ -94,17 +111,160 @@ public class GoTestRunningState extends GoRunningState<GoTestRunConfiguration> {
     return executionResult;
   }
 
+  @NotNull
+  @Override
+  protected ProcessHandler startProcess() throws ExecutionException {
+    GoTestHistory history = ApplicationManager.getApplication().isUnitTestMode()
+                            ? new GoTestHistory(null)
+                            : GoTestHistory.forConfiguration(myConfiguration.getProject(), myConfiguration.getName());
+    List<List<String>> shards = splitIntoShards(history);
+    ProcessHandler processHandler = shards != null ? startShards(shards) : super.startProcess();
+    processHandler.addProcessListener(new GoTestHistoryRecorder(history));
+    return processHandler;
+  }
+
+  /**
+   * With coverage every package gets its own process and profile, since {@code go test -coverprofile} accepts a single package.
+   *
+   * @return packages to run by separate processes or null if the configuration is run by a single {@code go test}
+   */
+  @Nullable
+  private List<List<String>> splitIntoShards(@NotNull GoTestHistory history) {
+    if (myConfiguration.getKind() != GoTestRunConfiguration.Kind.DIRECTORY) return null;
+    int shardCount = myConfiguration.getShardCount();
+    boolean failedFirst = myConfiguration.isRunFailedFirst();
+    if (myCoverageFilePath == null && shardCount <= 1 && !failedFirst) return null;
+    Collection<String> packages = findTestPackages(history);
+    if (packages == null || packages.isEmpty()) return null;
+    return GoTestShards.split(packages, myCoverageFilePath != null ? packages.size() : shardCount, history, failedFirst);
+  }
+
+  @NotNull
+  private ProcessHandler startShards(@NotNull List<List<String>> shards) throws ExecutionException {
+    List<GeneralCommandLine> commandLines = ContainerUtil.newArrayList();
+    final List<File> profiles = ContainerUtil.newArrayList();
+    try {
+      for (List<String> shard : shards) {
+        myShardPackages = shard;
+        if (myCoverageFilePath != null) {
+          myShardCoverageFilePath = myCoverageFilePath + "." + profiles.size();
+          profiles.add(new File(myShardCoverageFilePath));
+        }
+        commandLines.add(createCommandLine(patchExecutor(createCommonExecutor())));
+      }
+    }
+    finally {
+      myShardPackages = null;
+      myShardCoverageFilePath = null;
+    }
+    boolean jsonOutput = myConfiguration.getTestFramework().isJsonOutputSupported(myModule);
+    if (myCoverageFilePath == null) {
+      return new GoTestShardsProcessHandler(commandLines, commandLines.size(), jsonOutput);
+    }
+
+    final File coverageFile = new File(myCoverageFilePath);
+    // a shard count set by the user limits the number of coverage processes running at once, the CPU count is the default
+    int shardCount = myConfiguration.getShardCount();
+    int parallelism = shardCount > 1 ? shardCount : Runtime.getRuntime().availableProcessors();
+    return new GoTestShardsProcessHandler(commandLines, parallelism, jsonOutput) {
+      @Override
+      protected void allShardsTerminated() {
+        try {
+          GoCoverageRunner.mergeProfiles(profiles, coverageFile);
+        }
+        catch (IOException e) {
+          LOG.warn("Cannot merge coverage profiles into " + coverageFile, e);
+        }
+        finally {
+          for (File profile : profiles) {
+            FileUtil.delete(profile);
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Import paths of the packages with test files that {@code go test ./...} would run in the testing directory,
+   * or null if some of them are outside of GOPATH or collecting is cancelled.
+   * The directory is walked in a background read action under a modal progress, so the UI isn't frozen on big trees.
+   * The history used for balancing the packages is loaded there as well.
+   */
+  @Nullable
+  private Collection<String> findTestPackages(@NotNull final GoTestHistory history) {
+    final Ref<Collection<String>> result = Ref.create();
+    boolean completed = ProgressManager.getInstance().runProcessWithProgressSynchronously(new Runnable() {
+      @Override
+      public void run() {
+        history.load();
+        result.set(ApplicationManager.getApplication().runReadAction(new Computable<Collection<String>>() {
+          @Override
+          public Collection<String> compute() {
+            return collectTestPackages();
+          }
+        }));
+      }
+    }, "Collecting Test Packages", true, myConfiguration.getProject());
+    return completed ? result.get() : null;
+  }
+
+  @Nullable
+  private Collection<String> collectTestPackages() {
+    String directoryPath = myConfiguration.getDirectoryPath();
+    if (!FileUtil.isAbsolutePlatformIndependent(directoryPath)) {
+      directoryPath = FileUtil.join(myConfiguration.getWorkingDirectory(), directoryPath);
+    }
+    final VirtualFile directory = LocalFileSystem.getInstance().findFileByPath(directoryPath);
+    if (directory == null) return null;
+
+    final PsiManager psiManager = PsiManager.getInstance(myConfiguration.getProject());
+    final Collection<String> packages = ContainerUtil.newLinkedHashSet();
+    final Ref<Boolean> outsideOfGoPath = Ref.create(false);
+    VfsUtilCore.visitChildrenRecursively(directory, new VirtualFileVisitor() {
+      @NotNull
+      @Override
+      public Result visitFileEx(@NotNull VirtualFile file) {
+        ProgressManager.checkCanceled();
+        if (file.isDirectory()) {
+          String name = file.getName();
+          boolean ignored = name.startsWith(".") || name.startsWith("_") ||
+                            GoConstants.TESTDATA_NAME.equals(name) || GoConstants.VENDOR.equals(name);
+          return ignored && !file.equals(directory) ? SKIP_CHILDREN : CONTINUE;
+        }
+        if (GoTestFinder.isTestFile(file)) {
+          VirtualFile parent = file.getParent();
+          String importPath = parent != null ? GoSdkUtil.getImportPath(psiManager.findDirectory(parent), false) : null;
+          if (importPath == null) {
+            outsideOfGoPath.set(true);
+            return skipTo(directory);
+          }
+          packages.add(importPath);
+        }
+        return CONTINUE;
+      }
+    });
+    return outsideOfGoPath.get() ? null : packages;
+  }
+
   @Override
   protected GoExecutor patchExecutor(@NotNull GoExecutor executor) throws ExecutionException {
     executor.withParameters("test", "-v");
+    if (myConfiguration.getTestFramework().isJsonOutputSupported(myModule)) {
+      executor.withParameters("-json");
+    }
     executor.withParameterString(myConfiguration.getGoToolParams());
     switch (myConfiguration.getKind()) {
       case DIRECTORY:
+        if (myShardPackages != null) {
+          executor.withParameters(ArrayUtil.toStringArray(myShardPackages));
+          addFilterParameter(executor, ObjectUtils.notNull(myFailedTestsPattern, myConfiguration.getPattern()));
+          break;
+        }
         String relativePath = FileUtil.getRelativePath(myConfiguration.getWorkingDirectory(),
                                                        myConfiguration.getDirectoryPath(),
                                                        File.separatorChar);
-        // TODO Once Go gets support for covering multiple packages the ternary condition should be reverted
-        // See https://golang.org/issues/6909
+        // go test -coverprofile accepts a single package, see https://golang.org/issues/6909.
+        // Packages are run one by one when they can be found, see splitIntoShards()
         String pathSuffix = myCoverageFilePath == null ? "..." : ".";
         if (relativePath != null && !".".equals(relativePath)) {
           executor.withParameters("./" + relativePath + "/" + pathSuffix);
@@ -140,8 +300,13 @@ public class GoTestRunningState extends GoRunningState<GoTestRunConfiguration> {
         break;
     }
 
-    if (myCoverageFilePath != null) {
-      executor.withParameters("-coverprofile=" + myCoverageFilePath, "-covermode=atomic");
+    String coverageFilePath = myShardPackages != null ? myShardCoverageFilePath : myCoverageFilePath;
+    if (coverageFilePath != null) {
+      executor.withParameters("-coverprofile=" + coverageFilePath, "-covermode=atomic");
+      String coverPackages = myConfiguration.getCoverPackages();
+      if (StringUtil.isNotEmpty(coverPackages)) {
+        executor.withParameters("-coverpkg=" + coverPackages);
+      }
     }
 
     return executor;
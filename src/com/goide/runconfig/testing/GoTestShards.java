@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.intellij.openapi.util.Comparing;
+import com.intellij.util.Condition;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Splits packages into shards of about the same total duration according to {@link GoTestHistory}.
+ * The longest packages are distributed first, each to the least loaded shard, so a slow package
+ * doesn't end up queued behind others. Packages that failed last time may go first regardless of duration.
+ */
+public class GoTestShards {
+  static final long DEFAULT_PACKAGE_DURATION = 1000;
+
+  private GoTestShards() {}
+
+  @NotNull
+  public static List<List<String>> split(@NotNull Collection<String> packages,
+                                         int shardCount,
+                                         @NotNull final GoTestHistory history,
+                                         final boolean failedFirst) {
+    final long unknownDuration = estimateUnknownDuration(packages, history);
+    List<String> sorted = ContainerUtil.sorted(packages, new Comparator<String>() {
+      @Override
+      public int compare(@NotNull String o1, @NotNull String o2) {
+        if (failedFirst) {
+          boolean failed1 = history.isPackageFailed(o1);
+          boolean failed2 = history.isPackageFailed(o2);
+          if (failed1 != failed2) return failed1 ? -1 : 1;
+        }
+        int result = Comparing.compare(getDuration(o2, history, unknownDuration), getDuration(o1, history, unknownDuration));
+        return result != 0 ? result : o1.compareTo(o2);
+      }
+    });
+
+    int count = Math.max(1, Math.min(shardCount, sorted.size()));
+    List<List<String>> shards = ContainerUtil.newArrayListWithCapacity(count);
+    long[] loads = new long[count];
+    for (int i = 0; i < count; i++) {
+      shards.add(ContainerUtil.<String>newArrayList());
+    }
+    for (String pkg : sorted) {
+      int lightest = 0;
+      for (int i = 1; i < count; i++) {
+        if (loads[i] < loads[lightest]) lightest = i;
+      }
+      shards.get(lightest).add(pkg);
+      loads[lightest] += getDuration(pkg, history, unknownDuration);
+    }
+    return ContainerUtil.filter(shards, new Condition<List<String>>() {
+      @Override
+      public boolean value(List<String> shard) {
+        return !shard.isEmpty();
+      }
+    });
+  }
+
+  private static long getDuration(@NotNull String pkg, @NotNull GoTestHistory history, long unknownDuration) {
+    long duration = history.getPackageDuration(pkg);
+    return duration >= 0 ? duration : unknownDuration;
+  }
+
+  /**
+   * Packages never run before are assumed to take as long as an average known one.
+   */
+  private static long estimateUnknownDuration(@NotNull Collection<String> packages, @NotNull GoTestHistory history) {
+    long total = 0;
+    int known = 0;
+    for (String pkg : packages) {
+      long duration = history.getPackageDuration(pkg);
+      if (duration >= 0) {
+        total += duration;
+        known++;
+      }
+    }
+    return known > 0 ? Math.max(1, total / known) : DEFAULT_PACKAGE_DURATION;
+  }
+}
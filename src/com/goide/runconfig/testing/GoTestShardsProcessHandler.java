@@ -0,0 +1,294 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.goide.runconfig.testing.frameworks.gotest.GotestJsonEventsConverter.TestEvent;
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.*;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Runs several {@code go test} processes, at most {@code parallelism} at once, and reports them as a single process,
+ * so their results share one test tree.
+ * <p/>
+ * The events converter relies on the order of lines, so output of a shard is passed on in whole packages,
+ * see {@link ShardOutput}.
+ */
+public class GoTestShardsProcessHandler extends ProcessHandler {
+  private static final Pattern PACKAGE_SUMMARY = Pattern.compile("^(ok|FAIL|\\?)\\s+\\S+\\s", Pattern.MULTILINE);
+
+  @NotNull private final List<GeneralCommandLine> myCommandLines;
+  private final int myParallelism;
+  private final boolean myJsonOutput;
+  private final Object myLock = new Object();
+  @NotNull private final List<ProcessHandler> myRunningShards = ContainerUtil.newArrayList();
+  private int myNextShard;
+  private int myStartingShards;
+  private int myExitCode;
+  private boolean myStopped;
+  private boolean myDetached;
+  private boolean myTerminated;
+
+  public GoTestShardsProcessHandler(@NotNull List<GeneralCommandLine> commandLines, int parallelism, boolean jsonOutput) {
+    myCommandLines = ContainerUtil.newArrayList(commandLines);
+    myParallelism = Math.max(1, parallelism);
+    myJsonOutput = jsonOutput;
+  }
+
+  @Override
+  public void startNotify() {
+    super.startNotify();
+    startShards();
+  }
+
+  /**
+   * Called once all the shards are over, before the process is reported as terminated.
+   */
+  protected void allShardsTerminated() {
+  }
+
+  @Override
+  protected void destroyProcessImpl() {
+    stop(false);
+  }
+
+  @Override
+  protected void detachProcessImpl() {
+    stop(true);
+  }
+
+  @Override
+  public boolean detachIsDefault() {
+    return false;
+  }
+
+  @Nullable
+  @Override
+  public OutputStream getProcessInput() {
+    return null;
+  }
+
+  private void stop(boolean detach) {
+    List<ProcessHandler> shards;
+    synchronized (myLock) {
+      myStopped = true;
+      myDetached = detach;
+      shards = ContainerUtil.newArrayList(myRunningShards);
+    }
+    for (ProcessHandler shard : shards) {
+      if (detach) {
+        shard.detachProcess();
+      }
+      else {
+        shard.destroyProcess();
+      }
+    }
+    finishIfDone();
+  }
+
+  private void startShards() {
+    while (true) {
+      GeneralCommandLine commandLine;
+      synchronized (myLock) {
+        if (myStopped || myNextShard >= myCommandLines.size() || myRunningShards.size() + myStartingShards >= myParallelism) break;
+        commandLine = myCommandLines.get(myNextShard++);
+        myStartingShards++;
+      }
+      ProcessHandler shard;
+      try {
+        shard = new KillableColoredProcessHandler(commandLine);
+      }
+      catch (ExecutionException e) {
+        synchronized (myLock) {
+          myStartingShards--;
+          if (myExitCode == 0) myExitCode = 1;
+          notifyTextAvailable(commandLine.getCommandLineString() + ": " + e.getMessage() + "\n", ProcessOutputTypes.STDERR);
+        }
+        continue;
+      }
+      boolean stopped;
+      synchronized (myLock) {
+        myStartingShards--;
+        myRunningShards.add(shard);
+        stopped = myStopped;
+      }
+      shard.addProcessListener(new ShardListener(shard));
+      shard.startNotify();
+      if (stopped) {
+        shard.destroyProcess();
+      }
+    }
+    finishIfDone();
+  }
+
+  private void shardTerminated(@NotNull ProcessHandler shard, int exitCode) {
+    synchronized (myLock) {
+      myRunningShards.remove(shard);
+      if (myExitCode == 0) myExitCode = exitCode;
+    }
+    startShards();
+  }
+
+  private void finishIfDone() {
+    boolean detached;
+    synchronized (myLock) {
+      boolean allStarted = myStopped || myNextShard >= myCommandLines.size();
+      if (myTerminated || !allStarted || !myRunningShards.isEmpty() || myStartingShards > 0) return;
+      myTerminated = true;
+      detached = myDetached;
+    }
+    allShardsTerminated();
+    if (detached) {
+      notifyProcessDetached();
+    }
+    else {
+      notifyProcessTerminated(myExitCode);
+    }
+  }
+
+  private class ShardListener extends ProcessAdapter {
+    @NotNull private final ProcessHandler myShard;
+    private final ShardOutput myOutput = new ShardOutput(myJsonOutput);
+
+    public ShardListener(@NotNull ProcessHandler shard) {
+      myShard = shard;
+    }
+
+    @Override
+    public void onTextAvailable(@NotNull ProcessEvent event, Key outputType) {
+      List<Pair<String, Key>> output;
+      synchronized (this) {
+        output = myOutput.add(event.getText(), outputType);
+      }
+      passOn(output);
+    }
+
+    @Override
+    public void processTerminated(@NotNull ProcessEvent event) {
+      List<Pair<String, Key>> output;
+      synchronized (this) {
+        output = myOutput.flush();
+      }
+      passOn(output);
+      shardTerminated(myShard, event.getExitCode());
+    }
+
+    private void passOn(@NotNull List<Pair<String, Key>> output) {
+      if (output.isEmpty()) return;
+      synchronized (myLock) {
+        for (Pair<String, Key> pair : output) {
+          notifyTextAvailable(pair.first, pair.second);
+        }
+      }
+    }
+  }
+
+  /**
+   * Output of a single shard, held back until a package is complete.
+   * Plain output is passed on at package summary lines. {@code go test -json} interleaves events of packages tested in
+   * parallel, so its lines are collected per package and passed on at the package-level pass, fail or skip event.
+   * Lines without a package go with the last package of the shard.
+   */
+  static class ShardOutput {
+    private final boolean myJsonOutput;
+    private final List<Pair<String, Key>> myPendingOutput = ContainerUtil.newArrayList();
+    private final Map<String, List<Pair<String, Key>>> myPackageOutput = ContainerUtil.newLinkedHashMap();
+    private final StringBuilder myLine = new StringBuilder();
+    @Nullable private String myLastPackage;
+
+    ShardOutput(boolean jsonOutput) {
+      myJsonOutput = jsonOutput;
+    }
+
+    /**
+     * @return output which is ready to be passed on
+     */
+    @NotNull
+    List<Pair<String, Key>> add(@NotNull String text, @NotNull Key outputType) {
+      if (outputType == ProcessOutputTypes.STDERR || outputType == ProcessOutputTypes.SYSTEM) {
+        myPendingOutput.add(Pair.create(text, outputType));
+        return Collections.emptyList();
+      }
+      if (!myJsonOutput) {
+        myPendingOutput.add(Pair.create(text, outputType));
+      }
+      myLine.append(text);
+      if (!StringUtil.endsWithChar(text, '\n')) return Collections.emptyList();
+      String line = myLine.toString();
+      myLine.setLength(0);
+      if (myJsonOutput) return addJsonLine(line, outputType);
+      return PACKAGE_SUMMARY.matcher(line).find() ? flush() : Collections.<Pair<String, Key>>emptyList();
+    }
+
+    @NotNull
+    private List<Pair<String, Key>> addJsonLine(@NotNull String line, @NotNull Key outputType) {
+      TestEvent event = StringUtil.startsWithChar(line, '{') ? TestEvent.parse(line) : null;
+      String pkg = event != null && event.getPackage() != null ? event.getPackage() : myLastPackage;
+      if (pkg == null) {
+        myPendingOutput.add(Pair.create(line, outputType));
+        return Collections.emptyList();
+      }
+      myLastPackage = pkg;
+      List<Pair<String, Key>> packageOutput = myPackageOutput.get(pkg);
+      if (packageOutput == null) {
+        packageOutput = ContainerUtil.newArrayList();
+        myPackageOutput.put(pkg, packageOutput);
+      }
+      packageOutput.add(Pair.create(line, outputType));
+      if (event == null || event.getTest() != null || !isPackageFinished(event.getAction())) return Collections.emptyList();
+
+      List<Pair<String, Key>> result = ContainerUtil.newArrayList(myPendingOutput);
+      result.addAll(myPackageOutput.remove(pkg));
+      myPendingOutput.clear();
+      return result;
+    }
+
+    /**
+     * @return all the output held back, e.g. when the shard terminates
+     */
+    @NotNull
+    List<Pair<String, Key>> flush() {
+      List<Pair<String, Key>> result = ContainerUtil.newArrayList(myPendingOutput);
+      for (List<Pair<String, Key>> packageOutput : myPackageOutput.values()) {
+        result.addAll(packageOutput);
+      }
+      if (myJsonOutput && myLine.length() > 0) {
+        result.add(Pair.<String, Key>create(myLine.toString(), ProcessOutputTypes.STDOUT));
+      }
+      myPendingOutput.clear();
+      myPackageOutput.clear();
+      myLine.setLength(0);
+      return result;
+    }
+
+    private static boolean isPackageFinished(@Nullable String action) {
+      return "pass".equals(action) || "fail".equals(action) || "skip".equals(action);
+    }
+  }
+}
@@ -27,9 +27,8 @@ import com.intellij.openapi.roots.FileIndexFacade;
 import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Factory;
-import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.openapi.vfs.VirtualFileVisitor;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiFile;
 import com.intellij.rt.coverage.data.ProjectData;
@@ -193,58 +192,70 @@ public class GoCoverageAnnotator extends BaseCoverageAnnotator {
     return total != 0 ? (double)covered / total : 0;
   }
 
-  public void annotateAllFiles(@NotNull final GoCoverageProjectData data,
-                               @Nullable VirtualFile... contentRoots) {
-    if (contentRoots != null) {
-      for (VirtualFile root : contentRoots) {
-        VfsUtilCore.visitChildrenRecursively(root, new VirtualFileVisitor() {
-          @NotNull
-          @Override
-          public Result visitFileEx(@NotNull VirtualFile file) {
-            ProgressIndicatorProvider.checkCanceled();
-
-            if (file.isDirectory() && !FileIndexFacade.getInstance(getProject()).isInContent(file)) {
-              return SKIP_CHILDREN;
-            }
-            if (!file.isDirectory() && GoCoverageEngine.INSTANCE.coverageProjectViewStatisticsApplicableTo(file)) {
-              DirCoverageInfo dirCoverageInfo = getOrCreateDirectoryInfo(file.getParent());
-              final FileCoverageInfo fileCoverageInfo = getOrCreateFileInfo(file);
-              data.processFile(file.getPath(), new Processor<GoCoverageProjectData.RangeData>() {
-                @Override
-                public boolean process(GoCoverageProjectData.RangeData rangeData) {
-                  if (rangeData.hits > 0) {
-                    fileCoverageInfo.coveredLineCount += rangeData.statements;
-                  }
-                  fileCoverageInfo.totalLineCount += rangeData.statements;
-                  return true;
-                }
-              });
-
-              if (fileCoverageInfo.totalLineCount > 0) {
-                dirCoverageInfo.totalLineCount += fileCoverageInfo.totalLineCount;
-                dirCoverageInfo.totalFilesCount++;
-              }
-              if (fileCoverageInfo.coveredLineCount > 0) {
-                dirCoverageInfo.coveredLineCount += fileCoverageInfo.coveredLineCount;
-                dirCoverageInfo.coveredFilesCount++;
-              }
-            }
-            return CONTINUE;
+  /**
+   * Annotates the files of the profile lying under the content roots and their ancestor directories up to the roots,
+   * so the time depends on the size of the profile rather than the size of the project.
+   */
+  public void annotateAllFiles(@NotNull GoCoverageProjectData data, @Nullable final VirtualFile... contentRoots) {
+    if (contentRoots == null || contentRoots.length == 0) return;
+    final FileIndexFacade fileIndex = FileIndexFacade.getInstance(getProject());
+    data.processFiles(new Processor<GoCoverageProjectData.FileData>() {
+      @Override
+      public boolean process(GoCoverageProjectData.FileData fileData) {
+        ProgressIndicatorProvider.checkCanceled();
+        VirtualFile root = findOutermostRoot(fileData.myFilePath, contentRoots);
+        String relativePath = root != null ? FileUtil.getRelativePath(root.getPath(), fileData.myFilePath, '/') : null;
+        VirtualFile file = relativePath != null ? root.findFileByRelativePath(relativePath) : null;
+        if (file == null || file.isDirectory() || !fileIndex.isInContent(file) ||
+            !GoCoverageEngine.INSTANCE.coverageProjectViewStatisticsApplicableTo(file)) {
+          return true;
+        }
+
+        int totalLineCount = 0;
+        int coveredLineCount = 0;
+        int count = fileData.getRangeCount();
+        for (int i = 0; i < count; i++) {
+          int statements = fileData.getStatements(i);
+          if (fileData.getHits(i) > 0) {
+            coveredLineCount += statements;
           }
+          totalLineCount += statements;
+        }
+        FileCoverageInfo fileCoverageInfo = getOrCreateFileInfo(file);
+        fileCoverageInfo.totalLineCount += totalLineCount;
+        fileCoverageInfo.coveredLineCount += coveredLineCount;
 
-          @Override
-          public void afterChildrenVisited(@NotNull VirtualFile file) {
-            if (file.isDirectory()) {
-              DirCoverageInfo currentCoverageInfo = getOrCreateDirectoryInfo(file);
-              DirCoverageInfo parentCoverageInfo = getOrCreateDirectoryInfo(file.getParent());
-              parentCoverageInfo.totalFilesCount += currentCoverageInfo.totalFilesCount;
-              parentCoverageInfo.coveredFilesCount += currentCoverageInfo.coveredFilesCount;
-              parentCoverageInfo.totalLineCount += currentCoverageInfo.totalLineCount;
-              parentCoverageInfo.coveredLineCount += currentCoverageInfo.coveredLineCount;
-            }
+        VirtualFile directory = file;
+        do {
+          directory = directory.getParent();
+          DirCoverageInfo dirCoverageInfo = getOrCreateDirectoryInfo(directory);
+          if (totalLineCount > 0) {
+            dirCoverageInfo.totalLineCount += totalLineCount;
+            dirCoverageInfo.totalFilesCount++;
+          }
+          if (coveredLineCount > 0) {
+            dirCoverageInfo.coveredLineCount += coveredLineCount;
+            dirCoverageInfo.coveredFilesCount++;
           }
-        });
+        }
+        while (!root.equals(directory));
+        return true;
+      }
+    });
+  }
+
+  /**
+   * Nested content roots are skipped in favour of the outer one, so every file is counted once in every directory.
+   */
+  @Nullable
+  private static VirtualFile findOutermostRoot(@NotNull String filePath, @NotNull VirtualFile[] roots) {
+    VirtualFile result = null;
+    for (VirtualFile root : roots) {
+      if (root != null && FileUtil.isAncestor(root.getPath(), filePath, true) &&
+          (result == null || root.getPath().length() < result.getPath().length())) {
+        result = root;
       }
     }
+    return result;
   }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing.coverage;
+
+import com.goide.sdk.GoPackageUtil;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Single pass parser of {@code go test -coverprofile} output working on bytes, profiles of large projects have millions of lines.
+ * A line looks like {@code import/path/file.go:startLine.startColumn,endLine.endColumn statements hits}.
+ * Consecutive lines usually belong to the same file, so a file name is decoded and resolved only when it changes.
+ */
+class GoCoverageProfileParser {
+  private static final byte[] MODE_PREFIX = "mode:".getBytes(CharsetToolkit.UTF8_CHARSET);
+  private static final byte[] SEPARATORS = {'.', ',', '.', ' ', ' '};
+
+  @NotNull private final GoCoverageProjectData myData;
+  @NotNull private final Project myProject;
+  @Nullable private final Module myModule;
+  @NotNull private final Map<String, String> myResolvedPaths = ContainerUtil.newHashMap();
+  @NotNull private final int[] myNumbers = new int[SEPARATORS.length + 1];
+
+  @NotNull private byte[] myLine = new byte[256];
+  private int myLineLength;
+  @NotNull private byte[] myLastName = new byte[0];
+  @Nullable private GoCoverageProjectData.FileData myLastFileData;
+
+  GoCoverageProfileParser(@NotNull GoCoverageProjectData data, @NotNull Project project, @Nullable Module module) {
+    myData = data;
+    myProject = project;
+    myModule = module;
+  }
+
+  void parse(@NotNull InputStream input) throws IOException {
+    byte[] buffer = new byte[64 * 1024];
+    int read;
+    while ((read = input.read(buffer)) >= 0) {
+      int lineStart = 0;
+      for (int i = 0; i < read; i++) {
+        if (buffer[i] == '\n') {
+          appendToLine(buffer, lineStart, i);
+          processLine();
+          lineStart = i + 1;
+        }
+      }
+      appendToLine(buffer, lineStart, read);
+    }
+    processLine();
+  }
+
+  private void appendToLine(@NotNull byte[] buffer, int from, int to) {
+    int length = to - from;
+    if (length <= 0) return;
+    if (myLineLength + length > myLine.length) {
+      myLine = Arrays.copyOf(myLine, Math.max(myLine.length * 2, myLineLength + length));
+    }
+    System.arraycopy(buffer, from, myLine, myLineLength, length);
+    myLineLength += length;
+  }
+
+  private void processLine() {
+    int length = myLineLength;
+    myLineLength = 0;
+    if (length > 0 && myLine[length - 1] == '\r') length--;
+    if (length == 0 || startsWith(MODE_PREFIX, length)) return;
+
+    int colon = length - 1;
+    while (colon > 0 && myLine[colon] != ':') colon--;
+    if (colon <= 0) return;
+
+    int position = colon + 1;
+    for (int i = 0; i < myNumbers.length; i++) {
+      int start = position;
+      long value = 0;
+      while (position < length && myLine[position] >= '0' && myLine[position] <= '9') {
+        value = Math.min(value * 10 + myLine[position++] - '0', Integer.MAX_VALUE);
+      }
+      if (position == start) return;
+      myNumbers[i] = (int)value;
+      if (i < SEPARATORS.length) {
+        if (position >= length || myLine[position] != SEPARATORS[i]) return;
+        position++;
+      }
+    }
+    if (position != length) return;
+
+    GoCoverageProjectData.FileData fileData = getFileData(colon);
+    if (fileData != null) {
+      fileData.add(myNumbers[0], myNumbers[1], myNumbers[2], myNumbers[3], myNumbers[4], myNumbers[5]);
+    }
+  }
+
+  @Nullable
+  private GoCoverageProjectData.FileData getFileData(int nameLength) {
+    if (nameLength == myLastName.length && startsWith(myLastName, nameLength)) {
+      return myLastFileData;
+    }
+    myLastName = Arrays.copyOf(myLine, nameLength);
+    String name = new String(myLastName, CharsetToolkit.UTF8_CHARSET);
+    String filePath;
+    if (myResolvedPaths.containsKey(name)) {
+      filePath = myResolvedPaths.get(name);
+    }
+    else {
+      VirtualFile file = GoPackageUtil.findByImportPath(name, myProject, myModule);
+      filePath = file != null ? file.getPath() : null;
+      myResolvedPaths.put(name, filePath);
+    }
+    myLastFileData = filePath != null ? myData.getOrCreateFileData(filePath) : null;
+    return myLastFileData;
+  }
+
+  private boolean startsWith(@NotNull byte[] prefix, int length) {
+    if (prefix.length > length) return false;
+    for (int i = 0; i < prefix.length; i++) {
+      if (myLine[i] != prefix[i]) return false;
+    }
+    return true;
+  }
+}
@@ -19,10 +19,13 @@ package com.goide.runconfig.testing.coverage;
 import com.intellij.openapi.util.Factory;
 import com.intellij.rt.coverage.data.CoverageData;
 import com.intellij.rt.coverage.data.ProjectData;
+import com.intellij.util.ArrayUtil;
 import com.intellij.util.Processor;
 import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
 import java.util.Map;
 
 public class GoCoverageProjectData extends ProjectData {
@@ -40,53 +43,55 @@ public class GoCoverageProjectData extends ProjectData {
   public void processFile(@NotNull String filePath, @NotNull Processor<RangeData> processor) {
     FileData fileData = myFilesData.get(filePath);
     if (fileData != null) {
-      for (RangeData rangeData : fileData.myRangesData.values()) {
-        if (!processor.process(rangeData)) {
+      int count = fileData.getRangeCount();
+      for (int i = 0; i < count; i++) {
+        if (!processor.process(fileData.getRange(i))) {
           return;
         }
       }
     }
   }
 
-  public void addData(final String filePath, int startLine, int startColumn, int endLine, int endColumn, int statements, int hits) {
-    FileData fileData = ContainerUtil.getOrCreate(myFilesData, filePath, new Factory<FileData>() {
+  @Nullable
+  public FileData getFileData(@NotNull String filePath) {
+    return myFilesData.get(filePath);
+  }
+
+  @NotNull
+  public FileData getOrCreateFileData(@NotNull final String filePath) {
+    return ContainerUtil.getOrCreate(myFilesData, filePath, new Factory<FileData>() {
       @Override
       public FileData create() {
         return new FileData(filePath);
       }
     });
-    fileData.add(startLine, startColumn, endLine, endColumn, statements, hits);
+  }
+
+  public void addData(String filePath, int startLine, int startColumn, int endLine, int endColumn, int statements, int hits) {
+    getOrCreateFileData(filePath).add(startLine, startColumn, endLine, endColumn, statements, hits);
   }
 
   @Override
   public void merge(CoverageData data) {
     super.merge(data);
     if (data instanceof GoCoverageProjectData) {
-      for (Map.Entry<String, FileData> entry : ((GoCoverageProjectData)data).myFilesData.entrySet()) {
-        String filePath = entry.getKey();
-        FileData fileData = myFilesData.get(filePath);
-        FileData fileDataToMerge = entry.getValue();
-        if (fileData != null) {
-          for (Map.Entry<String, RangeData> dataEntry : fileDataToMerge.myRangesData.entrySet()) {
-            RangeData existingRangeData = fileData.myRangesData.get(dataEntry.getKey());
-            if (existingRangeData != null) {
-              fileData.myRangesData.put(dataEntry.getKey(),
-                                        new RangeData(existingRangeData.startLine, existingRangeData.startColumn, existingRangeData.endLine,
-                                                      existingRangeData.endColumn, existingRangeData.statements,
-                                                      existingRangeData.hits + dataEntry.getValue().hits));
-            }
-            else {
-              fileData.myRangesData.put(dataEntry.getKey(), dataEntry.getValue());
-            }
-          }
-        }
-        else {
-          myFilesData.put(filePath, fileDataToMerge);
-        }
+      for (FileData fileData : ((GoCoverageProjectData)data).myFilesData.values()) {
+        FileData merged = getOrCreateFileData(fileData.myFilePath);
+        merged.addAll(fileData);
+        merged.compact();
       }
     }
   }
 
+  /**
+   * Sorts and deduplicates ranges of every file, called once all ranges are added.
+   */
+  public void compact() {
+    for (FileData fileData : myFilesData.values()) {
+      fileData.compact();
+    }
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -101,19 +106,159 @@ public class GoCoverageProjectData extends ProjectData {
     return myFilesData.hashCode();
   }
 
+  /**
+   * Ranges of a file kept in a single int array, six values per range. Ranges are added in any order and get sorted
+   * by position on {@link #compact()}, the same range added several times, e.g. by merged profiles, is stored once with summed hits.
+   */
   public static class FileData {
+    private static final int START_LINE = 0;
+    private static final int START_COLUMN = 1;
+    private static final int END_LINE = 2;
+    private static final int END_COLUMN = 3;
+    private static final int STATEMENTS = 4;
+    private static final int HITS = 5;
+    private static final int FIELDS = 6;
+
     @NotNull
     public final String myFilePath;
     @NotNull
-    public final Map<String, RangeData> myRangesData = ContainerUtil.newHashMap();
+    private int[] myRanges = ArrayUtil.EMPTY_INT_ARRAY;
+    private int mySize;
+    private boolean myCompacted = true;
 
     public FileData(@NotNull String filePath) {
       myFilePath = filePath;
     }
 
-    public void add(int startLine, int startColumn, int endLine, int endColumn, int statements, int hits) {
-      myRangesData.put(rangeKey(startLine, startColumn, endLine, endColumn),
-                       new RangeData(startLine, startColumn, endLine, endColumn, statements, hits));
+    public synchronized void add(int startLine, int startColumn, int endLine, int endColumn, int statements, int hits) {
+      ensureCapacity(mySize + 1);
+      int offset = mySize * FIELDS;
+      myRanges[offset + START_LINE] = startLine;
+      myRanges[offset + START_COLUMN] = startColumn;
+      myRanges[offset + END_LINE] = endLine;
+      myRanges[offset + END_COLUMN] = endColumn;
+      myRanges[offset + STATEMENTS] = statements;
+      myRanges[offset + HITS] = hits;
+      mySize++;
+      myCompacted = false;
+    }
+
+    public synchronized void addAll(@NotNull FileData data) {
+      int count = data.getRangeCount();
+      ensureCapacity(mySize + count);
+      System.arraycopy(data.myRanges, 0, myRanges, mySize * FIELDS, count * FIELDS);
+      mySize += count;
+      myCompacted = false;
+    }
+
+    /**
+     * Range indices are ordered by start position once the data is compacted and stay valid until the next modification.
+     */
+    public synchronized int getRangeCount() {
+      return mySize;
+    }
+
+    public int getStartLine(int index) {
+      return myRanges[index * FIELDS + START_LINE];
+    }
+
+    public int getStartColumn(int index) {
+      return myRanges[index * FIELDS + START_COLUMN];
+    }
+
+    public int getEndLine(int index) {
+      return myRanges[index * FIELDS + END_LINE];
+    }
+
+    public int getEndColumn(int index) {
+      return myRanges[index * FIELDS + END_COLUMN];
+    }
+
+    public int getStatements(int index) {
+      return myRanges[index * FIELDS + STATEMENTS];
+    }
+
+    public int getHits(int index) {
+      return myRanges[index * FIELDS + HITS];
+    }
+
+    @NotNull
+    public RangeData getRange(int index) {
+      return new RangeData(getStartLine(index), getStartColumn(index), getEndLine(index), getEndColumn(index), getStatements(index),
+                           getHits(index));
+    }
+
+    private void ensureCapacity(int size) {
+      if (size * FIELDS > myRanges.length) {
+        myRanges = Arrays.copyOf(myRanges, Math.max(size, mySize * 2 + 16) * FIELDS);
+      }
+    }
+
+    /**
+     * Sorts ranges by position and merges duplicates into one range with summed hits.
+     */
+    public synchronized void compact() {
+      if (myCompacted) return;
+      int[] order = new int[mySize];
+      for (int i = 0; i < mySize; i++) {
+        order[i] = i;
+      }
+      if (!isSorted()) {
+        sort(order, new int[mySize], 0, mySize);
+      }
+
+      int[] ranges = new int[mySize * FIELDS];
+      int size = 0;
+      for (int index : order) {
+        int offset = index * FIELDS;
+        int last = (size - 1) * FIELDS;
+        if (size > 0 && compareRanges(myRanges, offset, ranges, last) == 0) {
+          ranges[last + HITS] = sumHits(ranges[last + HITS], myRanges[offset + HITS]);
+          continue;
+        }
+        System.arraycopy(myRanges, offset, ranges, size * FIELDS, FIELDS);
+        size++;
+      }
+      myRanges = size == mySize ? ranges : Arrays.copyOf(ranges, size * FIELDS);
+      mySize = size;
+      myCompacted = true;
+    }
+
+    private boolean isSorted() {
+      for (int i = 1; i < mySize; i++) {
+        if (compareRanges(myRanges, (i - 1) * FIELDS, myRanges, i * FIELDS) > 0) return false;
+      }
+      return true;
+    }
+
+    /**
+     * Stable merge sort of range indices, avoids boxing of a comparator-based sort.
+     */
+    private void sort(@NotNull int[] order, @NotNull int[] buffer, int from, int to) {
+      if (to - from < 2) return;
+      int middle = (from + to) >>> 1;
+      sort(order, buffer, from, middle);
+      sort(order, buffer, middle, to);
+      int left = from;
+      int right = middle;
+      for (int i = from; i < to; i++) {
+        if (right >= to || left < middle && compareRanges(myRanges, order[left] * FIELDS, myRanges, order[right] * FIELDS) <= 0) {
+          buffer[i] = order[left++];
+        }
+        else {
+          buffer[i] = order[right++];
+        }
+      }
+      System.arraycopy(buffer, from, order, from, to - from);
+    }
+
+    private static int compareRanges(@NotNull int[] ranges1, int offset1, @NotNull int[] ranges2, int offset2) {
+      for (int field = START_LINE; field <= END_COLUMN; field++) {
+        int value1 = ranges1[offset1 + field];
+        int value2 = ranges2[offset2 + field];
+        if (value1 != value2) return value1 < value2 ? -1 : 1;
+      }
+      return 0;
     }
 
     @Override
@@ -123,14 +268,19 @@ public class GoCoverageProjectData extends ProjectData {
 
       FileData fileData = (FileData)o;
 
-      if (!myFilePath.equals(fileData.myFilePath)) return false;
-      return myRangesData.equals(fileData.myRangesData);
+      if (!myFilePath.equals(fileData.myFilePath) || mySize != fileData.mySize) return false;
+      for (int i = 0; i < mySize * FIELDS; i++) {
+        if (myRanges[i] != fileData.myRanges[i]) return false;
+      }
+      return true;
     }
 
     @Override
     public int hashCode() {
       int result = myFilePath.hashCode();
-      result = 31 * result + myRangesData.hashCode();
+      for (int i = 0; i < mySize * FIELDS; i++) {
+        result = 31 * result + myRanges[i];
+      }
       return result;
     }
   }
@@ -180,11 +330,15 @@ public class GoCoverageProjectData extends ProjectData {
 
     @Override
     public String toString() {
-      return rangeKey(startLine, startColumn, endLine, endColumn) + "; hits: " + hits + "; statements: " + statements;
+      return startLine + ":" + startColumn + "-" + endLine + ":" + endColumn + "; hits: " + hits + "; statements: " + statements;
     }
   }
 
-  private static String rangeKey(int startLine, int startColumn, int endLine, int endColumn) {
-    return startLine + ":" + startColumn + "-" + endLine + ":" + endColumn;
+  /**
+   * Hit counters of {@code -covermode=atomic} profiles are unsigned 32-bit, sums saturate instead of overflowing.
+   */
+  static int sumHits(int hits1, int hits2) {
+    long sum = (long)hits1 + hits2;
+    return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)sum;
   }
 }
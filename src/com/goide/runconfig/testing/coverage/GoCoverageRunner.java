@@ -17,7 +17,6 @@
 package com.goide.runconfig.testing.coverage;
 
 import com.goide.GoConstants;
-import com.goide.sdk.GoPackageUtil;
 import com.intellij.coverage.BaseCoverageSuite;
 import com.intellij.coverage.CoverageEngine;
 import com.intellij.coverage.CoverageRunner;
@@ -27,19 +26,15 @@ import com.intellij.execution.configurations.RunConfigurationBase;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.text.StringUtil;
-import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.CharsetToolkit;
 import com.intellij.rt.coverage.data.ClassData;
 import com.intellij.rt.coverage.data.LineData;
 import com.intellij.rt.coverage.data.ProjectData;
 import com.intellij.util.Processor;
-import gnu.trove.TIntObjectHashMap;
-import gnu.trove.TObjectProcedure;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
-import java.util.List;
 
 public class GoCoverageRunner extends CoverageRunner {
   private static final Logger LOG = Logger.getInstance(GoCoverageRunner.class);
@@ -63,16 +58,16 @@ public class GoCoverageRunner extends CoverageRunner {
                     : null;
 
     try {
-      BufferedReader reader = new BufferedReader(new FileReader(sessionDataFile.getAbsolutePath()));
+      InputStream input = new BufferedInputStream(new FileInputStream(sessionDataFile));
       try {
-        return parseCoverage(reader, project, module);
+        return parseCoverage(input, project, module);
       }
       catch (IOException e) {
         LOG.warn(e);
       }
       finally {
         try {
-          reader.close();
+          input.close();
         }
         catch (IOException e) {
           LOG.warn(e);
@@ -87,72 +82,45 @@ public class GoCoverageRunner extends CoverageRunner {
   }
 
   @Nullable
-  public static GoCoverageProjectData parseCoverage(@NotNull BufferedReader dataReader,
+  public static GoCoverageProjectData parseCoverage(@NotNull InputStream input,
                                                     @NotNull Project project,
                                                     @Nullable Module module) throws IOException {
     final GoCoverageProjectData result = new GoCoverageProjectData();
-    String line;
-
-    while ((line = dataReader.readLine()) != null) {
-      if (line.isEmpty()) continue;
-      List<String> fileNameTail = StringUtil.split(line, ":");
-      VirtualFile file = GoPackageUtil.findByImportPath(fileNameTail.get(0), project, module);
-      if (file == null) continue;
-      String filePath = file.getPath();
-
-      List<String> tailParts = StringUtil.split(fileNameTail.get(1), " ");
-      if (tailParts.size() != 3) continue;
-
-      int statements = Integer.parseInt(tailParts.get(1));
-      int hit = Integer.parseInt(tailParts.get(2));
-
-      String offsets = tailParts.get(0);
-      int firstDot = offsets.indexOf('.');
-      int comma = offsets.indexOf(',', firstDot);
-      int secondDot = offsets.indexOf('.', comma);
-      if (firstDot == -1 || comma == -1 || secondDot == -1) continue;
-
-      int lineStart = Integer.parseInt(offsets.substring(0, firstDot));
-      int columnStart = Integer.parseInt(offsets.substring(firstDot + 1, comma));
-      int lineEnd = Integer.parseInt(offsets.substring(comma + 1, secondDot));
-      int columnEnd = Integer.parseInt(offsets.substring(secondDot + 1));
-
-      result.addData(filePath, lineStart, columnStart, lineEnd, columnEnd, statements, hit);
-    }
+    new GoCoverageProfileParser(result, project, module).parse(input);
+    result.compact();
 
     result.processFiles(new Processor<GoCoverageProjectData.FileData>() {
       @Override
       public boolean process(GoCoverageProjectData.FileData fileData) {
         ClassData classData = result.getOrCreateClassData(fileData.myFilePath);
+        int count = fileData.getRangeCount();
         int max = -1;
-        TIntObjectHashMap<LineData> linesMap = new TIntObjectHashMap<LineData>();
-        for (GoCoverageProjectData.RangeData rangeData : fileData.myRangesData.values()) {
-          for (int i = rangeData.startLine; i <= rangeData.endLine; i++) {
-            LineData existingData = linesMap.get(i);
+        for (int i = 0; i < count; i++) {
+          max = Math.max(max, fileData.getEndLine(i));
+        }
+        LineData[] linesArray = new LineData[max + 1];
+        for (int i = 0; i < count; i++) {
+          int hits = fileData.getHits(i);
+          for (int line = Math.max(0, fileData.getStartLine(i)); line <= fileData.getEndLine(i); line++) {
+            LineData existingData = linesArray[line];
             if (existingData != null) {
-              existingData.setHits(existingData.getHits() + rangeData.hits);
+              existingData.setHits(GoCoverageProjectData.sumHits(existingData.getHits(), hits));
               // emulate partial
               existingData.setFalseHits(0, 0);
               existingData.setTrueHits(0, 0);
             }
             else {
-              LineData newData = new LineData(i, null);
-              newData.setHits(newData.getHits() + rangeData.hits);
-              linesMap.put(i, newData);
+              LineData newData = new LineData(line, null);
+              newData.setHits(hits);
+              linesArray[line] = newData;
             }
           }
-          max = Math.max(max, rangeData.endLine);
         }
-
-        final LineData[] linesArray = new LineData[max + 1];
-        linesMap.forEachValue(new TObjectProcedure<LineData>() {
-          @Override
-          public boolean execute(LineData data) {
+        for (LineData data : linesArray) {
+          if (data != null) {
             data.fillArrays();
-            linesArray[data.getLineNumber()] = data;
-            return true;
           }
-        });
+        }
         classData.setLines(linesArray);
         return true;
       }
@@ -161,6 +129,39 @@ public class GoCoverageRunner extends CoverageRunner {
     return result;
   }
 
+  /**
+   * Concatenates coverage profiles written by separate {@code go test} processes into a single profile.
+   * Blocks covered by several profiles, e.g. with {@code -coverpkg}, are kept as is and summed up on loading.
+   * Missing profiles are skipped since a process may fail before writing one.
+   */
+  public static void mergeProfiles(@NotNull Iterable<File> profiles, @NotNull File target) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(target), CharsetToolkit.UTF8_CHARSET));
+    try {
+      boolean modeWritten = false;
+      for (File profile : profiles) {
+        if (!profile.isFile()) continue;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(profile), CharsetToolkit.UTF8_CHARSET));
+        try {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            if (line.startsWith("mode:")) {
+              if (modeWritten) continue;
+              modeWritten = true;
+            }
+            writer.write(line);
+            writer.write('\n');
+          }
+        }
+        finally {
+          reader.close();
+        }
+      }
+    }
+    finally {
+      writer.close();
+    }
+  }
+
   @Override
   public String getPresentableName() {
     return PRESENTABLE_NAME;
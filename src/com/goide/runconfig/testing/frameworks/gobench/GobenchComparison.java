@@ -0,0 +1,142 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing.frameworks.gobench;
+
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Statistical comparison of one metric of a benchmark between baseline and current samples.
+ */
+public class GobenchComparison {
+  public enum Verdict {REGRESSED, IMPROVED, UNCHANGED}
+
+  @NotNull private final String myUnit;
+  private final double myBaselineMedian;
+  private final double myMedian;
+  private final double myPValue;
+  @NotNull private final Verdict myVerdict;
+
+  public GobenchComparison(@NotNull String unit, double baselineMedian, double median, double pValue, @NotNull Verdict verdict) {
+    myUnit = unit;
+    myBaselineMedian = baselineMedian;
+    myMedian = median;
+    myPValue = pValue;
+    myVerdict = verdict;
+  }
+
+  /**
+   * Compares medians of every metric present in both sample sets. A change is reported only if the Mann-Whitney test
+   * finds it significant at the given level and the unit tells which direction is better.
+   */
+  @NotNull
+  public static List<GobenchComparison> compare(@NotNull Collection<GobenchResult> baseline,
+                                                @NotNull Collection<GobenchResult> samples,
+                                                double significanceLevel) {
+    Set<String> units = ContainerUtil.newLinkedHashSet();
+    for (GobenchResult sample : samples) {
+      units.addAll(sample.getMetrics().keySet());
+    }
+    List<GobenchComparison> result = ContainerUtil.newArrayList();
+    for (String unit : units) {
+      double[] baselineValues = values(baseline, unit);
+      double[] values = values(samples, unit);
+      if (baselineValues.length == 0 || values.length == 0) continue;
+
+      double baselineMedian = GobenchStatistics.median(baselineValues);
+      double median = GobenchStatistics.median(values);
+      double pValue = GobenchStatistics.mannWhitneyPValue(baselineValues, values);
+      int sign = GobenchResult.getImprovementSign(unit);
+      Verdict verdict = Verdict.UNCHANGED;
+      if (pValue < significanceLevel && sign != 0 && median != baselineMedian) {
+        verdict = (median - baselineMedian) * sign > 0 ? Verdict.IMPROVED : Verdict.REGRESSED;
+      }
+      result.add(new GobenchComparison(unit, baselineMedian, median, pValue, verdict));
+    }
+    return result;
+  }
+
+  /**
+   * Collapses samples of the same benchmark into one result holding the median of every metric.
+   */
+  @Nullable
+  public static GobenchResult median(@NotNull Collection<GobenchResult> samples) {
+    GobenchResult first = ContainerUtil.getFirstItem(samples);
+    if (first == null) return null;
+    if (samples.size() == 1) return first;
+    Set<String> units = ContainerUtil.newLinkedHashSet();
+    double[] iterations = new double[samples.size()];
+    int count = 0;
+    for (GobenchResult sample : samples) {
+      units.addAll(sample.getMetrics().keySet());
+      iterations[count++] = sample.getIterations();
+    }
+    Map<String, Double> metrics = ContainerUtil.newLinkedHashMap();
+    for (String unit : units) {
+      metrics.put(unit, GobenchStatistics.median(values(samples, unit)));
+    }
+    return new GobenchResult(first.getName(), (long)GobenchStatistics.median(iterations), metrics);
+  }
+
+  @NotNull
+  private static double[] values(@NotNull Collection<GobenchResult> samples, @NotNull String unit) {
+    double[] values = new double[samples.size()];
+    int count = 0;
+    for (GobenchResult sample : samples) {
+      Double value = sample.getMetric(unit);
+      if (value != null) {
+        values[count++] = value;
+      }
+    }
+    return count == values.length ? values : Arrays.copyOf(values, count);
+  }
+
+  @NotNull
+  public String getUnit() {
+    return myUnit;
+  }
+
+  public double getBaselineMedian() {
+    return myBaselineMedian;
+  }
+
+  public double getMedian() {
+    return myMedian;
+  }
+
+  public double getPValue() {
+    return myPValue;
+  }
+
+  @NotNull
+  public Verdict getVerdict() {
+    return myVerdict;
+  }
+
+  @Override
+  public String toString() {
+    return myUnit + " " + GobenchResult.formatChange(myBaselineMedian, myMedian) + String.format(Locale.US, " p=%.3f", myPValue);
+  }
+}
@@ -17,24 +17,71 @@
 package com.goide.runconfig.testing.frameworks.gobench;
 
 import com.goide.GoConstants;
+import com.goide.runconfig.testing.GoTestRunConfiguration;
 import com.goide.runconfig.testing.frameworks.gotest.GoTestEventsConverterBaseImpl;
+import com.intellij.execution.configurations.RunProfile;
+import com.intellij.execution.process.ProcessOutputTypes;
 import com.intellij.execution.testframework.TestConsoleProperties;
+import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.ArrayUtil;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.MultiMap;
 import jetbrains.buildServer.messages.serviceMessages.ServiceMessageVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.text.ParseException;
+import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class GobenchEventsConverter extends GoTestEventsConverterBaseImpl {
   private static final Pattern RUN = Pattern.compile("^(Benchmark" + GoConstants.IDENTIFIER_REGEX + ")");
   private static final Pattern FAIL = Pattern.compile("^--- FAIL: (Benchmark" + GoConstants.IDENTIFIER_REGEX + ").*");
+  private static final Pattern CPU_SUFFIX = Pattern.compile("-\\d+");
+  private static final double REGRESSION_THRESHOLD = 0.1;
+  private static final double SIGNIFICANCE_LEVEL = 0.05;
+  private static final Comparator<GobenchResult> BY_NAME = new Comparator<GobenchResult>() {
+    @Override
+    public int compare(@NotNull GobenchResult o1, @NotNull GobenchResult o2) {
+      return o1.getName().compareTo(o2.getName());
+    }
+  };
+
+  @Nullable private final GobenchHistory myHistory;
+  private final boolean myCompareWithBaseline;
+  @NotNull private final MultiMap<String, GobenchResult> myPreviousResults;
+  @NotNull private final MultiMap<String, GobenchResult> myResults = MultiMap.createLinked();
+  @NotNull private final Set<String> myRegressed = ContainerUtil.newHashSet();
+  @NotNull private String myCurrentCpuSuffix = "";
 
   public GobenchEventsConverter(@NotNull TestConsoleProperties properties) {
+    this(properties, createHistory(properties.getConfiguration()), isCompareWithBaseline(properties.getConfiguration()));
+  }
+
+  /**
+   * @param history results of the previous runs to compare with and to store the results of this run to,
+   *                null if results are neither compared nor stored
+   */
+  public GobenchEventsConverter(@NotNull TestConsoleProperties properties, @Nullable GobenchHistory history, boolean compareWithBaseline) {
     super(GobenchFramework.NAME, properties);
+    myHistory = history;
+    myCompareWithBaseline = compareWithBaseline;
+    myPreviousResults = myHistory != null ? myHistory.load() : MultiMap.<String, GobenchResult>empty();
+  }
+
+  @Nullable
+  private static GobenchHistory createHistory(@Nullable RunProfile configuration) {
+    return configuration instanceof GoTestRunConfiguration && !ApplicationManager.getApplication().isUnitTestMode()
+           ? GobenchHistory.forConfiguration(((GoTestRunConfiguration)configuration).getProject(), configuration.getName())
+           : null;
+  }
+
+  private static boolean isCompareWithBaseline(@Nullable RunProfile configuration) {
+    return configuration instanceof GoTestRunConfiguration && ((GoTestRunConfiguration)configuration).isCompareWithBaseline();
   }
 
   @Override
@@ -42,6 +89,8 @@ public class GobenchEventsConverter extends GoTestEventsConverterBaseImpl {
     Matcher matcher;
     if ((matcher = RUN.matcher(line)).find(start)) {
       startTest(matcher.group(1), visitor);
+      Matcher cpuMatcher = CPU_SUFFIX.matcher(line).region(matcher.end(1), line.length());
+      myCurrentCpuSuffix = cpuMatcher.lookingAt() ? cpuMatcher.group() : "";
       int newStartOffset = findFirstNonWSIndex(line, matcher.end(1));
       return newStartOffset != -1 ? newStartOffset : line.length();
     }
@@ -63,6 +112,163 @@ public class GobenchEventsConverter extends GoTestEventsConverterBaseImpl {
     super.startTest(testName, visitor);
   }
 
+  @Override
+  protected void processOutput(@NotNull String text, Key outputType, ServiceMessageVisitor visitor) throws ParseException {
+    super.processOutput(text, outputType, visitor);
+    String testName = getCurrentTestName();
+    GobenchResult result = testName != null ? GobenchResult.parse(testName + myCurrentCpuSuffix, text) : null;
+    if (result != null) {
+      myResults.putValue(result.getName(), result);
+      GobenchResult previous = ContainerUtil.getLastItem(ContainerUtil.newArrayList(myPreviousResults.get(result.getName())));
+      if (previous != null && !myCompareWithBaseline) {
+        reportChanges(result, previous, visitor);
+      }
+    }
+  }
+
+  /**
+   * In baseline mode a benchmark is run several times and its samples are compared with the ones of the previous run,
+   * a significant regression fails the benchmark.
+   */
+  @Override
+  protected void beforeTestFinished(@NotNull String name, @NotNull TestResult result, @Nullable ServiceMessageVisitor visitor)
+    throws ParseException {
+    if (!myCompareWithBaseline) return;
+    List<String> regressions = ContainerUtil.newArrayList();
+    for (String key : myResults.keySet()) {
+      if (!isResultOf(key, name)) continue;
+      Collection<GobenchResult> baseline = myPreviousResults.get(key);
+      if (baseline.isEmpty()) {
+        super.processOutput(key + ": no baseline yet, samples of this run become one\n", ProcessOutputTypes.STDOUT, visitor);
+        continue;
+      }
+      for (GobenchComparison comparison : GobenchComparison.compare(baseline, myResults.get(key), SIGNIFICANCE_LEVEL)) {
+        GobenchComparison.Verdict verdict = comparison.getVerdict();
+        String text = key + ": " + comparison;
+        if (verdict != GobenchComparison.Verdict.UNCHANGED) {
+          text += " " + StringUtil.toLowerCase(verdict.name());
+        }
+        boolean regressed = verdict == GobenchComparison.Verdict.REGRESSED;
+        super.processOutput(text + "\n", regressed ? ProcessOutputTypes.STDERR : ProcessOutputTypes.STDOUT, visitor);
+        if (regressed) {
+          regressions.add(key + " " + comparison);
+          myRegressed.add(key);
+        }
+      }
+    }
+    if (!regressions.isEmpty() && result != TestResult.FAILED) {
+      String message = "Regressed compared to the baseline, which is kept for the next run until it's reset " +
+                       "in the run configuration: " + StringUtil.join(regressions, "; ");
+      processServiceMessage(ServiceMessageBuilder.testFailed(name).addAttribute("message", message), visitor);
+    }
+  }
+
+  private static boolean isResultOf(@NotNull String key, @NotNull String testName) {
+    if (!key.startsWith(testName)) return false;
+    String suffix = key.substring(testName.length());
+    return suffix.isEmpty() || CPU_SUFFIX.matcher(suffix).matches();
+  }
+
+  private void reportChanges(@NotNull GobenchResult result, @NotNull GobenchResult previous, ServiceMessageVisitor visitor)
+    throws ParseException {
+    StringBuilder changes = new StringBuilder("compared to the previous run:");
+    for (Map.Entry<String, Double> entry : result.getMetrics().entrySet()) {
+      Double oldValue = previous.getMetric(entry.getKey());
+      if (oldValue != null) {
+        changes.append(' ').append(entry.getKey()).append(' ').append(GobenchResult.formatChange(oldValue, entry.getValue())).append(';');
+      }
+    }
+    super.processOutput(StringUtil.trimEnd(changes.toString(), ";") + "\n", ProcessOutputTypes.STDOUT, visitor);
+    List<String> regressions = result.findRegressions(previous, REGRESSION_THRESHOLD);
+    if (!regressions.isEmpty()) {
+      super.processOutput("regression: " + StringUtil.join(regressions, ", ") + "\n", ProcessOutputTypes.STDERR, visitor);
+    }
+  }
+
+  @Override
+  protected void processTerminating(@Nullable ServiceMessageVisitor visitor) throws ParseException {
+    if (myResults.isEmpty()) return;
+    if (visitor != null) {
+      super.processOutput(formatResultTable(), ProcessOutputTypes.STDOUT, visitor);
+    }
+    if (myHistory != null) {
+      MultiMap<String, GobenchResult> results = MultiMap.createLinked();
+      results.putAllValues(myPreviousResults);
+      for (String key : myResults.keySet()) {
+        // in baseline mode a regressed benchmark is compared with the same baseline until it's fixed,
+        // otherwise every run is compared with the previous one
+        if (myRegressed.contains(key) && results.containsKey(key)) continue;
+        results.remove(key);
+        results.putValues(key, myResults.get(key));
+      }
+      myHistory.save(results.values());
+    }
+  }
+
+  /**
+   * Formats results as a table with a column per unit and a column with the time change relative to the previous run.
+   */
+  @NotNull
+  private String formatResultTable() {
+    List<GobenchResult> results = ContainerUtil.newArrayList();
+    for (String name : myResults.keySet()) {
+      ContainerUtil.addIfNotNull(results, GobenchComparison.median(myResults.get(name)));
+    }
+    List<String> units = ContainerUtil.newArrayList();
+    for (GobenchResult result : results) {
+      for (String unit : result.getMetrics().keySet()) {
+        if (!units.contains(unit)) units.add(unit);
+      }
+    }
+    boolean hasPrevious = false;
+    for (String name : myResults.keySet()) {
+      hasPrevious |= myPreviousResults.containsKey(name);
+    }
+
+    List<String[]> rows = ContainerUtil.newArrayList();
+    List<String> header = ContainerUtil.newArrayList("benchmark");
+    header.addAll(units);
+    if (hasPrevious) header.add("delta " + GobenchResult.NS_PER_OP);
+    rows.add(ArrayUtil.toStringArray(header));
+    for (GobenchResult result : ContainerUtil.sorted(results, BY_NAME)) {
+      List<String> row = ContainerUtil.newArrayList(result.getName());
+      for (String unit : units) {
+        Double value = result.getMetric(unit);
+        row.add(value != null ? GobenchResult.formatValue(value) : "");
+      }
+      if (hasPrevious) {
+        GobenchResult previous = GobenchComparison.median(myPreviousResults.get(result.getName()));
+        Double oldTime = previous != null ? previous.getMetric(GobenchResult.NS_PER_OP) : null;
+        Double newTime = result.getMetric(GobenchResult.NS_PER_OP);
+        row.add(oldTime != null && newTime != null && oldTime > 0
+                ? String.format(Locale.US, "%+.1f%%", (newTime - oldTime) * 100 / oldTime)
+                : "");
+      }
+      rows.add(ArrayUtil.toStringArray(row));
+    }
+
+    int[] widths = new int[rows.get(0).length];
+    for (String[] row : rows) {
+      for (int i = 0; i < row.length; i++) {
+        widths[i] = Math.max(widths[i], row[i].length());
+      }
+    }
+    StringBuilder table = new StringBuilder("\n");
+    for (String[] row : rows) {
+      for (int i = 0; i < row.length; i++) {
+        String padding = StringUtil.repeat(" ", widths[i] - row[i].length());
+        if (i == 0) {
+          table.append(row[i]).append(padding);
+        }
+        else {
+          table.append("  ").append(padding).append(row[i]);
+        }
+      }
+      table.append('\n');
+    }
+    return table.toString();
+  }
+
   private static int findFirstNonWSIndex(@NotNull String text, int startOffset) {
     int whitespaceIndex = StringUtil.indexOfAny(text, " \t", startOffset, text.length());
     if (whitespaceIndex != -1) {
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing.frameworks.gobench;
+
+import com.goide.runconfig.GoRunUtil;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.containers.MultiMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Results of the last benchmark run of a configuration, stored in the IDE system directory
+ * in the {@code go test -bench} output format.
+ */
+public class GobenchHistory {
+  private static final Logger LOG = Logger.getInstance(GobenchHistory.class);
+
+  @NotNull private final File myFile;
+
+  public GobenchHistory(@NotNull File file) {
+    myFile = file;
+  }
+
+  @NotNull
+  public static GobenchHistory forConfiguration(@NotNull Project project, @NotNull String configurationName) {
+    return new GobenchHistory(GoRunUtil.getConfigurationDataFile(project, "go-bench", configurationName));
+  }
+
+  /**
+   * @return stored samples by benchmark name, a benchmark run with {@code -count} has several of them
+   */
+  @NotNull
+  public MultiMap<String, GobenchResult> load() {
+    MultiMap<String, GobenchResult> results = MultiMap.createLinked();
+    if (!myFile.isFile()) return results;
+    try {
+      for (String line : StringUtil.splitByLines(FileUtil.loadFile(myFile))) {
+        GobenchResult result = GobenchResult.parseLine(line);
+        if (result != null) {
+          results.putValue(result.getName(), result);
+        }
+      }
+    }
+    catch (IOException e) {
+      LOG.info("Cannot load benchmark results from " + myFile, e);
+    }
+    return results;
+  }
+
+  /**
+   * Forgets the stored results, so the next run becomes the baseline, e.g. after an expected slowdown.
+   */
+  public void clear() {
+    FileUtil.delete(myFile);
+  }
+
+  public void save(@NotNull Collection<GobenchResult> results) {
+    try {
+      FileUtil.writeToFile(myFile, StringUtil.join(results, "\n"));
+    }
+    catch (IOException e) {
+      LOG.info("Cannot save benchmark results to " + myFile, e);
+    }
+  }
+}
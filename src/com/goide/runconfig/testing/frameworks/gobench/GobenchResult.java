@@ -0,0 +1,163 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing.frameworks.gobench;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+/**
+ * A single benchmark result line, e.g. {@code BenchmarkRead-4  2000000  109 ns/op  16 B/op  1 allocs/op}.
+ * Metrics are kept in the order they were printed, custom units reported with {@code b.ReportMetric} included.
+ */
+public class GobenchResult {
+  public static final String NS_PER_OP = "ns/op";
+  public static final String BYTES_PER_OP = "B/op";
+  public static final String ALLOCS_PER_OP = "allocs/op";
+  public static final String MB_PER_SECOND = "MB/s";
+
+  @NotNull private final String myName;
+  private final long myIterations;
+  @NotNull private final Map<String, Double> myMetrics;
+
+  public GobenchResult(@NotNull String name, long iterations, @NotNull Map<String, Double> metrics) {
+    myName = name;
+    myIterations = iterations;
+    myMetrics = Collections.unmodifiableMap(ContainerUtil.newLinkedHashMap(metrics));
+  }
+
+  /**
+   * @param name benchmark name including the {@code -cpu} suffix, e.g. {@code BenchmarkRead-4}
+   * @param text the rest of the result line: number of iterations followed by value and unit pairs
+   */
+  @Nullable
+  public static GobenchResult parse(@NotNull String name, @NotNull String text) {
+    StringTokenizer tokenizer = new StringTokenizer(text);
+    int count = tokenizer.countTokens();
+    if (count < 3 || count % 2 == 0) return null;
+    try {
+      long iterations = Long.parseLong(tokenizer.nextToken());
+      Map<String, Double> metrics = ContainerUtil.newLinkedHashMap();
+      while (tokenizer.hasMoreTokens()) {
+        double value = Double.parseDouble(tokenizer.nextToken());
+        metrics.put(tokenizer.nextToken(), value);
+      }
+      return new GobenchResult(name, iterations, metrics);
+    }
+    catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Parses a line in the format produced by {@link #toString()}, which is also the format of {@code go test -bench} output.
+   */
+  @Nullable
+  public static GobenchResult parseLine(@NotNull String line) {
+    String trimmed = line.trim();
+    int nameEnd = StringUtil.indexOfAny(trimmed, " \t");
+    return nameEnd > 0 ? parse(trimmed.substring(0, nameEnd), trimmed.substring(nameEnd)) : null;
+  }
+
+  @NotNull
+  public String getName() {
+    return myName;
+  }
+
+  public long getIterations() {
+    return myIterations;
+  }
+
+  @NotNull
+  public Map<String, Double> getMetrics() {
+    return myMetrics;
+  }
+
+  @Nullable
+  public Double getMetric(@NotNull String unit) {
+    return myMetrics.get(unit);
+  }
+
+  /**
+   * Compares the result with a previous run of the same benchmark.
+   *
+   * @param threshold relative change which is reported as a regression, e.g. {@code 0.1} for 10%
+   * @return descriptions of the metrics that got worse
+   * @see #getImprovementSign(String)
+   */
+  @NotNull
+  public List<String> findRegressions(@NotNull GobenchResult previous, double threshold) {
+    List<String> regressions = ContainerUtil.newArrayList();
+    for (Map.Entry<String, Double> entry : myMetrics.entrySet()) {
+      String unit = entry.getKey();
+      Double oldValue = previous.getMetric(unit);
+      double newValue = entry.getValue();
+      int sign = getImprovementSign(unit);
+      if (oldValue == null || sign == 0) continue;
+      if (oldValue == 0 && newValue > 0 && (ALLOCS_PER_OP.equals(unit) || BYTES_PER_OP.equals(unit))) {
+        regressions.add("started allocating: " + formatValue(newValue) + " " + unit);
+      }
+      else if (oldValue > 0 && (oldValue - newValue) * sign / oldValue > threshold) {
+        regressions.add(unit + " " + formatChange(oldValue, newValue));
+      }
+    }
+    return regressions;
+  }
+
+  /**
+   * Time and memory per operation are expected to go down and throughput to go up,
+   * custom units without {@code /op} or {@code /s} suffix are not judged.
+   *
+   * @return {@code -1} if smaller values of the unit are better, {@code 1} if larger ones are, {@code 0} if unknown
+   */
+  public static int getImprovementSign(@NotNull String unit) {
+    return unit.endsWith("/op") ? -1 : unit.endsWith("/s") ? 1 : 0;
+  }
+
+  @NotNull
+  public static String formatChange(double oldValue, double newValue) {
+    String change = oldValue != 0 ? String.format(Locale.US, " (%+.1f%%)", (newValue - oldValue) * 100 / oldValue) : "";
+    return formatValue(oldValue) + " -> " + formatValue(newValue) + change;
+  }
+
+  @NotNull
+  public static String formatValue(double value) {
+    return isIntegral(value) ? Long.toString((long)value) : String.format(Locale.US, "%.2f", value);
+  }
+
+  private static boolean isIntegral(double value) {
+    return value == Math.rint(value) && Math.abs(value) < 1e15;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder(myName).append('\t').append(myIterations);
+    for (Map.Entry<String, Double> entry : myMetrics.entrySet()) {
+      double value = entry.getValue();
+      String text = isIntegral(value) ? Long.toString((long)value) : Double.toString(value);
+      result.append('\t').append(text).append(' ').append(entry.getKey());
+    }
+    return result.toString();
+  }
+}
@@ -49,5 +49,8 @@ public class GobenchRunningState extends GoTestRunningState {
   protected void addFilterParameter(@NotNull GoExecutor executor, String pattern) {
     executor.withParameters("-bench", StringUtil.isEmpty(pattern) ? "." : pattern);
     executor.withParameters("-run", "^$");
+    if (myConfiguration.isCompareWithBaseline()) {
+      executor.withParameters("-count=" + myConfiguration.getBenchmarkCount());
+    }
   }
 }
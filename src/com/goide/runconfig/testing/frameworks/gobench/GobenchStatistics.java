@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing.frameworks.gobench;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class GobenchStatistics {
+  /**
+   * Samples larger than this are compared with the normal approximation instead of the exact distribution.
+   */
+  private static final int EXACT_SAMPLE_LIMIT = 20;
+
+  private GobenchStatistics() {
+  }
+
+  public static double median(@NotNull double[] values) {
+    if (values.length == 0) return Double.NaN;
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    int middle = sorted.length / 2;
+    return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+  }
+
+  /**
+   * Two-sided p-value of the Mann-Whitney U test, the same test benchstat uses to tell a change from noise.
+   * Small samples without ties are compared with the exact distribution of U, others with the normal approximation
+   * corrected for ties and continuity.
+   */
+  public static double mannWhitneyPValue(@NotNull double[] x, @NotNull double[] y) {
+    int n1 = x.length;
+    int n2 = y.length;
+    if (n1 == 0 || n2 == 0) return 1;
+
+    int n = n1 + n2;
+    double[] all = new double[n];
+    System.arraycopy(x, 0, all, 0, n1);
+    System.arraycopy(y, 0, all, n1, n2);
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    final double[] values = all;
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(@NotNull Integer o1, @NotNull Integer o2) {
+        return Double.compare(values[o1], values[o2]);
+      }
+    });
+
+    double rankSumX = 0;
+    double tieCorrection = 0;
+    for (int i = 0; i < n; ) {
+      int j = i;
+      while (j + 1 < n && all[order[j + 1]] == all[order[i]]) {
+        j++;
+      }
+      double rank = (i + j) / 2.0 + 1;
+      for (int k = i; k <= j; k++) {
+        if (order[k] < n1) rankSumX += rank;
+      }
+      int ties = j - i + 1;
+      tieCorrection += (double)ties * ties * ties - ties;
+      i = j + 1;
+    }
+    double u = rankSumX - n1 * (n1 + 1) / 2.0;
+
+    if (tieCorrection == 0 && n1 <= EXACT_SAMPLE_LIMIT && n2 <= EXACT_SAMPLE_LIMIT) {
+      return exactPValue(n1, n2, (int)Math.round(u));
+    }
+    double mean = n1 * (double)n2 / 2;
+    double variance = n1 * (double)n2 / 12 * ((n + 1) - tieCorrection / (n * (n - 1.0)));
+    if (variance <= 0) return 1;
+    double z = Math.max(0, Math.abs(u - mean) - 0.5) / Math.sqrt(variance);
+    return Math.min(1, 2 * (1 - normalCdf(z)));
+  }
+
+  /**
+   * Computes the distribution of U by counting arrangements of the samples, U being the number of pairs where
+   * a value of the first sample exceeds a value of the second one.
+   */
+  private static double exactPValue(int n1, int n2, int u) {
+    int maxU = n1 * n2;
+    // counts[m][v]: arrangements of m values of the first sample and k values of the second one with U = v
+    double[][] counts = new double[n1 + 1][maxU + 1];
+    for (int m = 0; m <= n1; m++) {
+      counts[m][0] = 1;
+    }
+    for (int k = 1; k <= n2; k++) {
+      double[][] next = new double[n1 + 1][maxU + 1];
+      next[0][0] = 1;
+      for (int m = 1; m <= n1; m++) {
+        for (int v = 0; v <= m * k; v++) {
+          // the largest value belongs either to the second sample or to the first one, which then exceeds all k values
+          next[m][v] = counts[m][v] + (v >= k ? next[m - 1][v - k] : 0);
+        }
+      }
+      counts = next;
+    }
+    double total = 0;
+    double lower = 0;
+    double upper = 0;
+    for (int v = 0; v <= maxU; v++) {
+      double count = counts[n1][v];
+      total += count;
+      if (v <= u) lower += count;
+      if (v >= u) upper += count;
+    }
+    return Math.min(1, 2 * Math.min(lower, upper) / total);
+  }
+
+  /**
+   * Standard normal cumulative distribution function, computed via the complementary error function
+   * approximation from Numerical Recipes with relative error below 1.2e-7.
+   */
+  static double normalCdf(double z) {
+    double x = Math.abs(z) / Math.sqrt(2);
+    double t = 1 / (1 + 0.5 * x);
+    double erfc = t * Math.exp(-x * x - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418 + t * (-0.18628806 +
+                  t * (0.27886807 + t * (-1.13520398 + t * (1.48851587 + t * (-0.82215223 + t * 0.17087277)))))))));
+    return z >= 0 ? 1 - erfc / 2 : erfc / 2;
+  }
+}
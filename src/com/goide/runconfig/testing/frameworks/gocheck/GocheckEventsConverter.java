@@ -18,6 +18,7 @@ package com.goide.runconfig.testing.frameworks.gocheck;
 
 import com.goide.runconfig.testing.GoTestEventsConverterBase;
 import com.goide.runconfig.testing.GoTestLocator;
+import com.goide.runconfig.testing.frameworks.gocheck.GocheckLineScanner.Marker;
 import com.intellij.execution.testframework.TestConsoleProperties;
 import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
 import com.intellij.execution.testframework.sm.runner.OutputToGeneralTestEventsConverter;
@@ -31,8 +32,6 @@ import org.jetbrains.annotations.Nullable;
 import java.text.ParseException;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static com.intellij.openapi.util.Pair.pair;
 
@@ -60,19 +59,7 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
     TEST_TEARDOWN
   }
 
-  private static final Pattern SUITE_START = Pattern.compile("=== RUN (.+)\\s*$");
-  private static final Pattern SUITE_END = Pattern.compile("((PASS)|(FAIL))\\s*$");
-  private static final Pattern TEST_START = Pattern.compile("(.*)START: [^:]+:\\d+: ([^\\s]+)\\s*$");
-  private static final Pattern TEST_PASSED = Pattern.compile("(.*)PASS: [^:]+:\\d+: ([^\\s]+)\\t[^\\s]+\\s*$");
-  private static final Pattern TEST_FAILED = Pattern.compile("(.*)FAIL: [^:]+:\\d+: ([^\\s]+)\\s*$");
-  private static final Pattern TEST_PANICKED = Pattern.compile("(.*)PANIC: [^:]+:\\d+: ([^\\s]+)\\s*$");
-  private static final Pattern TEST_MISSED = Pattern.compile("(.*)MISS: [^:]+:\\d+: ([^\\s]+)\\s*$");
-  private static final Pattern TEST_SKIPPED = Pattern.compile("(.*)SKIP: [^:]+:\\d+: ([^\\s]+)( \\(.*\\))?\\s*$");
-  private static final Pattern ERROR_LOCATION = Pattern.compile("(.*:\\d+):\\s*$");
-  private static final Pattern ERROR_ACTUAL = Pattern.compile("\\.\\.\\. ((obtained)|(value)) (.*?)( \\+)?\\s*$");
-  private static final Pattern ERROR_EXPECTED = Pattern.compile("\\.\\.\\. ((expected)|(regex)) (.*?)( \\+)?\\s*$");
-  private static final Pattern ERROR_CONTINUATION = Pattern.compile("\\.\\.\\. {5}(.*?)( +\\+)?\\s*$");
-  private static final Pattern PANIC_VALUE = Pattern.compile("(.*)\\.\\.\\. (Panic: .* \\(.*\\)\\s*)$");
+  private final GocheckLineScanner myScanner = new GocheckLineScanner();
 
   private Scope myScope = Scope.GLOBAL;
   private String mySuiteName;
@@ -116,20 +103,18 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
 
   @Override
   public boolean processServiceMessages(@NotNull String text, Key outputType, ServiceMessageVisitor visitor) throws ParseException {
-    Matcher matcher;
-
     switch (myScope) {
       case GLOBAL:
-        if (SUITE_START.matcher(text).matches()) {
+        if (GocheckLineScanner.isSuiteStart(text)) {
           myScope = Scope.SUITE;
           return true;
         }
         break;
 
       case SUITE:
-        if ((matcher = TEST_START.matcher(text)).matches()) {
+        if (myScanner.match(text, Marker.START)) {
           myStdOut = ContainerUtil.newArrayList();
-          myTestName = matcher.group(2);
+          myTestName = myScanner.getName();
           processTestSectionStart(myTestName, outputType, visitor);
           if (myTestName.endsWith(".SetUpSuite")) {
             myScope = Scope.SUITE_SETUP;
@@ -142,7 +127,7 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
           myScope = Scope.TEST;
           return processTestStarted(myTestName, outputType, visitor);
         }
-        if (SUITE_END.matcher(text).matches()) {
+        if (GocheckLineScanner.isSuiteEnd(text)) {
           myScope = Scope.GLOBAL;
           if (mySuiteName != null) {
             String suiteFinishedMsg = ServiceMessageBuilder.testSuiteFinished(mySuiteName).toString();
@@ -172,12 +157,12 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
         break;
 
       case TEST:
-        if ((matcher = TEST_START.matcher(text)).matches()) {
-          String stdOutLeftover = matcher.group(1);
+        if (myScanner.match(text, Marker.START)) {
+          String stdOutLeftover = myScanner.getPrefix();
           if (!StringUtil.isEmptyOrSpaces(stdOutLeftover)) {
             myStdOut.add(stdOutLeftover);
           }
-          String testName = matcher.group(2);
+          String testName = myScanner.getName();
           if (testName.endsWith(".SetUpTest")) {
             myScope = Scope.TEST_SETUP;
             return true;
@@ -235,28 +220,27 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
 
   @Nullable
   private TestResult detectTestResult(String text, boolean parseDetails) {
-    Matcher matcher;
-    if ((matcher = TEST_PASSED.matcher(text)).matches()) {
-      myStdOut.add(StringUtil.notNullize(matcher.group(1)).trim());
+    if (myScanner.match(text, Marker.PASS)) {
+      myStdOut.add(myScanner.getPrefix().trim());
       return new TestResult(Status.PASSED);
     }
-    if ((matcher = TEST_MISSED.matcher(text)).matches()) {
-      myStdOut.add(StringUtil.notNullize(matcher.group(1)).trim());
+    if (myScanner.match(text, Marker.MISS)) {
+      myStdOut.add(myScanner.getPrefix().trim());
       return new TestResult(Status.MISSED);
     }
-    if ((matcher = TEST_SKIPPED.matcher(text)).matches()) {
-      myStdOut.add(StringUtil.notNullize(matcher.group(1)).trim());
+    if (myScanner.match(text, Marker.SKIP)) {
+      myStdOut.add(myScanner.getPrefix().trim());
       return new TestResult(Status.SKIPPED);
     }
-    if ((matcher = TEST_FAILED.matcher(text)).matches()) {
-      myStdOut.add(StringUtil.notNullize(matcher.group(1)).trim());
+    if (myScanner.match(text, Marker.FAIL)) {
+      myStdOut.add(myScanner.getPrefix().trim());
       if (parseDetails) {
         return new TestResult(Status.FAILED, parseFailureAttributes());
       }
       return new TestResult(Status.FAILED);
     }
-    if ((matcher = TEST_PANICKED.matcher(text)).matches()) {
-      myStdOut.add(StringUtil.notNullize(matcher.group(1)).trim());
+    if (myScanner.match(text, Marker.PANIC)) {
+      myStdOut.add(myScanner.getPrefix().trim());
       if (parseDetails) {
         return new TestResult(Status.PANICKED, parsePanickedAttributes());
       }
@@ -390,15 +374,15 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
       lineNumber--;
     }
 
-    lineNumber = collectErrorMessage(myStdOut, lineNumber, ERROR_CONTINUATION, ERROR_EXPECTED, expectedMessage);
-    lineNumber = collectErrorMessage(myStdOut, lineNumber, ERROR_CONTINUATION, ERROR_ACTUAL, actualMessage);
+    lineNumber = collectErrorMessage(myStdOut, lineNumber, expectedMessage, "expected", "regex");
+    lineNumber = collectErrorMessage(myStdOut, lineNumber, actualMessage, "obtained", "value");
 
     // Collect all lines of the error message and details
     while (lineNumber >= 0) {
       String line = myStdOut.get(lineNumber);
-      Matcher matcher = ERROR_LOCATION.matcher(line);
-      if (matcher.matches()) {
-        details = matcher.group(1);
+      String location = GocheckLineScanner.matchErrorLocation(line);
+      if (location != null) {
+        details = location;
         break;
       }
       else {
@@ -417,21 +401,20 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
                                     pair("details", details));
   }
 
-  private static int collectErrorMessage(List<String> lines, int currentLine, Pattern continuationPattern, Pattern messagePattern,
-                                         StringBuilder result) {
+  private static int collectErrorMessage(List<String> lines, int currentLine, StringBuilder result, String... keywords) {
     while (currentLine >= 0) {
       String line = lines.get(currentLine);
 
-      Matcher continuationMatcher = continuationPattern.matcher(line);
-      if (continuationMatcher.matches()) {
-        result.insert(0, '\n').insert(0, continuationMatcher.group(1));
+      String continuation = GocheckLineScanner.matchErrorContinuation(line);
+      if (continuation != null) {
+        result.insert(0, '\n').insert(0, continuation);
         currentLine--;
         continue;
       }
 
-      Matcher messageMatcher = messagePattern.matcher(line);
-      if (messageMatcher.matches()) {
-        result.insert(0, '\n').insert(0, messageMatcher.group(4));
+      String message = GocheckLineScanner.matchErrorValue(line, keywords);
+      if (message != null) {
+        result.insert(0, '\n').insert(0, message);
         currentLine--;
       }
       break;
@@ -478,14 +461,15 @@ public class GocheckEventsConverter extends OutputToGeneralTestEventsConverter i
 
     // Then follows the panic description.
     String errorMessage = "";
-    Matcher matcher;
-    if (lineNumber >= 0 && (matcher = PANIC_VALUE.matcher(myStdOut.get(lineNumber))).matches()) {
-      String stdoutLeftover = matcher.group(1);
+    int panicOffset = lineNumber >= 0 ? GocheckLineScanner.findPanicValue(myStdOut.get(lineNumber)) : -1;
+    if (panicOffset >= 0) {
+      String line = myStdOut.get(lineNumber);
+      String stdoutLeftover = line.substring(0, panicOffset);
       if (!StringUtil.isEmptyOrSpaces(stdoutLeftover)) {
         myStdOut.set(lineNumber, stdoutLeftover);
         lineNumber++;
       }
-      errorMessage = matcher.group(2);
+      errorMessage = line.substring(panicOffset + "... ".length());
     }
     // Remove the panic info from the test StdOut.
     myStdOut = safeSublist(myStdOut, lineNumber);
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing.frameworks.gocheck;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Classifies gocheck output lines without regular expressions. Test event lines are parsed from the end,
+ * so the cost doesn't depend on the length of the output printed before the marker.
+ * <p/>
+ * A line matches a marker exactly when it would match the respective pattern:
+ * <pre>
+ * (.*)START: [^:]+:\d+: ([^\s]+)\s*$
+ * (.*)PASS: [^:]+:\d+: ([^\s]+)\t[^\s]+\s*$
+ * (.*)SKIP: [^:]+:\d+: ([^\s]+)( \(.*\))?\s*$
+ * </pre>
+ * FAIL, PANIC and MISS lines look like START ones. The last scanned line is remembered,
+ * so checking a line against several markers parses it once.
+ */
+final class GocheckLineScanner {
+  enum Marker {
+    START, PASS, FAIL, PANIC, MISS, SKIP
+  }
+
+  private static final Marker[] MARKERS = Marker.values();
+  private static final String RUN_PREFIX = "=== RUN ";
+  private static final String PANIC_PREFIX = "... Panic: ";
+  private static final String CONTINUATION_PREFIX = "...     ";
+
+  // candidate matches as {marker colon offset, name start, name end}
+  private final int[] myPlain = new int[3];
+  private final int[] myDuration = new int[3];
+  private final int[] myReason = new int[3];
+  @Nullable private Marker myPlainMarker;
+  @Nullable private Marker myDurationMarker;
+  @Nullable private Marker myReasonMarker;
+  @Nullable private String myLine;
+  @Nullable private int[] myMatch;
+  @Nullable private Marker myMatchMarker;
+
+  /**
+   * Checks whether the line is a test event with the marker. On success {@link #getPrefix()} and {@link #getName()}
+   * return the output printed before the marker and the test name.
+   */
+  boolean match(@NotNull String line, @NotNull Marker marker) {
+    if (line != myLine) {
+      scan(line);
+    }
+    int[] match = null;
+    switch (marker) {
+      case PASS:
+        match = myDurationMarker == Marker.PASS ? myDuration : null;
+        break;
+      case SKIP:
+        if (myPlainMarker == Marker.SKIP) {
+          match = myPlain;
+        }
+        if (myReasonMarker == Marker.SKIP && (match == null || myReason[0] > match[0])) {
+          match = myReason;
+        }
+        break;
+      default:
+        match = myPlainMarker == marker ? myPlain : null;
+    }
+    myMatch = match;
+    myMatchMarker = match != null ? marker : null;
+    return match != null;
+  }
+
+  @NotNull
+  String getPrefix() {
+    assert myLine != null && myMatch != null && myMatchMarker != null;
+    return myLine.substring(0, myMatch[0] - myMatchMarker.name().length());
+  }
+
+  @NotNull
+  String getName() {
+    assert myLine != null && myMatch != null;
+    return myLine.substring(myMatch[1], myMatch[2]);
+  }
+
+  private void scan(@NotNull String line) {
+    myLine = line;
+    int end = trimmedEnd(line);
+    myPlainMarker = parseTail(line, end, myPlain);
+
+    int durationStart = wordStart(line, end);
+    myDurationMarker = durationStart > 0 && durationStart < end && line.charAt(durationStart - 1) == '\t'
+                       ? parseTail(line, durationStart - 1, myDuration)
+                       : null;
+
+    myReasonMarker = null;
+    if (end > 0 && line.charAt(end - 1) == ')') {
+      for (int i = line.lastIndexOf(" (", end - 3); i >= 0; i = line.lastIndexOf(" (", i - 1)) {
+        if (parseTail(line, i, myReason) == Marker.SKIP && !hasLineTerminator(line, i + 2, end - 1)) {
+          myReasonMarker = Marker.SKIP;
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Parses {@code MARKER: file:line: name} backwards from the end of the name.
+   */
+  @Nullable
+  private static Marker parseTail(@NotNull String line, int nameEnd, @NotNull int[] result) {
+    int nameStart = wordStart(line, nameEnd);
+    if (nameStart == nameEnd || nameStart < 2 || line.charAt(nameStart - 1) != ' ' || line.charAt(nameStart - 2) != ':') {
+      return null;
+    }
+    int lineColon = nameStart - 3;
+    while (lineColon >= 0 && isDigit(line.charAt(lineColon))) {
+      lineColon--;
+    }
+    if (lineColon < 0 || lineColon == nameStart - 3 || line.charAt(lineColon) != ':') {
+      return null;
+    }
+    int markerColon = line.lastIndexOf(':', lineColon - 1);
+    if (markerColon < 0 || lineColon - markerColon < 3 || line.charAt(markerColon + 1) != ' ') {
+      return null;
+    }
+    for (Marker marker : MARKERS) {
+      String name = marker.name();
+      int prefixEnd = markerColon - name.length();
+      if (line.startsWith(name, prefixEnd)) {
+        if (hasLineTerminator(line, 0, prefixEnd)) return null;
+        result[0] = markerColon;
+        result[1] = nameStart;
+        result[2] = nameEnd;
+        return marker;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * {@code === RUN (.+)\s*$}
+   */
+  static boolean isSuiteStart(@NotNull String line) {
+    int start = RUN_PREFIX.length();
+    return line.startsWith(RUN_PREFIX) && line.length() > start && !hasLineTerminator(line, start, Math.max(trimmedEnd(line), start + 1));
+  }
+
+  /**
+   * {@code ((PASS)|(FAIL))\s*$}
+   */
+  static boolean isSuiteEnd(@NotNull String line) {
+    return trimmedEnd(line) == 4 && (line.startsWith("PASS") || line.startsWith("FAIL"));
+  }
+
+  /**
+   * {@code (.*:\d+):\s*$}
+   *
+   * @return error location or null if the line doesn't end with one
+   */
+  @Nullable
+  static String matchErrorLocation(@NotNull String line) {
+    int end = trimmedEnd(line);
+    if (end == 0 || line.charAt(end - 1) != ':') return null;
+    int i = end - 2;
+    while (i >= 0 && isDigit(line.charAt(i))) {
+      i--;
+    }
+    return i >= 0 && i < end - 2 && line.charAt(i) == ':' && !hasLineTerminator(line, 0, i) ? line.substring(0, end - 1) : null;
+  }
+
+  /**
+   * {@code \.\.\. ((keyword1)|(keyword2)) (.*?)( \+)?\s*$}
+   *
+   * @return reported value or null if the line doesn't start with one of the keywords
+   */
+  @Nullable
+  static String matchErrorValue(@NotNull String line, @NotNull String... keywords) {
+    if (!line.startsWith("... ")) return null;
+    for (String keyword : keywords) {
+      if (line.startsWith(keyword, 4) && line.startsWith(" ", 4 + keyword.length())) {
+        int start = 5 + keyword.length();
+        int end = trimmedEnd(line);
+        if (end - 2 >= start && line.charAt(end - 1) == '+' && line.charAt(end - 2) == ' ') {
+          end -= 2;
+        }
+        end = Math.max(start, end);
+        return hasLineTerminator(line, start, end) ? null : line.substring(start, end);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * {@code \.\.\. {5}(.*?)( +\+)?\s*$}
+   *
+   * @return continued value or null if the line isn't a continuation
+   */
+  @Nullable
+  static String matchErrorContinuation(@NotNull String line) {
+    if (!line.startsWith(CONTINUATION_PREFIX)) return null;
+    int start = CONTINUATION_PREFIX.length();
+    int end = trimmedEnd(line);
+    if (end - 2 >= start && line.charAt(end - 1) == '+' && line.charAt(end - 2) == ' ') {
+      end -= 2;
+      while (end > start && line.charAt(end - 1) == ' ') {
+        end--;
+      }
+    }
+    end = Math.max(start, end);
+    return hasLineTerminator(line, start, end) ? null : line.substring(start, end);
+  }
+
+  /**
+   * {@code (.*)\.\.\. (Panic: .* \(.*\)\s*)$}
+   *
+   * @return offset of the panic report or -1 if the line doesn't contain one
+   */
+  static int findPanicValue(@NotNull String line) {
+    int end = trimmedEnd(line);
+    if (end == 0 || line.charAt(end - 1) != ')') return -1;
+    for (int i = line.lastIndexOf(PANIC_PREFIX); i >= 0; i = line.lastIndexOf(PANIC_PREFIX, i - 1)) {
+      int paren = line.indexOf(" (", i + PANIC_PREFIX.length());
+      if (paren >= 0 && paren <= end - 3 && !hasLineTerminator(line, 0, end)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int trimmedEnd(@NotNull String line) {
+    int end = line.length();
+    while (end > 0 && isWhitespace(line.charAt(end - 1))) {
+      end--;
+    }
+    return end;
+  }
+
+  private static int wordStart(@NotNull String line, int end) {
+    int start = end;
+    while (start > 0 && !isWhitespace(line.charAt(start - 1))) {
+      start--;
+    }
+    return start;
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean hasLineTerminator(@NotNull String line, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (isLineTerminator(line.charAt(i))) return true;
+    }
+    return false;
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+}
@@ -124,6 +124,7 @@ public abstract class GoTestEventsConverterBaseImpl extends OutputToGeneralTestE
           finishTestInner(myCurrentTestName, TestResult.PASSED, myVisitor);
         }
       }
+      processTerminating(myVisitor);
     }
     catch (ParseException ignore) {
     }
@@ -131,6 +132,24 @@ public abstract class GoTestEventsConverterBaseImpl extends OutputToGeneralTestE
     super.flushBufferBeforeTerminating();
   }
 
+  /**
+   * Called before the test is reported as finished, output printed from here still goes to the test.
+   */
+  protected void beforeTestFinished(@NotNull String name, @NotNull TestResult result, @Nullable ServiceMessageVisitor visitor)
+    throws ParseException {
+  }
+
+  protected void processServiceMessage(@NotNull ServiceMessageBuilder builder, @Nullable ServiceMessageVisitor visitor)
+    throws ParseException {
+    super.processServiceMessages(builder.toString(), null, visitor);
+  }
+
+  /**
+   * Called once the output is over and the last test is finished.
+   */
+  protected void processTerminating(@Nullable ServiceMessageVisitor visitor) throws ParseException {
+  }
+
   protected void finishTest(@NotNull String name, @NotNull TestResult result, @Nullable ServiceMessageVisitor visitor)
     throws ParseException {
     if (isCurrentlyRunningTest(name)) {
@@ -158,6 +177,7 @@ public abstract class GoTestEventsConverterBaseImpl extends OutputToGeneralTestE
   private void finishTestInner(@NotNull String name,
                                @NotNull TestResult result,
                                @Nullable ServiceMessageVisitor visitor) throws ParseException {
+    beforeTestFinished(name, result, visitor);
     if (isCurrentlyRunningTest(name)) {
       myCurrentTestName = null;
       myCurrentTestResult = null;
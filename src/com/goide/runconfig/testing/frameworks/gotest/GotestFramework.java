@@ -19,6 +19,9 @@ package com.goide.runconfig.testing.frameworks.gotest;
 import com.goide.psi.GoFunctionDeclaration;
 import com.goide.psi.GoFunctionOrMethodDeclaration;
 import com.goide.runconfig.testing.*;
+import com.goide.sdk.GoSdkService;
+import com.goide.sdk.GoSdkUtil;
+import com.intellij.execution.configurations.RunProfile;
 import com.intellij.execution.runners.ExecutionEnvironment;
 import com.intellij.execution.testframework.TestConsoleProperties;
 import com.intellij.execution.testframework.sm.runner.OutputToGeneralTestEventsConverter;
@@ -35,6 +38,7 @@ import java.util.Collection;
 public class GotestFramework extends GoTestFramework {
   public static final String NAME = "gotest";
   public static final GotestFramework INSTANCE = new GotestFramework();
+  public static final String JSON_OUTPUT_MIN_VERSION = "1.10";
   private static final ArrayList<GotestGenerateAction> GENERATE_ACTIONS = ContainerUtil.newArrayList(
     new GotestGenerateAction(GoTestFunctionType.TEST),
     new GotestGenerateAction(GoTestFunctionType.BENCHMARK),
@@ -78,9 +82,19 @@ public class GotestFramework extends GoTestFramework {
     return new GoTestRunningState(env, module, runConfiguration);
   }
 
+  @Override
+  public boolean isJsonOutputSupported(@Nullable Module module) {
+    String version = module != null ? GoSdkService.getInstance(module.getProject()).getSdkVersion(module) : null;
+    return version != null && GoSdkUtil.compareVersions(version, JSON_OUTPUT_MIN_VERSION) >= 0;
+  }
+
   @NotNull
   @Override
   public OutputToGeneralTestEventsConverter createTestEventsConverter(@NotNull TestConsoleProperties consoleProperties) {
-    return new GotestEventsConverter(consoleProperties);
+    RunProfile configuration = consoleProperties.getConfiguration();
+    Module module = configuration instanceof GoTestRunConfiguration
+                    ? ((GoTestRunConfiguration)configuration).getConfigurationModule().getModule()
+                    : null;
+    return isJsonOutputSupported(module) ? new GotestJsonEventsConverter(consoleProperties) : new GotestEventsConverter(consoleProperties);
   }
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing.frameworks.gotest;
+
+import com.goide.runconfig.testing.GoTestEventsConverterBase;
+import com.goide.runconfig.testing.GoTestLocator;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.intellij.execution.testframework.TestConsoleProperties;
+import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
+import com.intellij.execution.testframework.sm.runner.OutputToGeneralTestEventsConverter;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.containers.ContainerUtil;
+import jetbrains.buildServer.messages.serviceMessages.ServiceMessageTypes;
+import jetbrains.buildServer.messages.serviceMessages.ServiceMessageVisitor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.Set;
+
+/**
+ * Converts the event stream of {@code go test -json} (Go 1.10+) to test runner events.
+ * Every event names its package and test, so output of parallel tests is attributed without guessing.
+ */
+public class GotestJsonEventsConverter extends OutputToGeneralTestEventsConverter implements GoTestEventsConverterBase {
+  private final Set<String> myStartedPackages = ContainerUtil.newHashSet();
+  private final Set<String> myStartedTests = ContainerUtil.newHashSet();
+
+  public GotestJsonEventsConverter(@NotNull TestConsoleProperties consoleProperties) {
+    super(GotestFramework.NAME, consoleProperties);
+  }
+
+  @Override
+  public boolean processServiceMessages(@NotNull String text, Key outputType, ServiceMessageVisitor visitor) throws ParseException {
+    for (String line : StringUtil.splitByLinesKeepSeparators(text)) {
+      TestEvent event = StringUtil.startsWithChar(line, '{') ? TestEvent.parse(line) : null;
+      if (event != null) {
+        processEvent(event, outputType, visitor);
+      }
+      else {
+        processMessage(line, outputType, visitor);
+      }
+    }
+    return true;
+  }
+
+  private void processEvent(@NotNull TestEvent event, Key outputType, ServiceMessageVisitor visitor) throws ParseException {
+    if (event.pkg != null && myStartedPackages.add(event.pkg)) {
+      emit(ServiceMessageBuilder.testSuiteStarted(event.pkg), outputType, visitor);
+    }
+    if ("output".equals(event.action)) {
+      processOutput(event, outputType, visitor);
+      return;
+    }
+    if (event.test == null) {
+      if (event.pkg != null && isFinishAction(event.action) && myStartedPackages.remove(event.pkg)) {
+        emit(ServiceMessageBuilder.testSuiteFinished(event.pkg), outputType, visitor);
+      }
+      return;
+    }
+    String key = testKey(event);
+    if ("run".equals(event.action)) {
+      if (myStartedTests.add(key)) {
+        String locationHint = GoTestLocator.PROTOCOL + "://" + event.test;
+        emit(ServiceMessageBuilder.testStarted(event.test).addAttribute("locationHint", locationHint), outputType, visitor);
+      }
+    }
+    else if (isFinishAction(event.action) && myStartedTests.remove(key)) {
+      if ("fail".equals(event.action)) {
+        emit(ServiceMessageBuilder.testFailed(event.test).addAttribute("message", ""), outputType, visitor);
+      }
+      else if ("skip".equals(event.action)) {
+        emit(ServiceMessageBuilder.testIgnored(event.test).addAttribute("message", ""), outputType, visitor);
+      }
+      String duration = event.elapsed >= 0 ? Long.toString(Math.round(event.elapsed * 1000)) : null;
+      emit(ServiceMessageBuilder.testFinished(event.test).addAttribute("duration", duration), outputType, visitor);
+    }
+  }
+
+  private void processOutput(@NotNull TestEvent event, Key outputType, ServiceMessageVisitor visitor) throws ParseException {
+    String output = event.output;
+    if (StringUtil.isEmpty(output) || isFramingLine(output, event.test != null)) {
+      return;
+    }
+    if (event.test != null && myStartedTests.contains(testKey(event))) {
+      emit(ServiceMessageBuilder.testStdOut(event.test).addAttribute("out", output), outputType, visitor);
+    }
+    else {
+      processMessage(output, outputType, visitor);
+    }
+  }
+
+  private void processMessage(@NotNull String text, Key outputType, ServiceMessageVisitor visitor) throws ParseException {
+    if (text.isEmpty()) {
+      return;
+    }
+    ServiceMessageBuilder messageBuilder = new ServiceMessageBuilder(ServiceMessageTypes.MESSAGE);
+    if (ProcessOutputTypes.STDERR == outputType) {
+      messageBuilder.addAttribute("text", StringUtil.trimEnd(text, "\n")).addAttribute("status", "ERROR");
+    }
+    else {
+      messageBuilder.addAttribute("text", text).addAttribute("status", "NORMAL");
+    }
+    emit(messageBuilder, outputType, visitor);
+  }
+
+  private void emit(@NotNull ServiceMessageBuilder builder, Key outputType, ServiceMessageVisitor visitor) throws ParseException {
+    super.processServiceMessages(builder.toString(), outputType, visitor);
+  }
+
+  @Override
+  public void dispose() {
+    myStartedPackages.clear();
+    myStartedTests.clear();
+    super.dispose();
+  }
+
+  @NotNull
+  private static String testKey(@NotNull TestEvent event) {
+    return event.pkg + "\n" + event.test;
+  }
+
+  private static boolean isFinishAction(@Nullable String action) {
+    return "pass".equals(action) || "fail".equals(action) || "skip".equals(action) || "bench".equals(action);
+  }
+
+  /**
+   * Lines like {@code === RUN} or {@code --- PASS:} and the bare package verdict duplicate information carried by events.
+   */
+  private static boolean isFramingLine(@NotNull String output, boolean testOutput) {
+    String line = StringUtil.trimLeading(output);
+    if (testOutput) {
+      return line.startsWith("=== RUN") || line.startsWith("=== PAUSE") || line.startsWith("=== CONT") ||
+             line.startsWith("--- PASS:") || line.startsWith("--- FAIL:") || line.startsWith("--- SKIP:");
+    }
+    String trimmed = line.trim();
+    return "PASS".equals(trimmed) || "FAIL".equals(trimmed);
+  }
+
+  /**
+   * A single line of {@code go test -json} output, see {@code go doc test2json}.
+   */
+  public static class TestEvent {
+    @Nullable private String action;
+    @Nullable private String pkg;
+    @Nullable private String test;
+    @Nullable private String output;
+    private double elapsed = -1;
+
+    @Nullable
+    public String getAction() {
+      return action;
+    }
+
+    @Nullable
+    public String getPackage() {
+      return pkg;
+    }
+
+    @Nullable
+    public String getTest() {
+      return test;
+    }
+
+    /**
+     * @return elapsed seconds of a finished test or package, negative if not reported
+     */
+    public double getElapsed() {
+      return elapsed;
+    }
+
+    @Nullable
+    public static TestEvent parse(@NotNull String line) {
+      JsonReader reader = new JsonReader(new StringReader(line));
+      try {
+        TestEvent event = new TestEvent();
+        reader.beginObject();
+        while (reader.hasNext()) {
+          String name = reader.nextName();
+          if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+          }
+          else if ("Action".equals(name)) {
+            event.action = reader.nextString();
+          }
+          else if ("Package".equals(name)) {
+            event.pkg = reader.nextString();
+          }
+          else if ("Test".equals(name)) {
+            event.test = reader.nextString();
+          }
+          else if ("Output".equals(name)) {
+            event.output = reader.nextString();
+          }
+          else if ("Elapsed".equals(name)) {
+            event.elapsed = reader.nextDouble();
+          }
+          else {
+            reader.skipValue();
+          }
+        }
+        reader.endObject();
+        return event.action != null ? event : null;
+      }
+      catch (IOException e) {
+        return null;
+      }
+      catch (IllegalStateException e) {
+        return null;
+      }
+      catch (NumberFormatException e) {
+        return null;
+      }
+    }
+  }
+}
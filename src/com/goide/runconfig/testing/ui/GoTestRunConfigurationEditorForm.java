@@ -19,6 +19,7 @@ package com.goide.runconfig.testing.ui;
 import com.goide.runconfig.GoRunUtil;
 import com.goide.runconfig.testing.GoTestRunConfiguration;
 import com.goide.runconfig.testing.frameworks.gobench.GobenchFramework;
+import com.goide.runconfig.testing.frameworks.gobench.GobenchHistory;
 import com.goide.runconfig.testing.frameworks.gocheck.GocheckFramework;
 import com.goide.runconfig.testing.frameworks.gotest.GotestFramework;
 import com.goide.runconfig.ui.GoCommonSettingsPanel;
@@ -57,6 +58,14 @@ public class GoTestRunConfigurationEditorForm extends SettingsEditor<GoTestRunCo
   private JRadioButton myGotestFrameworkRadioButton;
   private JRadioButton myGocheckFrameworkRadioButton;
   private JRadioButton myGobenchRadioButton;
+  private JCheckBox myCompareWithBaselineCheckBox;
+  private JSpinner myBenchmarkCountSpinner;
+  private JButton myResetBaselineButton;
+  private JLabel myShardCountLabel;
+  private JSpinner myShardCountSpinner;
+  private JCheckBox myRunFailedFirstCheckBox;
+  private JTextField myCoverPackagesField;
+  @Nullable private String myConfigurationName;
 
   public GoTestRunConfigurationEditorForm(@NotNull Project project) {
     super(null);
@@ -65,6 +74,8 @@ public class GoTestRunConfigurationEditorForm extends SettingsEditor<GoTestRunCo
 
     installTestKindComboBox();
     installFileChoosers(project);
+    installBaselineSettings();
+    myShardCountSpinner.setModel(new SpinnerNumberModel(1, 1, 64, 1));
   }
 
   private void onTestKindChanged() {
@@ -84,6 +95,9 @@ public class GoTestRunConfigurationEditorForm extends SettingsEditor<GoTestRunCo
     myFileLabel.setVisible(file);
     myPatternEditor.setVisible(!file);
     myPatternLabel.setVisible(!file);
+    myShardCountLabel.setVisible(allInDirectory);
+    myShardCountSpinner.setVisible(allInDirectory);
+    myRunFailedFirstCheckBox.setVisible(allInDirectory);
   }
 
   @Override
@@ -101,6 +115,13 @@ public class GoTestRunConfigurationEditorForm extends SettingsEditor<GoTestRunCo
     myFileField.setText(filePath.isEmpty() ? configuration.getProject().getBasePath() : filePath);
 
     myPatternEditor.setText(configuration.getPattern());
+    myConfigurationName = configuration.getName();
+    myCompareWithBaselineCheckBox.setSelected(configuration.isCompareWithBaseline());
+    myBenchmarkCountSpinner.setValue(configuration.getBenchmarkCount());
+    onBaselineSettingsChanged();
+    myShardCountSpinner.setValue(configuration.getShardCount());
+    myRunFailedFirstCheckBox.setSelected(configuration.isRunFailedFirst());
+    myCoverPackagesField.setText(configuration.getCoverPackages());
 
     myCommonSettingsPanel.resetEditorFrom(configuration);
   }
@@ -119,6 +140,11 @@ public class GoTestRunConfigurationEditorForm extends SettingsEditor<GoTestRunCo
     configuration.setDirectoryPath(myDirectoryField.getText());
     configuration.setFilePath(myFileField.getText());
     configuration.setPattern(myPatternEditor.getText());
+    configuration.setCompareWithBaseline(myCompareWithBaselineCheckBox.isSelected());
+    configuration.setBenchmarkCount((Integer)myBenchmarkCountSpinner.getValue());
+    configuration.setShardCount((Integer)myShardCountSpinner.getValue());
+    configuration.setRunFailedFirst(myRunFailedFirstCheckBox.isSelected());
+    configuration.setCoverPackages(myCoverPackagesField.getText().trim());
 
     myCommonSettingsPanel.applyEditorTo(configuration);
   }
@@ -163,6 +189,36 @@ public class GoTestRunConfigurationEditorForm extends SettingsEditor<GoTestRunCo
     GoRunUtil.installFileChooser(project, myDirectoryField, true);
   }
 
+  private void onBaselineSettingsChanged() {
+    boolean gobench = myGobenchRadioButton.isSelected();
+    myCompareWithBaselineCheckBox.setVisible(gobench);
+    myBenchmarkCountSpinner.setVisible(gobench);
+    myBenchmarkCountSpinner.setEnabled(myCompareWithBaselineCheckBox.isSelected());
+    myResetBaselineButton.setVisible(gobench);
+  }
+
+  private void installBaselineSettings() {
+    myBenchmarkCountSpinner.setModel(new SpinnerNumberModel(GoTestRunConfiguration.DEFAULT_BENCHMARK_COUNT, 2, 100, 1));
+    ActionListener listener = new ActionListener() {
+      @Override
+      public void actionPerformed(@NotNull ActionEvent e) {
+        onBaselineSettingsChanged();
+      }
+    };
+    myCompareWithBaselineCheckBox.addActionListener(listener);
+    myGotestFrameworkRadioButton.addActionListener(listener);
+    myGocheckFrameworkRadioButton.addActionListener(listener);
+    myGobenchRadioButton.addActionListener(listener);
+    myResetBaselineButton.addActionListener(new ActionListener() {
+      @Override
+      public void actionPerformed(@NotNull ActionEvent e) {
+        if (myConfigurationName != null) {
+          GobenchHistory.forConfiguration(myProject, myConfigurationName).clear();
+        }
+      }
+    });
+  }
+
   private void installTestKindComboBox() {
     myTestKindComboBox.removeAllItems();
     myTestKindComboBox.setRenderer(getTestKindListCellRendererWrapper());
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.stubs.index;
+
+import com.goide.GoTypes;
+import com.goide.psi.GoNamedElement;
+import com.goide.stubs.*;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.IndexSink;
+import com.intellij.psi.stubs.StringStubIndexExtension;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.psi.stubs.StubIndex;
+import com.intellij.psi.stubs.StubIndexKey;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.IdFilter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Maps a produced type to the functions, methods, variables and constants producing it.
+ * Keys are type names without package qualifier and pointer, e.g. {@code Request} for both {@code Request} and
+ * {@code *http.Request}. Qualifiers cannot be resolved while indexing since imports may be aliased and different packages
+ * may have the same name, so callers should resolve the produced type of found elements. Functions with several results
+ * are not indexed, since a multi-value call cannot be used where a single value is expected.
+ */
+public class GoTypeProducersIndex extends StringStubIndexExtension<GoNamedElement> {
+  public static final StubIndexKey<String, GoNamedElement> KEY = StubIndexKey.createIndexKey("go.type.producers");
+  private static final int VERSION = 3;
+
+  @Override
+  public int getVersion() {
+    return VERSION;
+  }
+
+  @NotNull
+  @Override
+  public StubIndexKey<String, GoNamedElement> getKey() {
+    return KEY;
+  }
+
+  public static boolean process(@NotNull String typeKey,
+                                @NotNull Project project,
+                                @Nullable GlobalSearchScope scope,
+                                @Nullable IdFilter idFilter,
+                                @NotNull Processor<GoNamedElement> processor) {
+    return StubIndex.getInstance().processElements(KEY, typeKey, project, scope, idFilter, GoNamedElement.class, processor);
+  }
+
+  /**
+   * @param typeText text of a type as written in the declaration, e.g. {@code *http.Request}
+   * @return index key or null if the type is not a named one
+   */
+  @Nullable
+  public static String calcTypeKey(@Nullable String typeText) {
+    if (typeText == null) return null;
+    String text = StringUtil.trimLeading(typeText.trim(), '*').trim();
+    if (!isQualifiedIdentifier(text)) return null;
+    return text.substring(text.indexOf('.') + 1);
+  }
+
+  public static void indexProducer(@NotNull StubElement stub, @Nullable String typeText, @NotNull IndexSink sink) {
+    String key = calcTypeKey(typeText);
+    if (key != null) {
+      sink.occurrence(KEY, key);
+    }
+  }
+
+  /**
+   * Returns a text of the result type of the function or method declaration stub, or null if it has several results.
+   */
+  @Nullable
+  public static String getResultTypeText(@NotNull GoFunctionOrMethodDeclarationStub<?> stub) {
+    GoSignatureStub signature = findChild(stub, GoSignatureStub.class);
+    GoResultStub result = signature != null ? findChild(signature, GoResultStub.class) : null;
+    return result != null ? getSingleTypeText(result) : null;
+  }
+
+  /**
+   * Returns a text of the explicit type of var or const spec stub, e.g. {@code error} for {@code var ErrFoo error = ...}.
+   */
+  @Nullable
+  public static String getSpecTypeText(@Nullable StubElement specStub) {
+    GoTypeStub type = specStub != null ? findChild(specStub, GoTypeStub.class) : null;
+    return type != null ? type.getText() : null;
+  }
+
+  @Nullable
+  private static String getSingleTypeText(@NotNull StubElement<?> stub) {
+    for (StubElement child : stub.getChildrenStubs()) {
+      if (child instanceof GoTypeStub) {
+        if (child.getStubType() != GoTypes.TYPE_LIST) return ((GoTypeStub)child).getText();
+        List<GoTypeStub> types = findChildren(child, GoTypeStub.class);
+        return types.size() == 1 ? types.get(0).getText() : null;
+      }
+      if (child instanceof GoParametersStub) {
+        List<GoParameterDeclarationStub> declarations = findChildren(child, GoParameterDeclarationStub.class);
+        if (declarations.isEmpty()) return getSingleTypeText(child);
+        GoParameterDeclarationStub declaration = declarations.get(0);
+        if (declarations.size() > 1 || findChildren(declaration, GoParamDefinitionStub.class).size() > 1) return null;
+        return getSingleTypeText(declaration);
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static <T> T findChild(@NotNull StubElement<?> stub, @NotNull Class<T> clazz) {
+    return ContainerUtil.getFirstItem(findChildren(stub, clazz));
+  }
+
+  @NotNull
+  private static <T> List<T> findChildren(@NotNull StubElement<?> stub, @NotNull Class<T> clazz) {
+    List<T> result = ContainerUtil.newSmartList();
+    for (StubElement child : stub.getChildrenStubs()) {
+      if (clazz.isInstance(child)) result.add(clazz.cast(child));
+    }
+    return result;
+  }
+
+  private static boolean isQualifiedIdentifier(@NotNull String text) {
+    if (text.isEmpty()) return false;
+    boolean partStart = true;
+    int dots = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '.') {
+        if (partStart || ++dots > 1) return false;
+        partStart = true;
+      }
+      else if (partStart ? Character.isJavaIdentifierStart(c) && c != '$' : Character.isJavaIdentifierPart(c) && c != '$') {
+        partStart = false;
+      }
+      else {
+        return false;
+      }
+    }
+    return !partStart;
+  }
+}
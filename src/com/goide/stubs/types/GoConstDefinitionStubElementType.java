@@ -20,7 +20,9 @@ import com.goide.psi.GoConstDefinition;
 import com.goide.psi.GoFunctionOrMethodDeclaration;
 import com.goide.psi.impl.GoConstDefinitionImpl;
 import com.goide.stubs.GoConstDefinitionStub;
+import com.goide.stubs.index.GoTypeProducersIndex;
 import com.intellij.lang.ASTNode;
+import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import com.intellij.psi.stubs.StubOutputStream;
@@ -69,6 +71,12 @@ public class GoConstDefinitionStubElementType extends GoNamedStubElementType<GoC
     return new GoConstDefinitionStub(parentStub, this, dataStream.readName(), dataStream.readBoolean());
   }
 
+  @Override
+  public void indexStub(@NotNull GoConstDefinitionStub stub, @NotNull IndexSink sink) {
+    super.indexStub(stub, sink);
+    GoTypeProducersIndex.indexProducer(stub, GoTypeProducersIndex.getSpecTypeText(stub.getParentStub()), sink);
+  }
+
   @Override
   public boolean shouldCreateStub(@NotNull ASTNode node) {
     return super.shouldCreateStub(node) && PsiTreeUtil.getParentOfType(node.getPsi(), GoFunctionOrMethodDeclaration.class) == null;
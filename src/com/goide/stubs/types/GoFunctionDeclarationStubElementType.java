@@ -21,6 +21,8 @@ import com.goide.psi.GoNamedElement;
 import com.goide.psi.impl.GoFunctionDeclarationImpl;
 import com.goide.stubs.GoFunctionDeclarationStub;
 import com.goide.stubs.index.GoFunctionIndex;
+import com.goide.stubs.index.GoTypeProducersIndex;
+import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubIndexKey;
 import com.intellij.psi.stubs.StubInputStream;
@@ -75,6 +77,12 @@ public class GoFunctionDeclarationStubElementType extends GoNamedStubElementType
     return new GoFunctionDeclarationStub(parentStub, this, dataStream.readName(), dataStream.readBoolean());
   }
 
+  @Override
+  public void indexStub(@NotNull GoFunctionDeclarationStub stub, @NotNull IndexSink sink) {
+    super.indexStub(stub, sink);
+    GoTypeProducersIndex.indexProducer(stub, GoTypeProducersIndex.getResultTypeText(stub), sink);
+  }
+
   @NotNull
   @Override
   protected Collection<StubIndexKey<String, ? extends GoNamedElement>> getExtraIndexKeys() {
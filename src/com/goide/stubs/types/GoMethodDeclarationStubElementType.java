@@ -23,6 +23,7 @@ import com.goide.psi.impl.GoPsiImplUtil;
 import com.goide.stubs.GoFileStub;
 import com.goide.stubs.GoMethodDeclarationStub;
 import com.goide.stubs.index.GoMethodIndex;
+import com.goide.stubs.index.GoTypeProducersIndex;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
@@ -87,6 +88,7 @@ public class GoMethodDeclarationStubElementType extends GoNamedStubElementType<G
         }
       }
     }
+    GoTypeProducersIndex.indexProducer(stub, GoTypeProducersIndex.getResultTypeText(stub), sink);
   }
 
   @Nullable
@@ -20,7 +20,9 @@ import com.goide.psi.GoFunctionOrMethodDeclaration;
 import com.goide.psi.GoVarDefinition;
 import com.goide.psi.impl.GoVarDefinitionImpl;
 import com.goide.stubs.GoVarDefinitionStub;
+import com.goide.stubs.index.GoTypeProducersIndex;
 import com.intellij.lang.ASTNode;
+import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import com.intellij.psi.stubs.StubOutputStream;
@@ -69,6 +71,12 @@ public class GoVarDefinitionStubElementType extends GoNamedStubElementType<GoVar
     return new GoVarDefinitionStub(parentStub, this, dataStream.readName(), dataStream.readBoolean());
   }
 
+  @Override
+  public void indexStub(@NotNull GoVarDefinitionStub stub, @NotNull IndexSink sink) {
+    super.indexStub(stub, sink);
+    GoTypeProducersIndex.indexProducer(stub, GoTypeProducersIndex.getSpecTypeText(stub.getParentStub()), sink);
+  }
+
   @Override
   public boolean shouldCreateStub(@NotNull ASTNode node) {
     return super.shouldCreateStub(node) && PsiTreeUtil.getParentOfType(node.getPsi(), GoFunctionOrMethodDeclaration.class) == null;
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.actions.tool;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.MultiMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+public class GoFmtBatchTest extends UsefulTestCase {
+  public void testSplitAtCommandLineLengthLimit() {
+    List<String> paths = createPaths(300, 999);
+    List<GoFmtBatch.Batch> batches = split(paths, 1);
+    assertSize(10, batches);
+    for (GoFmtBatch.Batch batch : batches) {
+      assertSize(30, batch.getPaths());
+      assertTrue(getArgumentsLength(batch) <= GoFmtBatch.MAX_ARGUMENTS_LENGTH);
+    }
+    assertOrderedEquals(getAllPaths(batches), paths);
+  }
+
+  public void testPathOverLimitStartsNewBatch() {
+    List<String> paths = createPaths(2, GoFmtBatch.MAX_ARGUMENTS_LENGTH / 2);
+    List<GoFmtBatch.Batch> batches = split(paths, 1);
+    assertSize(2, batches);
+    assertOrderedEquals(getAllPaths(batches), paths);
+  }
+
+  public void testFilesAreSpreadAmongCpus() {
+    List<GoFmtBatch.Batch> batches = split(createPaths(400, 10), 4);
+    assertSize(4, batches);
+    for (GoFmtBatch.Batch batch : batches) {
+      assertSize(100, batch.getPaths());
+    }
+  }
+
+  public void testFewFilesAreNotSpread() {
+    List<GoFmtBatch.Batch> batches = split(createPaths(60, 10), 8);
+    assertSize(2, batches);
+    assertSize(50, batches.get(0).getPaths());
+    assertSize(10, batches.get(1).getPaths());
+  }
+
+  @NotNull
+  private static List<GoFmtBatch.Batch> split(@NotNull List<String> paths, int cpuCount) {
+    MultiMap<Module, String> pathsByModule = MultiMap.createLinked();
+    pathsByModule.putValues(null, paths);
+    return GoFmtBatch.splitIntoBatches(pathsByModule, cpuCount);
+  }
+
+  @NotNull
+  private static List<String> createPaths(int count, int length) {
+    List<String> paths = ContainerUtil.newArrayList();
+    for (int i = 0; i < count; i++) {
+      String name = "/" + i + ".go";
+      paths.add(StringUtil.repeat("a", length - name.length()) + name);
+    }
+    return paths;
+  }
+
+  @NotNull
+  private static List<String> getAllPaths(@NotNull List<GoFmtBatch.Batch> batches) {
+    List<String> result = ContainerUtil.newArrayList();
+    for (GoFmtBatch.Batch batch : batches) {
+      result.addAll(batch.getPaths());
+    }
+    return result;
+  }
+
+  private static int getArgumentsLength(@NotNull GoFmtBatch.Batch batch) {
+    int length = 0;
+    for (String path : batch.getPaths()) {
+      length += path.length() + 1;
+    }
+    return length;
+  }
+}
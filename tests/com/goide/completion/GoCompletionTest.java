@@ -16,6 +16,7 @@
 
 package com.goide.completion;
 
+import com.intellij.codeInsight.completion.CompletionType;
 import com.intellij.codeInsight.lookup.Lookup;
 import com.intellij.codeInsight.lookup.LookupElement;
 import com.intellij.codeInsight.lookup.LookupElementPresentation;
@@ -648,6 +649,65 @@ public class GoCompletionTest extends GoCompletionTestBase {
     doTestInclude(source, "s");
   }
 
+  public void testSmartProducersOfExpectedType() {
+    String source = "package foo; " +
+                    "type Request struct {}; type Response struct {}; " +
+                    "func NewRequest() *Request { return nil }; func ReadRequest() (Request, error) { return Request{}, nil }; " +
+                    "func NewResponse() *Response { return nil }; var DefaultRequest *Request; " +
+                    "func handle(r *Request) {}; func main() { handle(<caret>) }";
+    doTestVariants(source, CompletionType.SMART, 1, CheckType.EQUALS, "NewRequest", "DefaultRequest");
+  }
+
+  public void testSmartProducersOfExpectedValueType() {
+    String source = "package foo; " +
+                    "type Request struct {}; " +
+                    "func NewRequest() *Request { return nil }; func MakeRequest() (r Request) { return Request{} }; " +
+                    "func ReadRequests() (a, b Request) { return Request{}, Request{} }; var DefaultRequest Request; " +
+                    "func handle(r Request) {}; func main() { handle(<caret>) }";
+    doTestVariants(source, CompletionType.SMART, 1, CheckType.EQUALS, "MakeRequest", "DefaultRequest");
+  }
+
+  public void testSmartProducersFromOtherPackage() {
+    myFixture.addFileToProject("net/http/request.go", "package http; type Request struct {}; " +
+                                                      "func NewRequest() *Request { return nil }; " +
+                                                      "func newRequest() *Request { return nil }; " +
+                                                      "func ReadRequest() (*Request, error) { return nil, nil }");
+    String source = "package foo; import `net/http`; func handle(r *http.Request) {}; func main() { handle(<caret>) }";
+    doTestVariants(source, CompletionType.SMART, 1, CheckType.EQUALS, "http.NewRequest");
+  }
+
+  public void testSmartProducersWithPackageQualifier() {
+    myFixture.addFileToProject("net/http/request.go", "package http; type Request struct {}; type Client struct {}; " +
+                                                      "func NewRequest() *Request { return nil }; " +
+                                                      "func ReadRequest() (*Request, error) { return nil, nil }; " +
+                                                      "func NewClient() *Client { return nil }");
+    String source = "package foo; import `net/http`; func handle(r *http.Request) {}; func main() { handle(http.<caret>) }";
+    doTestVariants(source, CompletionType.SMART, 1, CheckType.EQUALS, "NewRequest");
+  }
+
+  public void testSmartProducersWithAliasedImport() {
+    myFixture.addFileToProject("net/http/request.go", "package http; type Request struct {}");
+    myFixture.addFileToProject("client/client.go", "package client; import h `net/http`; func Fetch() *h.Request { return nil }");
+    String source = "package foo; import `net/http`; func handle(r *http.Request) {}; func main() { handle(<caret>) }";
+    doTestVariants(source, CompletionType.SMART, 1, CheckType.EQUALS, "client.Fetch");
+  }
+
+  public void testSmartProducersOfSameNamedTypes() {
+    myFixture.addFileToProject("net/http/request.go", "package http; type Request struct {}; func NewRequest() *Request { return nil }");
+    myFixture.addFileToProject("fake/http/request.go", "package http; type Request struct {}; func NewFake() *Request { return nil }");
+    String source = "package foo; import `net/http`; type Request struct {}; func NewLocal() *Request { return nil }; " +
+                    "func handle(r *http.Request) {}; func main() { handle(<caret>) }";
+    doTestVariants(source, CompletionType.SMART, 1, CheckType.EQUALS, "http.NewRequest");
+  }
+
+  public void testSmartMethodProducers() {
+    String source = "package foo; type Conn struct {}; type Reader struct {}; " +
+                    "func (c *Conn) Reader() *Reader { return nil }; func (c *Conn) BufferedReader() Reader { return Reader{} }; " +
+                    "func (c *Conn) Close() error { return nil }; " +
+                    "func read(r *Reader) {}; func main() { c := &Conn{}; read(c.<caret>) }";
+    doTestVariants(source, CompletionType.SMART, 1, CheckType.EQUALS, "Reader");
+  }
+
   private void doTestEmptyCompletion() {
     myFixture.testCompletionVariants(getTestName(true) + ".go");
   }
@@ -20,13 +20,16 @@ import com.goide.GoCodeInsightFixtureTestCase;
 import com.goide.runconfig.testing.coverage.GoCoverageAnnotator;
 import com.goide.runconfig.testing.coverage.GoCoverageProjectData;
 import com.goide.runconfig.testing.coverage.GoCoverageRunner;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 
 public class GoCoverageCalculationTest extends GoCodeInsightFixtureTestCase {
   public void testCoverage() throws IOException {
@@ -73,6 +76,19 @@ public class GoCoverageCalculationTest extends GoCodeInsightFixtureTestCase {
     assertEquals("80% statements", mergeAnnotator.getFileCoverageInformationString(file));
   }
 
+  public void testMergingProfiles() throws IOException {
+    VirtualFile file = myFixture.getTempDirFixture().createFile("merging.go");
+    File merged = FileUtil.createTempFile("coverage", ".out", true);
+    GoCoverageRunner.mergeProfiles(Arrays.asList(new File(getTestDataPath(), "coverage.out"),
+                                                 new File(getTestDataPath(), "missing.out"),
+                                                 new File(getTestDataPath(), "coverage_for_merge.out")), merged);
+
+    String text = FileUtil.loadFile(merged);
+    assertTrue(text.startsWith("mode: "));
+    assertEquals(1, StringUtil.getOccurrenceCount(text, "mode:"));
+    assertEquals("80% statements", annotate(parseData(merged)).getFileCoverageInformationString(file));
+  }
+
   private GoCoverageAnnotator annotate() throws IOException {
     return annotate(file());
   }
@@ -95,15 +111,20 @@ public class GoCoverageCalculationTest extends GoCodeInsightFixtureTestCase {
 
   @NotNull
   private GoCoverageProjectData parseData(@NotNull String coverageSource) throws IOException {
-    BufferedReader reader = new BufferedReader(new FileReader(new File(getTestDataPath(), coverageSource)));
+    return parseData(new File(getTestDataPath(), coverageSource));
+  }
+
+  @NotNull
+  private GoCoverageProjectData parseData(@NotNull File coverageFile) throws IOException {
+    InputStream input = new FileInputStream(coverageFile);
     try {
-      GoCoverageProjectData data = GoCoverageRunner.parseCoverage(reader, myFixture.getProject(), myModule);
+      GoCoverageProjectData data = GoCoverageRunner.parseCoverage(input, myFixture.getProject(), myModule);
       assertNotNull(data);
       return data;
     }
     finally {
       //noinspection ThrowFromFinallyBlock
-      reader.close();
+      input.close();
     }
   }
 
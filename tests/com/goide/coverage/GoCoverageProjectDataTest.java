@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.coverage;
+
+import com.goide.runconfig.testing.coverage.GoCoverageProjectData;
+import com.intellij.testFramework.UsefulTestCase;
+
+public class GoCoverageProjectDataTest extends UsefulTestCase {
+  public void testRangesAreSortedByPosition() {
+    GoCoverageProjectData.FileData data = new GoCoverageProjectData.FileData("a.go");
+    data.add(24, 2, 24, 50, 1, 1);
+    data.add(20, 56, 21, 14, 1, 1);
+    data.add(21, 14, 23, 3, 1, 0);
+    data.compact();
+    assertEquals(3, data.getRangeCount());
+    assertEquals(20, data.getStartLine(0));
+    assertEquals(21, data.getStartLine(1));
+    assertEquals(24, data.getStartLine(2));
+  }
+
+  public void testDuplicateRangesAreSummed() {
+    GoCoverageProjectData first = new GoCoverageProjectData();
+    first.addData("a.go", 20, 56, 21, 14, 1, 1);
+    first.addData("a.go", 20, 56, 21, 14, 1, 2);
+    GoCoverageProjectData second = new GoCoverageProjectData();
+    second.addData("a.go", 20, 56, 21, 14, 1, 4);
+    second.addData("b.go", 1, 1, 2, 2, 1, 0);
+    first.merge(second);
+
+    GoCoverageProjectData.FileData data = first.getFileData("a.go");
+    assertNotNull(data);
+    assertEquals(1, data.getRangeCount());
+    assertEquals(7, data.getHits(0));
+    assertNotNull(first.getFileData("b.go"));
+  }
+
+  public void testHitsDoNotOverflow() {
+    GoCoverageProjectData.FileData data = new GoCoverageProjectData.FileData("a.go");
+    data.add(1, 1, 2, 2, 1, Integer.MAX_VALUE);
+    data.add(1, 1, 2, 2, 1, 10);
+    data.compact();
+    assertEquals(1, data.getRangeCount());
+    assertEquals(Integer.MAX_VALUE, data.getHits(0));
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.goide.dlv.protocol.DlvApi;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.xdebugger.XDebuggerUtil;
+import com.intellij.xdebugger.XSourcePosition;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+public class DlvFrameSnapshotTest extends GoCodeInsightFixtureTestCase {
+  public void testLocalsShadowArguments() {
+    DlvFrameSnapshot snapshot = new DlvFrameSnapshot(null);
+    snapshot.setVariables(Arrays.asList(variable("x", "1"), variable("y", "2"), variable("x", "3")));
+    assertEquals("1", snapshot.getVariable("x").value);
+    assertEquals("2", snapshot.getVariable("y").value);
+    assertNull(snapshot.getVariable("z"));
+  }
+
+  public void testModificationInvalidatesVariables() {
+    DlvFrameSnapshot snapshot = new DlvFrameSnapshot(null);
+    snapshot.setVariables(Arrays.asList(variable("x", "1"), variable("p", "*int 0xc420")));
+    snapshot.invalidateVariables();
+    assertNull(snapshot.getVariable("x"));
+    assertNull(snapshot.getVariable("p"));
+
+    snapshot.setVariables(Arrays.asList(variable("x", "42")));
+    assertEquals("42", snapshot.getVariable("x").value);
+  }
+
+  public void testInnermostDeclarationEnclosingPosition() {
+    String text = "package main\n\n" +
+                  "func main() {\n" +
+                  "\tx := 1\n" +
+                  "\tif true {\n" +
+                  "\t\tx := 2\n" +
+                  "\t\tprintln(x)\n" +
+                  "\t}\n" +
+                  "\tprintln(x)\n" +
+                  "\t{\n" +
+                  "\t\tx := 3\n" +
+                  "\t\tprintln(x)\n" +
+                  "\t}\n" +
+                  "}\n";
+    VirtualFile file = myFixture.configureByText("main.go", text).getVirtualFile();
+    int outer = text.indexOf("x := 1");
+    int inner = text.indexOf("x := 2");
+    int block = text.indexOf("x := 3");
+    assertEquals(inner, getDeclarationOffset(file, text.indexOf("println(x)"), "x"));
+    assertEquals(outer, getDeclarationOffset(file, text.indexOf("println(x)", inner + 10), "x"));
+    assertEquals(block, getDeclarationOffset(file, text.lastIndexOf("println(x)"), "x"));
+    assertEquals(outer, getDeclarationOffset(file, block, "x"));
+    assertEquals(-1, getDeclarationOffset(file, outer - 1, "x"));
+  }
+
+  private int getDeclarationOffset(@NotNull VirtualFile file, int offset, @NotNull String name) {
+    DlvFrameSnapshot snapshot = new DlvFrameSnapshot(XDebuggerUtil.getInstance().createPositionByOffset(file, offset));
+    XSourcePosition declaration = snapshot.getDeclarationPosition(myFixture.getProject(), name);
+    return declaration != null ? declaration.getOffset() : -1;
+  }
+
+  @NotNull
+  private static DlvApi.Variable variable(@NotNull String name, @NotNull String value) {
+    DlvApi.Variable variable = new DlvApi.Variable();
+    variable.name = name;
+    variable.value = value;
+    return variable;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv;
+
+import com.goide.dlv.breakpoint.DlvHitCondition;
+import com.intellij.testFramework.UsefulTestCase;
+import org.jetbrains.annotations.NotNull;
+
+public class DlvHitConditionTest extends UsefulTestCase {
+  public void testGreater() {
+    DlvHitCondition condition = parse("> 5");
+    assertEquals("> 5", condition.getText());
+    assertFalse(condition.matches(5));
+    assertTrue(condition.matches(6));
+  }
+
+  public void testEquals() {
+    DlvHitCondition condition = parse("== 3");
+    assertEquals("== 3", condition.getText());
+    assertFalse(condition.matches(2));
+    assertTrue(condition.matches(3));
+    assertFalse(condition.matches(4));
+  }
+
+  public void testPlainNumberMeansEquals() {
+    assertEquals("== 3", parse("3").getText());
+  }
+
+  public void testModulo() {
+    DlvHitCondition condition = parse("% 2");
+    assertEquals("% 2", condition.getText());
+    assertFalse(condition.matches(1));
+    assertTrue(condition.matches(2));
+    assertTrue(condition.matches(4));
+  }
+
+  public void testLongestOperatorWins() {
+    DlvHitCondition condition = parse(">=5");
+    assertEquals(">= 5", condition.getText());
+    assertTrue(condition.matches(5));
+  }
+
+  public void testWhitespace() {
+    assertEquals("> 5", parse("  >5 ").getText());
+    assertEquals("!= 1", parse("\t!=   1").getText());
+  }
+
+  public void testEmpty() {
+    assertNull(DlvHitCondition.parse(null));
+    assertNull(DlvHitCondition.parse("  "));
+    assertNull(DlvHitCondition.getError(null));
+    assertNull(DlvHitCondition.getError("  "));
+  }
+
+  public void testInvalid() {
+    for (String text : new String[]{"abc", "> ", ">> 5", "5 >", "% 0", "== 3.5", "= 3"}) {
+      assertNull(text, DlvHitCondition.parse(text));
+      assertNotNull(text, DlvHitCondition.getError(text));
+    }
+  }
+
+  @NotNull
+  private static DlvHitCondition parse(@NotNull String text) {
+    DlvHitCondition condition = DlvHitCondition.parse(text);
+    assertNotNull(text, condition);
+    assertNull(DlvHitCondition.getError(text));
+    return condition;
+  }
+}
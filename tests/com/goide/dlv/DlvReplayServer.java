@@ -0,0 +1,196 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.intellij.openapi.util.io.StreamUtil;
+import com.intellij.openapi.vfs.CharsetToolkit;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mock Delve server answering requests with responses from a session recorded by {@link DlvRecorder}.
+ * A request gets the first not yet used response recorded for the same method. If a clock is given,
+ * it's advanced by the recorded delay before the response is sent.
+ */
+public class DlvReplayServer implements Closeable {
+  private final List<Exchange> myExchanges;
+  @Nullable private final ReplayClock myClock;
+  private final Map<String, Integer> myResponseBytes = ContainerUtil.newConcurrentMap();
+  private final ServerSocket myServerSocket;
+
+  public DlvReplayServer(@NotNull Reader recording, @Nullable ReplayClock clock) throws IOException {
+    myExchanges = readExchanges(recording);
+    myClock = clock;
+    myServerSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          serve();
+        }
+        catch (IOException ignored) {
+          // closed
+        }
+      }
+    }, "dlv replay server");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public int getPort() {
+    return myServerSocket.getLocalPort();
+  }
+
+  /**
+   * Total size of the responses sent for the method, without the separating newlines
+   */
+  public int getResponseBytes(@NotNull String method) {
+    Integer bytes = myResponseBytes.get(method);
+    return bytes != null ? bytes : 0;
+  }
+
+  private void serve() throws IOException {
+    Socket socket = myServerSocket.accept();
+    try {
+      JsonReader reader = new JsonReader(new InputStreamReader(socket.getInputStream(), CharsetToolkit.UTF8_CHARSET));
+      reader.setLenient(true);
+      Writer writer = new OutputStreamWriter(socket.getOutputStream(), CharsetToolkit.UTF8_CHARSET);
+      JsonParser parser = new JsonParser();
+      while (reader.peek() != JsonToken.END_DOCUMENT) {
+        JsonObject request = parser.parse(reader).getAsJsonObject();
+        String method = request.get("method").getAsString();
+        JsonElement id = request.get("id");
+        Exchange exchange = take(method);
+        JsonObject response;
+        if (exchange == null) {
+          response = new JsonObject();
+          response.add("result", JsonNull.INSTANCE);
+          response.addProperty("error", "no recorded response for " + method);
+        }
+        else {
+          if (myClock != null) myClock.advance(exchange.delayMicros);
+          response = parser.parse(exchange.response).getAsJsonObject();
+        }
+        response.add("id", id != null ? id : new JsonPrimitive(-1));
+        String text = response.toString();
+        Integer bytes = myResponseBytes.get(method);
+        myResponseBytes.put(method, (bytes != null ? bytes : 0) + text.getBytes(CharsetToolkit.UTF8_CHARSET).length);
+        writer.write(text);
+        writer.write('\n');
+        writer.flush();
+      }
+    }
+    finally {
+      StreamUtil.closeStream(socket);
+    }
+  }
+
+  @Nullable
+  private synchronized Exchange take(@NotNull String method) {
+    for (Exchange exchange : myExchanges) {
+      if (!exchange.used && exchange.method.equals(method)) {
+        exchange.used = true;
+        return exchange;
+      }
+    }
+    return null;
+  }
+
+  @NotNull
+  private static List<Exchange> readExchanges(@NotNull Reader recording) throws IOException {
+    List<Exchange> result = ContainerUtil.newArrayList();
+    Map<Integer, Exchange> pending = ContainerUtil.newHashMap();
+    JsonReader reader = new JsonReader(recording);
+    reader.setLenient(true);
+    JsonParser parser = new JsonParser();
+    try {
+      while (reader.peek() != JsonToken.END_DOCUMENT) {
+        JsonObject frame = parser.parse(reader).getAsJsonObject();
+        long time = frame.get("t").getAsLong();
+        JsonObject message = frame.getAsJsonObject("msg");
+        int id = message.get("id").getAsInt();
+        if (DlvRecorder.OUT.equals(frame.get("dir").getAsString())) {
+          pending.put(id, new Exchange(message.get("method").getAsString(), time));
+        }
+        else {
+          Exchange exchange = pending.remove(id);
+          if (exchange != null) {
+            exchange.response = message.toString();
+            exchange.delayMicros = time - exchange.delayMicros;
+            result.add(exchange);
+          }
+        }
+      }
+    }
+    finally {
+      reader.close();
+    }
+    return result;
+  }
+
+  @Override
+  public void close() throws IOException {
+    myServerSocket.close();
+  }
+
+  /**
+   * Clock that stands still unless the server replays a delay, so measured latencies are exactly the recorded ones
+   */
+  public static class ReplayClock implements DlvMetrics.Clock {
+    private final AtomicLong myNanos = new AtomicLong();
+
+    @Override
+    public long nanoTime() {
+      return myNanos.get();
+    }
+
+    private void advance(long micros) {
+      myNanos.addAndGet(micros * 1000);
+    }
+  }
+
+  private static class Exchange {
+    @NotNull private final String method;
+    private String response;
+    /**
+     * Time of the request until the response is read, then the delay between them
+     */
+    private long delayMicros;
+    private boolean used;
+
+    public Exchange(@NotNull String method, long requestMicros) {
+      this.method = method;
+      delayMicros = requestMicros;
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv;
+
+import com.goide.dlv.protocol.DlvApi;
+import com.goide.dlv.protocol.DlvRequest;
+import com.intellij.openapi.util.Pair;
+import com.intellij.testFramework.UsefulTestCase;
+import com.intellij.util.Consumer;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.concurrency.Promise;
+import org.jetbrains.io.NettyKt;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class DlvReplayTest extends UsefulTestCase {
+  private static final String RECORDING =
+    "{\"t\":100,\"dir\":\"out\",\"msg\":{\"method\":\"RPCServer.CreateBreakpoint\"," +
+    "\"params\":[{\"file\":\"/src/main.go\",\"line\":5}],\"id\":0}}\n" +
+    "{\"t\":300,\"dir\":\"in\",\"msg\":{\"id\":0,\"result\":{\"id\":1,\"file\":\"/src/main.go\",\"line\":5},\"error\":null}}\n" +
+    "{\"t\":400,\"dir\":\"out\",\"msg\":{\"method\":\"RPCServer.Command\",\"params\":[{\"Name\":\"continue\"}],\"id\":1}}\n" +
+    "{\"t\":50400,\"dir\":\"in\",\"msg\":{\"id\":1,\"result\":{\"breakPoint\":{\"id\":1,\"line\":5}," +
+    "\"currentThread\":{\"id\":7},\"exited\":false},\"error\":null}}\n" +
+    "{\"t\":50500,\"dir\":\"out\",\"msg\":{\"method\":\"RPCServer.SetSymbol\",\"params\":[],\"id\":2}}\n" +
+    "{\"t\":50600,\"dir\":\"in\",\"msg\":{\"id\":2,\"result\":null,\"error\":null}}\n";
+
+  private DlvReplayServer myServer;
+  private Channel myChannel;
+  private DlvCommandProcessor myProcessor;
+  private final AtomicInteger myWrittenBytes = new AtomicInteger();
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      if (myChannel != null) myChannel.close().awaitUninterruptibly();
+      if (myServer != null) myServer.close();
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testReplay() throws Exception {
+    connect(null, null);
+    DlvApi.Breakpoint breakpoint = await(myProcessor.send(new DlvRequest.CreateBreakpoint("/src/main.go", 5)));
+    assertEquals(1, breakpoint.id);
+    DlvApi.DebuggerState state = await(myProcessor.send(new DlvRequest.Command(DlvApi.CONTINUE)));
+    assertEquals(7, state.currentThread.id);
+    assertEquals(5, state.breakPoint.line);
+  }
+
+  public void testNullResultIsSuccess() throws Exception {
+    connect(null, null);
+    assertNull(await(myProcessor.send(new DlvRequest.SetSymbol("x", "1", 0, 0))));
+    assertEquals(0, myProcessor.getPendingResultCount());
+  }
+
+  public void testErrorResponseReleasesResultAdapter() throws Exception {
+    connect(null, null);
+    String error = awaitError(myProcessor.send(new DlvRequest.ListGoroutines()));
+    assertTrue(error, error.contains("no recorded response for RPCServer.ListGoroutines"));
+    assertEquals(0, myProcessor.getPendingResultCount());
+
+    await(myProcessor.send(new DlvRequest.CreateBreakpoint("/src/main.go", 5)));
+    assertEquals(0, myProcessor.getPendingResultCount());
+  }
+
+  public void testFailedWriteReleasesResultAdapter() throws Exception {
+    myProcessor = new DlvCommandProcessor() {
+      @Override
+      protected boolean doWrite(@NotNull ByteBuf content) {
+        return false;
+      }
+    };
+    awaitError(myProcessor.send(new DlvRequest.ListGoroutines()));
+    assertEquals(0, myProcessor.getPendingResultCount());
+    assertEmpty(myProcessor.getMetrics().getStats());
+  }
+
+  public void testLatencyMetrics() throws Exception {
+    connect(new DlvReplayServer.ReplayClock(), null);
+    await(myProcessor.send(new DlvRequest.CreateBreakpoint("/src/main.go", 5)));
+    int bytesOut = myWrittenBytes.get();
+    await(myProcessor.send(new DlvRequest.Command(DlvApi.CONTINUE)));
+    bytesOut = myWrittenBytes.get() - bytesOut;
+
+    List<DlvMetrics.MethodStats> stats = myProcessor.getMetrics().getStats();
+    assertSize(2, stats);
+    DlvMetrics.MethodStats command = stats.get(0);
+    assertEquals("RPCServer.Command", command.getMethod());
+    assertEquals(1, command.getCount());
+    assertEquals(command.toString(), TimeUnit.MILLISECONDS.toNanos(50), command.getMaxNanos());
+    assertEquals(bytesOut, command.getBytesOut());
+    assertEquals(myServer.getResponseBytes("RPCServer.Command"), command.getBytesIn());
+
+    DlvMetrics.MethodStats createBreakpoint = stats.get(1);
+    assertEquals(1, createBreakpoint.getCount());
+    assertEquals(createBreakpoint.toString(), TimeUnit.MICROSECONDS.toNanos(200), createBreakpoint.getMaxNanos());
+  }
+
+  public void testRecordedSessionCanBeReplayed() throws Exception {
+    File recording = createTempFile("dlv-session.json", null);
+    DlvRecorder recorder = new DlvRecorder(recording);
+    connect(null, recorder);
+    await(myProcessor.send(new DlvRequest.CreateBreakpoint("/src/main.go", 5)));
+    await(myProcessor.send(new DlvRequest.Command(DlvApi.CONTINUE)));
+    myChannel.close().awaitUninterruptibly();
+    myServer.close();
+    recorder.close();
+
+    myServer = new DlvReplayServer(new FileReader(recording), null);
+    myChannel = null;
+    connectTo(myServer, null, DlvMetrics.SYSTEM_CLOCK);
+    assertEquals(7, await(myProcessor.send(new DlvRequest.Command(DlvApi.CONTINUE))).currentThread.id);
+  }
+
+  private void connect(@Nullable DlvReplayServer.ReplayClock clock, @Nullable DlvRecorder recorder) throws IOException {
+    myServer = new DlvReplayServer(new StringReader(RECORDING), clock);
+    connectTo(myServer, recorder, clock != null ? clock : DlvMetrics.SYSTEM_CLOCK);
+  }
+
+  private void connectTo(@NotNull DlvReplayServer server, @Nullable final DlvRecorder recorder, @NotNull DlvMetrics.Clock clock) {
+    final AtomicReference<Channel> channel = new AtomicReference<Channel>();
+    myProcessor = new DlvCommandProcessor(clock) {
+      @Override
+      protected boolean doWrite(@NotNull ByteBuf content) {
+        myWrittenBytes.addAndGet(content.readableBytes());
+        if (recorder != null) recorder.record(DlvRecorder.OUT, content);
+        channel.get().writeAndFlush(content);
+        return true;
+      }
+    };
+    myChannel = NettyKt.oioClientBootstrap().handler(new ChannelInitializer() {
+      @Override
+      protected void initChannel(@NotNull Channel ch) throws Exception {
+        DlvVm.installInboundHandler(ch, myProcessor, recorder);
+      }
+    }).connect(InetAddress.getLoopbackAddress(), server.getPort()).syncUninterruptibly().channel();
+    channel.set(myChannel);
+  }
+
+  private static <T> T await(@NotNull Promise<T> promise) throws InterruptedException {
+    Pair<T, String> outcome = waitFor(promise);
+    assertNull(outcome.second, outcome.second);
+    return outcome.first;
+  }
+
+  @NotNull
+  private static String awaitError(@NotNull Promise<?> promise) throws InterruptedException {
+    String error = waitFor(promise).second;
+    assertNotNull("promise should be rejected", error);
+    return error;
+  }
+
+  @NotNull
+  private static <T> Pair<T, String> waitFor(@NotNull Promise<T> promise) throws InterruptedException {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicReference<T> result = new AtomicReference<T>();
+    final AtomicReference<String> error = new AtomicReference<String>();
+    promise.done(new Consumer<T>() {
+      @Override
+      public void consume(T t) {
+        result.set(t);
+        latch.countDown();
+      }
+    }).rejected(new Consumer<Throwable>() {
+      @Override
+      public void consume(Throwable throwable) {
+        error.set(String.valueOf(throwable.getMessage()));
+        latch.countDown();
+      }
+    });
+    assertTrue("no response", latch.await(10, TimeUnit.SECONDS));
+    return Pair.create(result.get(), error.get());
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.xdebugger.XSourcePosition;
+
+public class DlvTypePositionCacheTest extends GoCodeInsightFixtureTestCase {
+  public void testMainTypeIsFoundInDebuggedPackage() {
+    myFixture.getTempDirFixture().createFile("server/main.go", "package main\n\ntype Config struct {}");
+    VirtualFile client = myFixture.getTempDirFixture().createFile("client/main.go", "package main\n\ntype Config struct {}");
+    XSourcePosition position = new DlvTypePositionCache(client.getParent()).find(myFixture.getProject(), "*main.Config");
+    assertNotNull(position);
+    assertEquals(client, position.getFile());
+  }
+
+  public void testTypeIsFoundByImportPath() {
+    myFixture.getTempDirFixture().createFile("other/lib/lib.go", "package lib\n\ntype Config struct {}");
+    VirtualFile lib = myFixture.getTempDirFixture().createFile("lib/lib.go", "package lib\n\ntype Config struct {}");
+    XSourcePosition position = new DlvTypePositionCache(null).find(myFixture.getProject(), "lib.Config");
+    assertNotNull(position);
+    assertEquals(lib, position.getFile());
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.dlv;
+
+import com.intellij.testFramework.UsefulTestCase;
+
+public class DlvXValueTest extends UsefulTestCase {
+  public void testWholeRunes() {
+    assertEquals(0, DlvXValue.getCutRuneLength(""));
+    assertEquals(0, DlvXValue.getCutRuneLength("hello, \u4e16\u754c"));
+  }
+
+  public void testCutRune() {
+    assertEquals(1, DlvXValue.getCutRuneLength("hello\uFFFD"));
+    assertEquals(2, DlvXValue.getCutRuneLength("hello\uFFFD\uFFFD"));
+    assertEquals(3, DlvXValue.getCutRuneLength("hello\uFFFD\uFFFD\uFFFD"));
+  }
+
+  public void testRuneIsAtMostFourBytes() {
+    assertEquals(3, DlvXValue.getCutRuneLength("\uFFFD\uFFFD\uFFFD\uFFFD\uFFFD"));
+  }
+}
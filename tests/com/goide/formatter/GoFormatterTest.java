@@ -17,8 +17,12 @@
 package com.goide.formatter;
 
 import com.goide.GoCodeInsightFixtureTestCase;
+import com.goide.GoLanguage;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.psi.codeStyle.CodeStyleManager;
+import com.intellij.psi.codeStyle.CodeStyleSettings;
+import com.intellij.psi.codeStyle.CodeStyleSettingsManager;
+import com.intellij.psi.codeStyle.CommonCodeStyleSettings;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -44,6 +48,27 @@ public class GoFormatterTest extends GoCodeInsightFixtureTestCase {
   public void testEmptyStatementInForClause()       { doTest(); }
   public void testExpressionsContinuationIndent()   { doTest(); }
 
+  public void testChangedSettingsInvalidateSpacingRules() {
+    CodeStyleSettingsManager manager = CodeStyleSettingsManager.getInstance(getProject());
+    CodeStyleSettings settings = CodeStyleSettingsManager.getSettings(getProject()).clone();
+    manager.setTemporarySettings(settings);
+    try {
+      CommonCodeStyleSettings commonSettings = settings.getCommonSettings(GoLanguage.INSTANCE);
+      commonSettings.KEEP_BLANK_LINES_IN_CODE = 2;
+      String text = "package main\n\nfunc main() {\n\t// comment\n\n\n\tprintln()\n}\n";
+      myFixture.configureByText("a.go", text);
+      reformat();
+      myFixture.checkResult(text);
+
+      commonSettings.KEEP_BLANK_LINES_IN_CODE = 0;
+      reformat();
+      myFixture.checkResult("package main\n\nfunc main() {\n\t// comment\n\tprintln()\n}\n");
+    }
+    finally {
+      manager.dropTemporarySettings();
+    }
+  }
+
   private void doTest() { doTest(null); }
 
   private void doTestEnter() { doTest('\n'); }
@@ -57,16 +82,20 @@ public class GoFormatterTest extends GoCodeInsightFixtureTestCase {
 
   private String doTest(@Nullable Character c, String testName) {
     if (c == null) {
-      WriteCommandAction.runWriteCommandAction(myFixture.getProject(), new Runnable() {
-        @Override
-        public void run() {
-          CodeStyleManager.getInstance(getProject()).reformat(myFixture.getFile());
-        }
-      });
+      reformat();
     }
     else {
       myFixture.type(c);
     }
     return String.format("%s-after.go", testName);
   }
+
+  private void reformat() {
+    WriteCommandAction.runWriteCommandAction(myFixture.getProject(), new Runnable() {
+      @Override
+      public void run() {
+        CodeStyleManager.getInstance(getProject()).reformat(myFixture.getFile());
+      }
+    });
+  }
 }
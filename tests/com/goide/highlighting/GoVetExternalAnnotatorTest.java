@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.highlighting;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.MultiMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Map;
+
+public class GoVetExternalAnnotatorTest extends GoCodeInsightFixtureTestCase {
+  public void testParseOutput() {
+    MultiMap<String, GoVetExternalAnnotator.Problem> problems = GoVetExternalAnnotator.parseOutput(
+      "main.go:12: unreachable code\n" +
+      "./util.go:5:2: struct field tag `json:x` not compatible with reflect.StructTag.Get\n" +
+      "/home/user/go/src/foo/main.go:20: arg x for printf verb %d of wrong type: string\n" +
+      "exit status 1\n", "/home/user/go/src/foo");
+    assertSameElements(problems.keySet(), "main.go", "util.go");
+    assertEquals("[12:0: unreachable code, 20:0: arg x for printf verb %d of wrong type: string]",
+                 problems.get("main.go").toString());
+    assertEquals("5:2: struct field tag `json:x` not compatible with reflect.StructTag.Get",
+                 String.valueOf(ContainerUtil.getFirstItem(problems.get("util.go"))));
+  }
+
+  public void testIgnoresUnrelatedLines() {
+    assertTrue(GoVetExternalAnnotator.parseOutput("GOROOT=/usr/local/go\nexit status 1\n", "/home/user/go/src/foo").isEmpty());
+  }
+
+  public void testIgnoresFilesOutsideOfDirectory() {
+    MultiMap<String, GoVetExternalAnnotator.Problem> problems = GoVetExternalAnnotator.parseOutput(
+      "sub/main.go:3: unreachable code\n" +
+      "./sub/util.go:4: unreachable code\n" +
+      "/home/user/go/src/foo/sub/main.go:5: unreachable code\n" +
+      "../bar/main.go:6: unreachable code\n" +
+      "/home/user/go/src/bar/main.go:7: unreachable code\n" +
+      "main.go:8: unreachable code\n", "/home/user/go/src/foo");
+    assertSameElements(problems.keySet(), "main.go");
+    assertEquals("[8:0: unreachable code]", problems.get("main.go").toString());
+  }
+
+  public void testFingerprintTracksGoFilesOnly() throws IOException {
+    VirtualFile main = myFixture.getTempDirFixture().createFile("vet/main.go", "package main");
+    VirtualFile notes = myFixture.getTempDirFixture().createFile("vet/notes.txt", "notes");
+    VirtualFile directory = main.getParent();
+    Map<String, Long> fingerprint = GoVetExternalAnnotator.calcFingerprint(directory);
+    assertSameElements(fingerprint.keySet(), "main.go");
+    assertEquals(fingerprint, GoVetExternalAnnotator.calcFingerprint(directory));
+
+    saveText(notes, "more notes");
+    assertEquals(fingerprint, GoVetExternalAnnotator.calcFingerprint(directory));
+
+    saveText(main, "package main\n\nfunc main() {}");
+    Map<String, Long> modified = GoVetExternalAnnotator.calcFingerprint(directory);
+    assertFalse(fingerprint.equals(modified));
+
+    myFixture.getTempDirFixture().createFile("vet/util.go", "package main");
+    assertFalse(modified.equals(GoVetExternalAnnotator.calcFingerprint(directory)));
+  }
+
+  private static void saveText(@NotNull final VirtualFile file, @NotNull final String text) throws IOException {
+    ApplicationManager.getApplication().runWriteAction(new ThrowableComputable<Void, IOException>() {
+      @Override
+      public Void compute() throws IOException {
+        VfsUtil.saveText(file, text);
+        return null;
+      }
+    });
+  }
+}
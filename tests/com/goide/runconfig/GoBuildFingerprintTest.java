@@ -0,0 +1,105 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig;
+
+import com.goide.GoCodeInsightFixtureTestCase;
+import com.goide.runconfig.application.GoApplicationConfiguration;
+import com.goide.runconfig.application.GoApplicationRunConfigurationType;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.vfs.VfsUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+public class GoBuildFingerprintTest extends GoCodeInsightFixtureTestCase {
+  private VirtualFile myMain;
+  private VirtualFile myLib;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myMain = myFixture.getTempDirFixture().createFile("app/main.go", "package main\n\nimport \"lib\"\n\nfunc main() { lib.Run() }");
+    myLib = myFixture.getTempDirFixture().createFile("lib/lib.go", "package lib\n\nfunc Run() {}");
+  }
+
+  public void testSameInputs() {
+    String fingerprint = compute("go", "build", "app");
+    assertNotNull(fingerprint);
+    assertEquals(fingerprint, compute("go", "build", "app"));
+  }
+
+  public void testPackageChange() throws IOException {
+    String fingerprint = compute("go", "build", "app");
+    saveText(myMain, "package main\n\nimport \"lib\"\n\nfunc main() { lib.Run(); lib.Run() }");
+    assertFalse(fingerprint.equals(compute("go", "build", "app")));
+  }
+
+  public void testDependencyChange() throws IOException {
+    String fingerprint = compute("go", "build", "app");
+    saveText(myLib, "package lib\n\nfunc Run() { println() }");
+    assertFalse(fingerprint.equals(compute("go", "build", "app")));
+  }
+
+  public void testNewDependency() throws IOException {
+    VirtualFile util = myFixture.getTempDirFixture().createFile("util/util.go", "package util\n\nfunc Help() {}");
+    compute("go", "build", "app");
+    saveText(myLib, "package lib\n\nimport \"util\"\n\nfunc Run() { util.Help() }");
+    String fingerprint = compute("go", "build", "app");
+    saveText(util, "package util\n\nfunc Help() { println() }");
+    assertFalse(fingerprint.equals(compute("go", "build", "app")));
+  }
+
+  public void testTestFilesAreIgnored() {
+    String fingerprint = compute("go", "build", "app");
+    myFixture.getTempDirFixture().createFile("lib/lib_test.go", "package lib");
+    assertEquals(fingerprint, compute("go", "build", "app"));
+  }
+
+  public void testBuildFlags() {
+    String fingerprint = compute("go", "build", "app");
+    assertFalse(fingerprint.equals(compute("go", "build", "-race", "app")));
+    assertFalse(fingerprint.equals(compute("go", "build", "-gcflags", "-N -l", "app")));
+  }
+
+  public void testUnresolvedImport() throws IOException {
+    saveText(myLib, "package lib\n\nimport \"missing\"\n\nfunc Run() { missing.Run() }");
+    assertNull(compute("go", "build", "app"));
+  }
+
+  @Nullable
+  private String compute(@NotNull String... commandLine) {
+    GoApplicationRunConfigurationType type = GoApplicationRunConfigurationType.getInstance();
+    GoApplicationConfiguration configuration = new GoApplicationConfiguration(myFixture.getProject(), "app", type);
+    configuration.setKind(GoApplicationConfiguration.Kind.PACKAGE);
+    configuration.setPackage("app");
+    return GoBuildFingerprint.compute(configuration, myFixture.getModule(), new GeneralCommandLine(commandLine));
+  }
+
+  private static void saveText(@NotNull final VirtualFile file, @NotNull final String text) throws IOException {
+    ApplicationManager.getApplication().runWriteAction(new ThrowableComputable<Void, IOException>() {
+      @Override
+      public Void compute() throws IOException {
+        VfsUtil.saveText(file, text);
+        return null;
+      }
+    });
+  }
+}
@@ -33,19 +33,21 @@ import java.util.List;
 
 public class GoConsoleFilterTest extends GoCodeInsightFixtureTestCase {
   private GoConsoleFilter myFilter;
+  private VirtualFile myWorkingDirectory;
 
   @Override
   protected void setUp() throws Exception {
     super.setUp();
-    VirtualFile workingDirectory = createTestRoot("workingDirectory");
+    myWorkingDirectory = createTestRoot("workingDirectory");
     VirtualFile goPath = createTestRoot("goPath");
     GoApplicationLibrariesService.getInstance().setLibraryRootUrls(goPath.getUrl());
-    myFilter = new GoConsoleFilter(myFixture.getProject(), myFixture.getModule(), workingDirectory.getUrl());
+    myFilter = new GoConsoleFilter(myFixture.getProject(), myFixture.getModule(), myWorkingDirectory.getUrl());
   }
 
   @Override
   protected void tearDown() throws Exception {
     myFilter = null;
+    myWorkingDirectory = null;
     super.tearDown();
   }
   
@@ -87,6 +89,32 @@ public class GoConsoleFilterTest extends GoCodeInsightFixtureTestCase {
                    0, 94, "/src/goPath/src/nestedGoPath.go", 5, 9);
   }
 
+  public void testResolvedFileIsCached() {
+    doFileLineTest("src/nestedGoPath.go:2: error", 0, 21, "/src/goPath/src/nestedGoPath.go", 2, 1);
+    // the working directory is searched before GOPATH, so a new filter resolves the name to the new file
+    myFixture.getTempDirFixture().createFile("workingDirectory/src/nestedGoPath.go");
+    doFileLineTest("src/nestedGoPath.go:3: error", 0, 21, "/src/goPath/src/nestedGoPath.go", 3, 1);
+
+    myFilter = new GoConsoleFilter(myFixture.getProject(), myFixture.getModule(), myWorkingDirectory.getUrl());
+    doFileLineTest("src/nestedGoPath.go:4: error", 0, 21, "/src/workingDirectory/src/nestedGoPath.go", 4, 1);
+  }
+
+  public void testMissingFileIsNotLinked() {
+    String line = "src/missing.go:2: error";
+    assertNull(myFilter.applyFilter(line, line.length()));
+    assertNull(myFilter.applyFilter(line, line.length()));
+  }
+
+  public void testHostAndPortIsNotLinked() {
+    String line = "dial tcp db.example.com:5432: connection refused";
+    assertNull(myFilter.applyFilter(line, line.length()));
+  }
+
+  public void testLineWithoutFileReferences() {
+    String line = "=== RUN   TestSomething: ok 12";
+    assertNull(myFilter.applyFilter(line, line.length()));
+  }
+
   public void testGoGetLines() {
     doGoGetTest("\tgo get golang.org/x/tools/cmd/cover", 1, 36, "golang.org/x/tools/cmd/cover");
   }
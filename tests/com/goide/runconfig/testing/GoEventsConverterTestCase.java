@@ -32,16 +32,24 @@ import java.text.ParseException;
 
 public abstract class GoEventsConverterTestCase extends GoCodeInsightFixtureTestCase {
   protected void doTest() {
+    GoTestEventsConverterBase converter = createTestEventsConverter(createConsoleProperties());
+    String log = convert(converter, new File(getTestDataPath(), getTestName(true) + ".txt"));
+    assertSameLinesWithFile(getTestDataPath() + "/" + getTestName(true) + "-expected.txt", log);
+  }
+
+  @NotNull
+  protected GoTestConsoleProperties createConsoleProperties() {
     Executor executor = new DefaultRunExecutor();
     GoTestRunConfiguration runConfig = new GoTestRunConfiguration(myFixture.getProject(), "", GoTestRunConfigurationType.getInstance());
     runConfig.setTestFramework(getTestFramework());
-    GoTestConsoleProperties consoleProperties = new GoTestConsoleProperties(runConfig, executor);
-    GoTestEventsConverterBase converter =
-      (GoTestEventsConverterBase)consoleProperties.createTestEventsConverter("gotest", consoleProperties);
+    return new GoTestConsoleProperties(runConfig, executor);
+  }
 
+  @NotNull
+  protected static String convert(@NotNull GoTestEventsConverterBase converter, @NotNull File input) {
     LoggingServiceMessageVisitor serviceMessageVisitor = new LoggingServiceMessageVisitor();
     try {
-      for (String line : FileUtil.loadLines(new File(getTestDataPath(), getTestName(true) + ".txt"), CharsetToolkit.UTF8)) {
+      for (String line : FileUtil.loadLines(input, CharsetToolkit.UTF8)) {
         converter.processServiceMessages(line + "\n", ProcessOutputTypes.STDOUT, serviceMessageVisitor);
       }
     }
@@ -53,7 +61,12 @@ public abstract class GoEventsConverterTestCase extends GoCodeInsightFixtureTest
     }
     ((OutputToGeneralTestEventsConverter)converter).flushBufferBeforeTerminating();
     Disposer.dispose((OutputToGeneralTestEventsConverter)converter);
-    assertSameLinesWithFile(getTestDataPath() + "/" + getTestName(true) + "-expected.txt", serviceMessageVisitor.getLog());
+    return serviceMessageVisitor.getLog();
+  }
+
+  @NotNull
+  protected GoTestEventsConverterBase createTestEventsConverter(@NotNull GoTestConsoleProperties consoleProperties) {
+    return (GoTestEventsConverterBase)consoleProperties.createTestEventsConverter("gotest", consoleProperties);
   }
 
   @NotNull
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.intellij.execution.process.ProcessOutputTypes;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+public class GoTestShardsTest extends UsefulTestCase {
+  public void testSlowPackageGetsOwnShard() {
+    GoTestHistory history = new GoTestHistory(null);
+    history.recordPackage("a", 60000, false);
+    history.recordPackage("b", 20000, false);
+    history.recordPackage("c", 20000, false);
+    history.recordPackage("d", 15000, false);
+    history.recordPackage("e", 5000, false);
+    List<List<String>> shards = GoTestShards.split(ContainerUtil.list("e", "d", "c", "b", "a"), 2, history, false);
+    assertSize(2, shards);
+    assertOrderedEquals(shards.get(0), "a");
+    assertOrderedEquals(shards.get(1), "b", "c", "d", "e");
+  }
+
+  public void testUnknownPackagesTakeAverageDuration() {
+    GoTestHistory history = new GoTestHistory(null);
+    history.recordPackage("a", 3000, false);
+    history.recordPackage("b", 1000, false);
+    List<List<String>> shards = GoTestShards.split(ContainerUtil.list("a", "b", "new1", "new2"), 2, history, false);
+    assertOrderedEquals(shards.get(0), "a", "b");
+    assertOrderedEquals(shards.get(1), "new1", "new2");
+  }
+
+  public void testFailedFirst() {
+    GoTestHistory history = new GoTestHistory(null);
+    history.recordPackage("slow", 10000, false);
+    history.recordPackage("broken", 100, true);
+    history.recordPackage("fast", 50, false);
+    List<List<String>> shards = GoTestShards.split(ContainerUtil.list("slow", "fast", "broken"), 1, history, true);
+    assertOrderedEquals(assertOneElement(shards), "broken", "slow", "fast");
+  }
+
+  public void testMoreShardsThanPackages() {
+    List<List<String>> shards = GoTestShards.split(ContainerUtil.list("a", "b"), 8, new GoTestHistory(null), false);
+    assertSize(2, shards);
+    assertEmpty(GoTestShards.split(ContainerUtil.<String>emptyList(), 4, new GoTestHistory(null), false));
+  }
+
+  public void testRecordPlainOutput() throws IOException {
+    File file = createTempFile("history.txt", null);
+    GoTestHistory history = new GoTestHistory(file);
+    GoTestHistoryRecorder recorder = new GoTestHistoryRecorder(history);
+    recorder.processLine("=== RUN   TestA");
+    recorder.processLine("--- PASS: TestA (0.25s)");
+    recorder.processLine("=== RUN   TestB");
+    recorder.processLine("--- FAIL: TestB (1.50s)");
+    recorder.processLine("    --- PASS: TestB/sub (0.01s)");
+    recorder.processLine("FAIL");
+    recorder.processLine("FAIL\tgithub.com/foo/bar\t1.812s");
+    recorder.processLine("ok  \tgithub.com/foo/baz\t0.004s");
+    recorder.processLine("FAIL\tgithub.com/foo/qux [build failed]");
+    assertEquals(1812, history.getPackageDuration("github.com/foo/bar"));
+    assertTrue(history.isPackageFailed("github.com/foo/bar"));
+    assertEquals(4, history.getPackageDuration("github.com/foo/baz"));
+    assertFalse(history.isPackageFailed("github.com/foo/baz"));
+    assertTrue(history.isPackageFailed("github.com/foo/qux"));
+
+    history.save();
+    assertOrderedEquals(FileUtil.loadLines(file),
+                        "package\tgithub.com/foo/bar\t1812\tFAIL",
+                        "package\tgithub.com/foo/baz\t4\tPASS",
+                        "package\tgithub.com/foo/qux\t0\tFAIL");
+  }
+
+  public void testRecordJsonOutput() throws IOException {
+    File file = createTempFile("history.txt", null);
+    GoTestHistory history = new GoTestHistory(file);
+    GoTestHistoryRecorder recorder = new GoTestHistoryRecorder(history);
+    recorder.processLine("{\"Action\":\"run\",\"Package\":\"foo\",\"Test\":\"TestA\"}");
+    recorder.processLine("{\"Action\":\"output\",\"Package\":\"foo\",\"Test\":\"TestA\",\"Output\":\"--- FAIL: TestA (0.30s)\\n\"}");
+    recorder.processLine("{\"Action\":\"fail\",\"Package\":\"foo\",\"Test\":\"TestA\",\"Elapsed\":0.3}");
+    recorder.processLine("{\"Action\":\"fail\",\"Package\":\"foo\",\"Elapsed\":0.412}");
+    assertEquals(412, history.getPackageDuration("foo"));
+    assertTrue(history.isPackageFailed("foo"));
+
+    history.save();
+    assertOrderedEquals(FileUtil.loadLines(file), "package\tfoo\t412\tFAIL");
+  }
+
+  public void testSaveKeepsPackagesOfPreviousRuns() throws IOException {
+    File file = createTempFile("history.txt", "package\tfoo\t100\tPASS\npackage\tbar\t200\tPASS\n");
+    GoTestHistory history = new GoTestHistory(file);
+    history.recordPackage("bar", 300, true);
+    history.save();
+    assertOrderedEquals(FileUtil.loadLines(file), "package\tbar\t300\tFAIL", "package\tfoo\t100\tPASS");
+  }
+
+  public void testJsonOutputOfShardsIsPassedOnByPackage() {
+    GoTestShardsProcessHandler.ShardOutput first = new GoTestShardsProcessHandler.ShardOutput(true);
+    GoTestShardsProcessHandler.ShardOutput second = new GoTestShardsProcessHandler.ShardOutput(true);
+    List<String> output = ContainerUtil.newArrayList();
+    String firstRun = event("run", "a", "TestA");
+    collect(output, first.add(firstRun.substring(0, 10), ProcessOutputTypes.STDOUT));
+    collect(output, second.add(event("run", "b", "TestB"), ProcessOutputTypes.STDOUT));
+    collect(output, first.add(firstRun.substring(10), ProcessOutputTypes.STDOUT));
+    collect(output, first.add(event("run", "c", "TestC"), ProcessOutputTypes.STDOUT));
+    collect(output, second.add(event("pass", "b", "TestB"), ProcessOutputTypes.STDOUT));
+    collect(output, first.add(event("pass", "a", "TestA"), ProcessOutputTypes.STDOUT));
+    assertEmpty(output);
+
+    collect(output, second.add(event("pass", "b", null), ProcessOutputTypes.STDOUT));
+    collect(output, first.add(event("pass", "c", "TestC"), ProcessOutputTypes.STDOUT));
+    collect(output, first.add(event("fail", "a", null), ProcessOutputTypes.STDOUT));
+    collect(output, first.flush());
+    assertOrderedEquals(output,
+                        event("run", "b", "TestB"), event("pass", "b", "TestB"), event("pass", "b", null),
+                        firstRun, event("pass", "a", "TestA"), event("fail", "a", null),
+                        event("run", "c", "TestC"), event("pass", "c", "TestC"));
+  }
+
+  public void testPlainOutputIsPassedOnAtPackageSummary() {
+    GoTestShardsProcessHandler.ShardOutput output = new GoTestShardsProcessHandler.ShardOutput(false);
+    assertEmpty(output.add("=== RUN   TestA\n", ProcessOutputTypes.STDOUT));
+    assertEmpty(output.add("warning\n", ProcessOutputTypes.STDERR));
+    assertEmpty(output.add("--- PASS: TestA (0.00s)\n", ProcessOutputTypes.STDOUT));
+    assertSize(4, output.add("ok  \tfoo\t0.004s\n", ProcessOutputTypes.STDOUT));
+    assertEmpty(output.flush());
+  }
+
+  private static void collect(@NotNull List<String> result, @NotNull List<Pair<String, Key>> output) {
+    for (Pair<String, Key> pair : output) {
+      result.add(pair.first);
+    }
+  }
+
+  @NotNull
+  private static String event(@NotNull String action, @NotNull String pkg, @Nullable String test) {
+    return "{\"Action\":\"" + action + "\",\"Package\":\"" + pkg + "\"" + (test != null ? ",\"Test\":\"" + test + "\"" : "") + "}\n";
+  }
+}
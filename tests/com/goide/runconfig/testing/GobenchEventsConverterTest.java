@@ -16,9 +16,15 @@
 
 package com.goide.runconfig.testing;
 
+import com.goide.runconfig.testing.frameworks.gobench.GobenchComparison;
+import com.goide.runconfig.testing.frameworks.gobench.GobenchEventsConverter;
 import com.goide.runconfig.testing.frameworks.gobench.GobenchFramework;
+import com.goide.runconfig.testing.frameworks.gobench.GobenchHistory;
+import com.goide.runconfig.testing.frameworks.gobench.GobenchResult;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+
 public class GobenchEventsConverterTest extends GoEventsConverterTestCase {
   public void testSuccessBenchmark() {
     doTest();
@@ -36,6 +42,64 @@ public class GobenchEventsConverterTest extends GoEventsConverterTestCase {
     doTest();
   }
 
+  public void testComparisonWithPreviousRun() throws IOException {
+    GobenchHistory history = new GobenchHistory(createTempFile("bench.txt", ""));
+    String first = runBenchmarks(history, false, "BenchmarkRead-4   1000000   100 ns/op   16 B/op\n");
+    assertFalse(first, first.contains("compared to the previous run"));
+
+    String second = runBenchmarks(history, false, "BenchmarkRead-4   1000000   150 ns/op   16 B/op\n");
+    assertTrue(second, second.contains("compared to the previous run: ns/op 100 -> 150 (+50.0%); B/op 16 -> 16 (+0.0%)"));
+    assertTrue(second, second.contains("regression: ns/op 100 -> 150 (+50.0%)"));
+
+    String third = runBenchmarks(history, false, "BenchmarkRead-4   1000000   150 ns/op   16 B/op\n");
+    assertTrue(third, third.contains("compared to the previous run: ns/op 150 -> 150 (+0.0%)"));
+    assertFalse(third, third.contains("regression:"));
+  }
+
+  public void testBaselineIsKeptOnRegression() throws IOException {
+    GobenchHistory history = new GobenchHistory(createTempFile("bench.txt", ""));
+    runBenchmarks(history, true, samples(100));
+
+    String regressed = runBenchmarks(history, true, samples(200));
+    assertTrue(regressed, regressed.contains("Regressed compared to the baseline"));
+    GobenchResult baseline = GobenchComparison.median(history.load().get("BenchmarkRead-4"));
+    assertNotNull(baseline);
+    assertEquals(102.0, baseline.getMetric(GobenchResult.NS_PER_OP));
+
+    String rerun = runBenchmarks(history, true, samples(200));
+    assertTrue(rerun, rerun.contains("Regressed compared to the baseline"));
+  }
+
+  public void testResetBaseline() throws IOException {
+    GobenchHistory history = new GobenchHistory(createTempFile("bench.txt", ""));
+    runBenchmarks(history, true, samples(100));
+    runBenchmarks(history, true, samples(200));
+
+    history.clear();
+    String accepted = runBenchmarks(history, true, samples(200));
+    assertTrue(accepted, accepted.contains("no baseline yet"));
+    assertFalse(accepted, accepted.contains("Regressed compared to the baseline"));
+    GobenchResult baseline = GobenchComparison.median(history.load().get("BenchmarkRead-4"));
+    assertNotNull(baseline);
+    assertEquals(202.0, baseline.getMetric(GobenchResult.NS_PER_OP));
+  }
+
+  @NotNull
+  private static String samples(int nsPerOp) {
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i < 5; i++) {
+      result.append("BenchmarkRead-4   1000000   ").append(nsPerOp + i).append(" ns/op\n");
+    }
+    return result.toString();
+  }
+
+  @NotNull
+  private String runBenchmarks(@NotNull GobenchHistory history, boolean compareWithBaseline, @NotNull String output)
+    throws IOException {
+    GobenchEventsConverter converter = new GobenchEventsConverter(createConsoleProperties(), history, compareWithBaseline);
+    return convert(converter, createTempFile("output.txt", "PASS\n" + output + "ok      example.com/bench   1.000s\n"));
+  }
+
   @NotNull
   @Override
   protected String getBasePath() {
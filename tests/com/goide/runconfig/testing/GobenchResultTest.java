@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.goide.runconfig.testing.frameworks.gobench.GobenchResult;
+import com.intellij.testFramework.UsefulTestCase;
+import com.intellij.util.containers.ContainerUtil;
+
+import java.util.Collections;
+
+public class GobenchResultTest extends UsefulTestCase {
+  public void testParseStandardMetrics() {
+    GobenchResult result = GobenchResult.parse("BenchmarkRead-4", "  2000000\t       109 ns/op\t      16 B/op\t       1 allocs/op\n");
+    assertNotNull(result);
+    assertEquals("BenchmarkRead-4", result.getName());
+    assertEquals(2000000, result.getIterations());
+    assertOrderedEquals(result.getMetrics().keySet(), "ns/op", "B/op", "allocs/op");
+    assertEquals(109.0, result.getMetric(GobenchResult.NS_PER_OP));
+    assertEquals(1.0, result.getMetric(GobenchResult.ALLOCS_PER_OP));
+  }
+
+  public void testParseCustomMetrics() {
+    GobenchResult result = GobenchResult.parse("BenchmarkSort-8", "300  4105633 ns/op  24.35 MB/s  0.75 hits/op  3.00 p99-ms");
+    assertNotNull(result);
+    assertOrderedEquals(result.getMetrics().keySet(), "ns/op", "MB/s", "hits/op", "p99-ms");
+    assertEquals(24.35, result.getMetric(GobenchResult.MB_PER_SECOND));
+  }
+
+  public void testParseNotResult() {
+    assertNull(GobenchResult.parse("BenchmarkRead", "Hellooooo\n"));
+    assertNull(GobenchResult.parse("BenchmarkRead", "ok      github.com/cydev/stok/storage   2.311s\n"));
+    assertNull(GobenchResult.parse("BenchmarkRead", "2000000\n"));
+    assertNull(GobenchResult.parse("BenchmarkRead", "2000000 109\n"));
+  }
+
+  public void testToStringRoundTrip() {
+    GobenchResult result = GobenchResult.parse("BenchmarkRead-4", "2000000 109 ns/op 0.31 MB/s");
+    assertNotNull(result);
+    assertEquals("BenchmarkRead-4\t2000000\t109 ns/op\t0.31 MB/s", result.toString());
+    GobenchResult parsed = GobenchResult.parseLine(result.toString());
+    assertNotNull(parsed);
+    assertEquals(result.getName(), parsed.getName());
+    assertEquals(result.getMetrics(), parsed.getMetrics());
+  }
+
+  public void testSlowerIsRegression() {
+    GobenchResult previous = new GobenchResult("BenchmarkRead", 100, Collections.singletonMap("ns/op", 100.0));
+    GobenchResult current = new GobenchResult("BenchmarkRead", 100, Collections.singletonMap("ns/op", 120.0));
+    assertOrderedEquals(current.findRegressions(previous, 0.1), "ns/op 100 -> 120 (+20.0%)");
+    assertEmpty(previous.findRegressions(current, 0.1));
+  }
+
+  public void testNoiseIsNotRegression() {
+    GobenchResult previous = new GobenchResult("BenchmarkRead", 100, Collections.singletonMap("ns/op", 100.0));
+    GobenchResult current = new GobenchResult("BenchmarkRead", 100, Collections.singletonMap("ns/op", 105.0));
+    assertEmpty(current.findRegressions(previous, 0.1));
+  }
+
+  public void testStartedAllocating() {
+    GobenchResult previous = new GobenchResult("BenchmarkRead", 100, ContainerUtil.newHashMap(ContainerUtil.list("B/op", "allocs/op"),
+                                                                                              ContainerUtil.list(0.0, 0.0)));
+    GobenchResult current = new GobenchResult("BenchmarkRead", 100, ContainerUtil.newHashMap(ContainerUtil.list("B/op", "allocs/op"),
+                                                                                             ContainerUtil.list(16.0, 1.0)));
+    assertSameElements(current.findRegressions(previous, 0.1), "started allocating: 16 B/op", "started allocating: 1 allocs/op");
+  }
+
+  public void testLowerThroughputIsRegression() {
+    GobenchResult previous = new GobenchResult("BenchmarkRead", 100, Collections.singletonMap("MB/s", 200.0));
+    GobenchResult current = new GobenchResult("BenchmarkRead", 100, Collections.singletonMap("MB/s", 150.0));
+    assertOrderedEquals(current.findRegressions(previous, 0.1), "MB/s 200 -> 150 (-25.0%)");
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013-2016 Sergey Ignatov, Alexander Zolotov, Florin Patan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.goide.runconfig.testing;
+
+import com.goide.runconfig.testing.frameworks.gobench.GobenchComparison;
+import com.goide.runconfig.testing.frameworks.gobench.GobenchResult;
+import com.goide.runconfig.testing.frameworks.gobench.GobenchStatistics;
+import com.intellij.testFramework.UsefulTestCase;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+public class GobenchStatisticsTest extends UsefulTestCase {
+  private static final double DELTA = 1e-4;
+
+  public void testMedian() {
+    assertEquals(2.0, GobenchStatistics.median(new double[]{3, 1, 2}));
+    assertEquals(2.5, GobenchStatistics.median(new double[]{4, 1, 2, 3}));
+  }
+
+  public void testSeparatedSamples() {
+    assertEquals(0.0079, GobenchStatistics.mannWhitneyPValue(new double[]{1, 2, 3, 4, 5}, new double[]{6, 7, 8, 9, 10}), DELTA);
+  }
+
+  public void testInterleavedSamples() {
+    assertEquals(0.6905, GobenchStatistics.mannWhitneyPValue(new double[]{1, 3, 5, 7, 9}, new double[]{2, 4, 6, 8, 10}), DELTA);
+  }
+
+  public void testIdenticalSamples() {
+    assertEquals(1.0, GobenchStatistics.mannWhitneyPValue(new double[]{5, 5, 5}, new double[]{5, 5, 5}), DELTA);
+  }
+
+  public void testTiedSamples() {
+    assertEquals(0.0040, GobenchStatistics.mannWhitneyPValue(new double[]{0, 0, 0, 0, 0}, new double[]{1, 1, 1, 1, 1}), DELTA);
+  }
+
+  public void testSingleSample() {
+    assertEquals(0.5, GobenchStatistics.mannWhitneyPValue(new double[]{1.1, 2.2, 3.3}, new double[]{0.5}), DELTA);
+  }
+
+  public void testSignificantSlowdownIsRegression() {
+    List<GobenchComparison> comparisons = GobenchComparison.compare(samples(100, 101, 99, 100, 102), samples(110, 111, 109, 112, 110),
+                                                                    0.05);
+    GobenchComparison comparison = assertOneElement(comparisons);
+    assertEquals(GobenchComparison.Verdict.REGRESSED, comparison.getVerdict());
+    assertEquals(100.0, comparison.getBaselineMedian());
+    assertEquals(110.0, comparison.getMedian());
+    assertEquals(0.0117, comparison.getPValue(), DELTA);
+  }
+
+  public void testSignificantSpeedupIsImprovement() {
+    List<GobenchComparison> comparisons = GobenchComparison.compare(samples(110, 111, 109, 112, 110), samples(100, 101, 99, 100, 102),
+                                                                    0.05);
+    assertEquals(GobenchComparison.Verdict.IMPROVED, assertOneElement(comparisons).getVerdict());
+  }
+
+  public void testNoiseIsUnchanged() {
+    List<GobenchComparison> comparisons = GobenchComparison.compare(samples(100, 104, 98, 101, 99), samples(103, 97, 100, 102, 99), 0.05);
+    assertEquals(GobenchComparison.Verdict.UNCHANGED, assertOneElement(comparisons).getVerdict());
+  }
+
+  public void testMedianResult() {
+    GobenchResult median = GobenchComparison.median(samples(100, 130, 110));
+    assertNotNull(median);
+    assertEquals(110.0, median.getMetric(GobenchResult.NS_PER_OP));
+    assertNull(GobenchComparison.median(Collections.<GobenchResult>emptyList()));
+  }
+
+  @NotNull
+  private static List<GobenchResult> samples(double... nsPerOp) {
+    List<GobenchResult> result = ContainerUtil.newArrayList();
+    for (double value : nsPerOp) {
+      result.add(new GobenchResult("BenchmarkRead-4", 1000, Collections.singletonMap(GobenchResult.NS_PER_OP, value)));
+    }
+    return result;
+  }
+}
@@ -16,9 +16,13 @@
 
 package com.goide.runconfig.testing;
 
+import com.goide.runconfig.testing.frameworks.gocheck.GocheckEventsConverter;
 import com.goide.runconfig.testing.frameworks.gocheck.GocheckFramework;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
+import java.io.FilenameFilter;
+
 public class GocheckEventsConverterTest extends GoEventsConverterTestCase {
   public void testPass()                      { doTest(); }
   public void testAssertions()                { doTest(); }
@@ -35,6 +39,22 @@ public class GocheckEventsConverterTest extends GoEventsConverterTestCase {
   public void testTestBothFixturesError()     { doTest(); }
   public void testSkippingTests()             { doTest(); }
 
+  public void testSameEventsAsRegexConverter() {
+    File[] inputs = new File(getTestDataPath()).listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(".txt") && !name.endsWith("-expected.txt");
+      }
+    });
+    assertNotNull(inputs);
+    for (File input : inputs) {
+      GoTestConsoleProperties consoleProperties = createConsoleProperties();
+      String expected = convert(new GocheckRegexEventsConverter(consoleProperties), input);
+      String actual = convert(new GocheckEventsConverter(consoleProperties), input);
+      assertEquals(input.getName(), expected, actual);
+    }
+  }
+
   @NotNull
   @Override
   protected String getBasePath() {